@@ -0,0 +1,83 @@
+package com.ahmed.pdfx.pdfreadx.benchmark;
+
+import com.ahmed.pdfx.pdfreadx.cache.LruMemoryCache;
+import com.ahmed.pdfx.pdfreadx.cache.PageKey;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Page cache lookups and inserts the way the engine does them while paging through a document:
+ * mostly pages near the current one, at a few pyramid levels, with the cache a fraction of the
+ * document. Values stand in for bitmaps by their size in bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheBenchmark {
+    private static final int PAGES = 500;
+    private static final float[] SCALES = {0.125f, 0.5f, 1f, 2f};
+    private static final int PAGE_BYTES = 1080 * 1400 * 4;
+
+    private LruMemoryCache<PageKey, Integer> cache;
+    private PageKey[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = new LruMemoryCache<>(64L * PAGE_BYTES, bytes -> bytes);
+        keys = new PageKey[PAGES * SCALES.length];
+        for (int page = 0; page < PAGES; page++) {
+            for (int level = 0; level < SCALES.length; level++) {
+                keys[page * SCALES.length + level] = new PageKey("/sdcard/Download/report.pdf", page, SCALES[level]);
+            }
+        }
+    }
+
+    /** Where one thread is reading; it turns a page every hundred accesses. */
+    @State(Scope.Thread)
+    public static class Reader {
+        int page;
+        int accesses;
+    }
+
+    private PageKey nextKey(Reader reader) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (++reader.accesses % 100 == 0) {
+            reader.page = (reader.page + 1) % (PAGES - 8);
+        }
+        // Nine in ten accesses stay within a few pages of the reading position.
+        int page = random.nextInt(10) != 0 ? reader.page + random.nextInt(8) : random.nextInt(PAGES);
+        int level = random.nextInt(SCALES.length);
+        return keys[page * SCALES.length + level];
+    }
+
+    private Integer lookupOrInsert(PageKey key) {
+        Integer cached = cache.get(key);
+        if (cached == null) {
+            cached = Math.max(1, (int) (PAGE_BYTES * key.scale * key.scale));
+            cache.put(key, cached);
+        }
+        return cached;
+    }
+
+    @Benchmark
+    public Integer lookupOrInsert(Reader reader) {
+        return lookupOrInsert(nextKey(reader));
+    }
+
+    /** The same with render workers and the main thread hitting the cache at once. */
+    @Benchmark
+    @Threads(4)
+    public Integer lookupOrInsertContended(Reader reader) {
+        return lookupOrInsert(nextKey(reader));
+    }
+}
@@ -0,0 +1,51 @@
+package com.ahmed.pdfx.pdfreadx.benchmark;
+
+import com.ahmed.pdfx.pdfreadx.render.PageLevels;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Picks the normal and fitting pyramid levels for a mix of page sizes, from slides to large
+ * scans, and the screen and thumbnail boxes they are shown in.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SampleSizeBenchmark {
+    private static final int[][] PAGES = {
+            {612, 792}, {595, 842}, {842, 595}, {1224, 1584}, {2480, 3508}, {9921, 14031}, {200, 300},
+    };
+    private static final int[][] BOXES = {
+            {1080, 2000}, {2000, 1080}, {1440, 3000}, {200, 283}, {4096, 4096},
+    };
+
+    @Benchmark
+    public float selectLevels() {
+        float sum = 0;
+        for (int[] page : PAGES) {
+            for (int[] box : BOXES) {
+                sum += PageLevels.baseScale(page[0], page[1], box[0], box[1]);
+                sum += PageLevels.fittingLevel(page[0], page[1], box[0], box[1]);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int calculateSampleSize() {
+        int sum = 0;
+        for (int[] page : PAGES) {
+            for (int[] box : BOXES) {
+                sum += PageLevels.calculateSampleSize(page[0] * 4, page[1] * 4, box[0], box[1]);
+            }
+        }
+        return sum;
+    }
+}
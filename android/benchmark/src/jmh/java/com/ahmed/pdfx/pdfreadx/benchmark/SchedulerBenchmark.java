@@ -0,0 +1,124 @@
+package com.ahmed.pdfx.pdfreadx.benchmark;
+
+import com.ahmed.pdfx.pdfreadx.render.PageSource;
+import com.ahmed.pdfx.pdfreadx.render.RenderExecutor;
+import com.ahmed.pdfx.pdfreadx.render.SyntheticPageSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Time until a page the user turns to is rendered while a backlog of prefetch renders is already
+ * queued on the engine's {@link RenderExecutor}, whose workers each render with their own
+ * {@link SyntheticPageSource}. With {@code prioritized} the page is queued at the visible
+ * priority and overtakes the backlog; without it, it waits its turn behind it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SchedulerBenchmark {
+    // The engine's priorities for a visible page and a prefetched one.
+    private static final int PRIORITY_VISIBLE = 0;
+    private static final int PRIORITY_PREFETCH = 2;
+    private static final int PAGES = 200;
+    /** Pages are rendered at half size: 306x396 pixels. */
+    private static final float SCALE = 0.5f;
+
+    @Param({"1", "2", "4"})
+    public int workers;
+
+    /** Prefetch renders queued ahead of the page that has to show. */
+    @Param({"0", "8", "32"})
+    public int backlog;
+
+    @Param({"true", "false"})
+    public boolean prioritized;
+
+    private final PageSource.Factory<int[]> sources = SyntheticPageSource.factory(PAGES, 612, 792);
+    private final ThreadLocal<PageSource<int[]>> workerSources = new ThreadLocal<>();
+    private final Map<Thread, int[]> buffers = new ConcurrentHashMap<>();
+    private RenderExecutor executor;
+    private CountDownLatch drained;
+    private int nextPage;
+
+    @Setup
+    public void setUp() {
+        executor = new RenderExecutor("benchmark-render-", () -> {
+            PageSource<int[]> source = workerSources.get();
+            if (source != null) {
+                source.close();
+            }
+        }, sources::close);
+        executor.setPoolSize(workers);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /** Lets the backlog finish outside the measurement, so every invocation starts idle. */
+    @TearDown(Level.Invocation)
+    public void drainBacklog() throws InterruptedException {
+        drained.await();
+    }
+
+    @Benchmark
+    public void turnPageBehindBacklog() throws InterruptedException {
+        drained = new CountDownLatch(backlog);
+        for (int i = 0; i < backlog; i++) {
+            int index = page();
+            executor.execute(PRIORITY_PREFETCH, () -> {
+                render(index);
+                drained.countDown();
+            });
+        }
+        CountDownLatch shown = new CountDownLatch(1);
+        int index = page();
+        executor.execute(prioritized ? PRIORITY_VISIBLE : PRIORITY_PREFETCH, () -> {
+            render(index);
+            shown.countDown();
+        });
+        shown.await();
+    }
+
+    private int page() {
+        int index = nextPage;
+        nextPage = (nextPage + 1) % PAGES;
+        return index;
+    }
+
+    private void render(int index) {
+        PageSource<int[]> source = workerSources.get();
+        if (source == null) {
+            try {
+                source = sources.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            workerSources.set(source);
+        }
+        try (PageSource.Page<int[]> page = source.openPage(index)) {
+            int width = Math.round(page.getWidth() * SCALE);
+            int height = Math.round(page.getHeight() * SCALE);
+            int[] pixels = buffers.computeIfAbsent(Thread.currentThread(), thread -> new int[width * height]);
+            page.render(pixels, width, height, SCALE, SCALE, 0, 0);
+        }
+    }
+}
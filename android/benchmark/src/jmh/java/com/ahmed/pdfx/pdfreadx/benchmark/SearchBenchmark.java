@@ -0,0 +1,73 @@
+package com.ahmed.pdfx.pdfreadx.benchmark;
+
+import com.ahmed.pdfx.pdfreadx.render.PageSource;
+import com.ahmed.pdfx.pdfreadx.render.SyntheticPageSource;
+import com.ahmed.pdfx.pdfreadx.search.TextIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Indexes the text of a long synthetic document and searches it: a fresh query, which narrows
+ * the pages down through the postings and scans them, and the same query repeated, which the
+ * index answers from its recent queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+    private static final String[] QUERIES = {"cache bitmap", "vsync", "ory bud", "render page tile"};
+
+    @Param({"2000"})
+    public int pageCount;
+
+    private String[] pageTexts;
+    private TextIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void readText() {
+        pageTexts = new String[pageCount];
+        PageSource<int[]> source = new SyntheticPageSource(pageCount, 612, 792);
+        for (int i = 0; i < pageCount; i++) {
+            try (PageSource.Page<int[]> page = source.openPage(i)) {
+                pageTexts[i] = page.getText();
+            }
+        }
+        index = new TextIndex(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            index.addPage(i, pageTexts[i]);
+        }
+    }
+
+    @Benchmark
+    public TextIndex buildIndex() {
+        TextIndex built = new TextIndex(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            built.addPage(i, pageTexts[i]);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public List<TextIndex.Hit> freshQuery() {
+        // A different hit limit is a different cache key, so the query really runs.
+        String query = QUERIES[next++ % QUERIES.length];
+        return index.find(query, 1000 + next % 1000);
+    }
+
+    @Benchmark
+    public List<TextIndex.Hit> repeatedQuery() {
+        return index.find(QUERIES[0], 1000);
+    }
+}
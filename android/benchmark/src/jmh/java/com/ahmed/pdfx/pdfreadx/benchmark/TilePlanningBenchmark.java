@@ -0,0 +1,38 @@
+package com.ahmed.pdfx.pdfreadx.benchmark;
+
+import com.ahmed.pdfx.pdfreadx.render.TilePlanner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/** Plans the tiles of a letter-size page for a viewport panning across it at several zooms. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TilePlanningBenchmark {
+    /** Pixels per point the tiles are rendered at. */
+    @Param({"2", "8", "32"})
+    public float scale;
+
+    private int step;
+
+    @Benchmark
+    public List<TilePlanner.TileSpec> plan() {
+        // A phone-sized viewport: 1080x2000 pixels of the scaled page, moving diagonally.
+        float width = 1080f / (612 * scale);
+        float height = 2000f / (792 * scale);
+        float offset = (step++ % 64) / 64f;
+        float left = offset * Math.max(0f, 1f - width);
+        float top = offset * Math.max(0f, 1f - height);
+        return TilePlanner.plan(612, 792, TilePlanner.quantizeScale(scale),
+                left, top, left + width, top + height, TilePlanner.DEFAULT_TILE_SIZE);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ahmed.pdfx.pdfreadx.benchmark;
+
+import com.ahmed.pdfx.pdfreadx.views.ZoomMath;
+import com.ahmed.pdfx.pdfreadx.views.ZoomTransform;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Replays the per-event geometry of a gesture in the viewer: a pinch from the fitted scale to
+ * 4x around a moving focus, then a pan across the zoomed page, 120 touch events in all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ZoomMathBenchmark {
+    private static final float VIEW_WIDTH = 1080;
+    private static final float VIEW_HEIGHT = 2000;
+    private static final float IMAGE_WIDTH = 1224;
+    private static final float IMAGE_HEIGHT = 1584;
+
+    private final ZoomTransform transform = new ZoomTransform();
+
+    @Benchmark
+    public float pinchThenPan() {
+        float minScale = ZoomMath.fitScale(IMAGE_WIDTH, IMAGE_HEIGHT, VIEW_WIDTH, VIEW_HEIGHT);
+        transform.set(minScale, ZoomMath.centeredTranslation(IMAGE_WIDTH * minScale, VIEW_WIDTH),
+                ZoomMath.centeredTranslation(IMAGE_HEIGHT * minScale, VIEW_HEIGHT));
+        for (int event = 0; event < 60; event++) {
+            transform.zoomAround(transform.scale * 1.0234f, 400 + event, 900 + event * 2,
+                    IMAGE_WIDTH, IMAGE_HEIGHT, VIEW_WIDTH, VIEW_HEIGHT);
+        }
+        for (int event = 0; event < 60; event++) {
+            transform.panBy(-23f, -41f, IMAGE_WIDTH, IMAGE_HEIGHT, VIEW_WIDTH, VIEW_HEIGHT);
+        }
+        return transform.x + transform.y + ZoomMath.doubleTapScale(transform.scale, minScale, minScale * 5);
+    }
+}
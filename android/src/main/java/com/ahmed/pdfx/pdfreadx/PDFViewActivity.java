@@ -1,37 +1,201 @@
 package com.ahmed.pdfx.pdfreadx;
 
+import android.content.Context;
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.pdf.PdfRenderer;
+import android.graphics.RectF;
+import android.net.Uri;
 import android.os.Bundle;
-import android.os.ParcelFileDescriptor;
-import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.inputmethod.EditorInfo;
+import android.view.inputmethod.InputMethodManager;
+import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.OnBackPressedCallback;
 import androidx.appcompat.app.AppCompatActivity;
-
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.ahmed.pdfx.pdfreadx.cache.MemoryGovernor;
+import com.ahmed.pdfx.pdfreadx.cache.RenderCaches;
+import com.ahmed.pdfx.pdfreadx.metrics.FrameMonitor;
+import com.ahmed.pdfx.pdfreadx.metrics.RenderMetrics;
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+import com.ahmed.pdfx.pdfreadx.render.TilePlanner;
+import com.ahmed.pdfx.pdfreadx.search.DocumentSearch;
+import com.ahmed.pdfx.pdfreadx.search.TextIndex;
+import com.ahmed.pdfx.pdfreadx.session.DocumentRegistry;
+import com.ahmed.pdfx.pdfreadx.session.DocumentSession;
+import com.ahmed.pdfx.pdfreadx.views.PageStripAdapter;
+import com.ahmed.pdfx.pdfreadx.views.ThumbnailGridAdapter;
 import com.ahmed.pdfx.pdfreadx.views.ZoomableImageView;
+import com.ahmed.pdfx.pdfreadx.views.ZoomableRecyclerView;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PDFViewActivity extends AppCompatActivity {
+    /** Value of the {@code scrollMode} extra that selects the continuous vertical page list. */
+    public static final String SCROLL_MODE_CONTINUOUS = "continuous";
+
     private String fileName, filePath;
     private TextView zoomLevelText;
     private TextView pageInfo;
-    private ImageButton btnPrevious, btnNext;
+    private ImageButton btnPrevious, btnNext, btnGrid;
     private int currentPageIndex = 0;
+    private int displayedPageIndex = -1;
+    // Navigation stays off until the first page is on screen; startup time is measured up to then.
+    private boolean navigationEnabled;
+    private long createdNanos;
+    // A stored rendering of the first page shown while the document opens.
+    private Bitmap coverBitmap;
+    // The page a swipe is bringing in, rendered before the page turns, and its bitmap once there.
+    private int speculativePageIndex = -1;
+    private Bitmap incomingBitmap;
     private ZoomableImageView imageView;
-    private PdfRenderer pdfRenderer;
-    private ParcelFileDescriptor parcelFileDescriptor;
-    private PdfRenderer.Page currentPage;
+    private ZoomableRecyclerView pageList;
+    private LinearLayoutManager pageListLayout;
+    private PageStripAdapter pageStripAdapter;
+    private boolean continuousMode;
+    private RecyclerView pageGrid;
+    private ThumbnailGridAdapter thumbnailGridAdapter;
+    private OnBackPressedCallback closeGridOnBack;
+    private DocumentRegistry registry;
+    // Holds the reference to the session, which outlives the activity across configuration changes.
+    private PDFViewModel viewModel;
+    private DocumentSession session;
+    private PdfRenderEngine renderEngine;
+    // This screen's requests and displayed bitmaps; other viewers of the document have their own.
+    private PdfRenderEngine.Client renderClient;
+    private int reqWidth, reqHeight;
+    private MemoryGovernor memoryGovernor;
+    private FrameMonitor frameMonitor;
+    private RenderCaches renderCaches;
+    private View searchBar;
+    private EditText searchInput;
+    private TextView searchStatus;
+    private OnBackPressedCallback closeSearchOnBack;
+    // The latest search and the pages it found, in page order; hitPage indexes hitPages.
+    private DocumentSearch.Result searchResult;
+    private final List<Integer> hitPages = new ArrayList<>();
+    private int hitPage = -1;
+    private final Runnable refreshSearch = () -> runSearch(false);
+    private final MemoryGovernor.ResolutionListener resolutionListener = multiplier -> {
+        updateRequestedSize();
+        if (pageStripAdapter != null) {
+            pageStripAdapter.setRequestSize(reqWidth, reqHeight);
+            return;
+        }
+        displayedPageIndex = -1;
+        showPage(currentPageIndex);
+    };
+
+    // Sharper levels or tiles are requested once the page is shown this much larger than its bitmap.
+    private static final float TILE_ZOOM_THRESHOLD = 1.25f;
+
+    // A page-turning fling faster than this, in dp per second, widens prefetching in its direction.
+    private static final float FAST_FLING_DP_PER_SECOND = 2500f;
+    private static final int FAST_FLING_PREFETCH = 4;
+
+    private static final int MAX_SEARCH_HITS = 1000;
+    private static final int SEARCH_BOUNDS_PAGES = 3;
+    // While indexing, the search reruns this often to pick up the pages indexed meanwhile.
+    private static final long SEARCH_REFRESH_MS = 1000;
+
+    private final PdfRenderEngine.PageCallback pageCallback = new PdfRenderEngine.PageCallback() {
+        @Override
+        public void onPageRendered(int index, Bitmap bitmap) {
+            if (index != currentPageIndex) {
+                return;
+            }
+            if (index == displayedPageIndex) {
+                // Progressive upgrade of the page already on screen: only ever get sharper.
+                if (bitmap.getWidth() <= imageView.getDrawable().getIntrinsicWidth()) {
+                    return;
+                }
+                imageView.replaceBitmap(bitmap);
+            } else {
+                imageView.setTiles(null);
+                renderClient.setDisplayedTiles(null);
+                imageView.setPageBitmap(bitmap);
+                releaseCover();
+                cancelSpeculation();
+                setIncomingPage(null, false);
+                displayedPageIndex = index;
+                showHighlights(index);
+            }
+            renderClient.setDisplayedBitmap(bitmap);
+            viewModel.setPageBitmap(index, bitmap, renderCaches.bitmapPool);
+            if (!navigationEnabled) {
+                onFirstPageShown(index);
+            }
+        }
+
+        @Override
+        public void onPageFailed(int index, Exception e) {
+            Log.d("Failure", "Could not render page " + index + ": " + e.getMessage());
+        }
+    };
+
+    private final PdfRenderEngine.PageCallback incomingCallback = new PdfRenderEngine.PageCallback() {
+        @Override
+        public void onPageRendered(int index, Bitmap bitmap) {
+            if (index == speculativePageIndex) {
+                setIncomingPage(bitmap, index > currentPageIndex);
+            }
+        }
+
+        @Override
+        public void onPageFailed(int index, Exception e) {
+            Log.d("Failure", "Could not render incoming page " + index + ": " + e.getMessage());
+        }
+    };
+
+    private final PdfRenderEngine.TileCallback tileCallback = (index, scale, tiles) -> {
+        if (index != currentPageIndex) {
+            return;
+        }
+        imageView.setTiles(tiles);
+        renderClient.setDisplayedTiles(tiles);
+    };
+
+    private final DocumentRegistry.OpenCallback openCallback = new DocumentRegistry.OpenCallback() {
+        @Override
+        public void onCover(Bitmap cover) {
+            if (isDestroyed() || continuousMode || displayedPageIndex >= 0) {
+                renderCaches.bitmapPool.release(cover);
+                return;
+            }
+            releaseCover();
+            coverBitmap = cover;
+            imageView.setPageBitmap(cover);
+            recordFirstPage();
+        }
+
+        @Override
+        public void onOpened(DocumentSession opened) {
+            if (isDestroyed()) {
+                registry.release(opened);
+                return;
+            }
+            showDocument(opened);
+        }
+
+        @Override
+        public void onOpenFailed(Exception e) {
+            if (!isDestroyed()) {
+                Toast.makeText(PDFViewActivity.this, "Error opening PDF: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        }
+    };
 
     public String getFileName() {
         return fileName;
@@ -52,53 +216,92 @@ public class PDFViewActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdNanos = System.nanoTime();
         setContentView(R.layout.activity_pdfview);
 
         zoomLevelText = findViewById(R.id.zoomLevelText);
         imageView = findViewById(R.id.pdfPageImageView);
+        pageList = findViewById(R.id.pdfPageList);
         pageInfo = findViewById(R.id.pageInfo);
         btnPrevious = findViewById(R.id.btnPrevious);
         btnNext = findViewById(R.id.btnNext);
+        btnGrid = findViewById(R.id.btnGrid);
+        searchBar = findViewById(R.id.searchBar);
+        searchInput = findViewById(R.id.searchInput);
+        searchStatus = findViewById(R.id.searchStatus);
+        pageGrid = findViewById(R.id.pageGrid);
+        continuousMode = SCROLL_MODE_CONTINUOUS.equals(getIntent().getStringExtra("scrollMode"));
+        registry = DocumentRegistry.getInstance(this);
+        viewModel = new ViewModelProvider(this).get(PDFViewModel.class);
+        memoryGovernor = registry.getMemoryGovernor();
+        registry.addResolutionListener(resolutionListener);
+        renderCaches = memoryGovernor.getCaches();
+        frameMonitor = new FrameMonitor(getWindowManager().getDefaultDisplay().getRefreshRate());
+        updateRequestedSize();
 
         btnPrevious.setOnClickListener(v -> showPage(currentPageIndex - 1));
         btnNext.setOnClickListener(v -> showPage(currentPageIndex + 1));
+        btnGrid.setOnClickListener(v -> togglePageGrid());
+        closeGridOnBack = new OnBackPressedCallback(false) {
+            @Override
+            public void handleOnBackPressed() {
+                hidePageGrid();
+            }
+        };
+        getOnBackPressedDispatcher().addCallback(this, closeGridOnBack);
+        setUpSearch();
 
         btnPrevious.setEnabled(false);
         btnNext.setEnabled(false);
+        btnGrid.setEnabled(false);
 
-        imageView.setZoomListener(scale -> {
-            int percent = (int) (scale / imageView.getMinScale() * 100);
-            zoomLevelText.setText(percent + "%");
-            zoomLevelText.setVisibility(View.VISIBLE);
-            zoomLevelText.postDelayed(() -> {
-                zoomLevelText.setVisibility(View.GONE);
-            }, 1500);
-        });
+        imageView.setZoomListener(scale -> showZoomLevel(scale / imageView.getMinScale()));
+        imageView.setViewportListener(this::updateTiles);
+        if (continuousMode) {
+            setUpPageList();
+        }
 
         // Set up swipe listener
         imageView.setOnSwipeListener(new ZoomableImageView.OnSwipeListener() {
             @Override
             public void onSwipeLeft() {
-                showPage(currentPageIndex + 1);
+                if (navigationEnabled) {
+                    showPage(currentPageIndex + 1);
+                }
             }
 
             @Override
             public void onSwipeRight() {
-                showPage(currentPageIndex - 1);
+                if (navigationEnabled) {
+                    showPage(currentPageIndex - 1);
+                }
             }
 
             @Override
             public void onSwipeProgress(float offset, boolean isRightSwipe) {
-                // Optional: Add visual feedback during swipe
-                // For example, you could dim the current page slightly
+                speculate(isRightSwipe ? currentPageIndex - 1 : currentPageIndex + 1);
+            }
+
+            @Override
+            public void onSwipeCancelled() {
+                cancelSpeculation();
+            }
+
+            @Override
+            public void onSwipeFling(float velocityX) {
+                adaptPrefetchTo(velocityX);
             }
         });
 
         String messageFromFlutter = getIntent().getStringExtra("message_from_flutter");
-        if (messageFromFlutter != null) {
+        if (viewModel.getSession() != null) {
+            restoreDocument(viewModel.getSession());
+        } else if (messageFromFlutter != null) {
             filePath = getIntent().getStringExtra("filePath");
             fileName = getIntent().getStringExtra("fileName");
-            Toast.makeText(this, "Opening file " + fileName, Toast.LENGTH_SHORT).show();
+            if (fileName != null) {
+                Toast.makeText(this, "Opening file " + fileName, Toast.LENGTH_SHORT).show();
+            }
             openPDF(filePath, fileName);
         } else {
             Toast.makeText(this, "No message received from Flutter", Toast.LENGTH_SHORT).show();
@@ -106,120 +309,507 @@ public class PDFViewActivity extends AppCompatActivity {
     }
 
     private void openPDF(String appFileDir, String fileName) {
+        // Flutter passes the id of a document it already opened, so both share one renderer.
+        DocumentSession shared = getIntent().hasExtra("documentId")
+                ? registry.acquire(getIntent().getIntExtra("documentId", 0)) : null;
+        if (shared != null) {
+            showDocument(shared);
+            return;
+        }
+        // Opening parses the whole document, so it happens in the background while the screen
+        // draws and shows a stored first page if there is one.
+        String uri = getIntent().getStringExtra("uri");
+        if (uri != null) {
+            registry.openAsync(Uri.parse(uri), openCallback);
+            return;
+        }
         File file = new File(appFileDir, fileName);
         if (file.exists()) {
-            openRenderer(file);
+            registry.openAsync(file, openCallback);
         } else {
             Toast.makeText(this, "PDF file not found", Toast.LENGTH_SHORT).show();
             Log.d("Failure", "PDF file not found");
         }
     }
 
-    private void openRenderer(File file) {
-        try {
-            closeRenderer();
+    /**
+     * Shows the document again after a configuration change recreated the activity: the page
+     * that was on screen is re-fitted at once, zoomed as before, and re-rendered for the new size
+     * in the background.
+     */
+    private void restoreDocument(DocumentSession retained) {
+        // Not a startup, so it stays out of the first-page metric.
+        createdNanos = 0;
+        currentPageIndex = viewModel.getPageIndex();
+        Bitmap bitmap = viewModel.getPageBitmap(currentPageIndex);
+        if (bitmap != null && !continuousMode) {
+            imageView.setPageBitmap(bitmap);
+            imageView.restoreZoomState(viewModel.zoomState[0], viewModel.zoomState[1], viewModel.zoomState[2]);
+            displayedPageIndex = currentPageIndex;
+        }
+        showDocument(retained);
+        // Unless a sharper rendering from the cache replaced it already.
+        if (displayedPageIndex >= 0 && viewModel.getPageBitmap(currentPageIndex) == bitmap) {
+            renderClient.setDisplayedBitmap(bitmap);
+        }
+        if (displayedPageIndex >= 0 && !navigationEnabled) {
+            onFirstPageShown(currentPageIndex);
+        }
+    }
+
+    /**
+     * Shows a document the activity holds a reference to, handing the reference to the view model
+     * and giving back the document shown before. Starts at the current page.
+     */
+    private void showDocument(DocumentSession newSession) {
+        closeRenderer();
+        viewModel.setSession(registry, newSession);
+        session = newSession;
+        renderEngine = session.getEngine();
+        renderClient = renderEngine.openClient();
+        navigationEnabled = false;
+        btnGrid.setEnabled(false);
+        if (continuousMode) {
+            PdfRenderEngine.Client client = renderClient;
+            renderEngine.measurePages(() -> {
+                if (client != renderClient) {
+                    return;
+                }
+                pageStripAdapter = new PageStripAdapter(client, renderCaches.bitmapPool, reqWidth, reqHeight);
+                pageStripAdapter.setZoom(pageList.getScale());
+                pageStripAdapter.setPageShownListener(this::onFirstPageShown);
+                pageList.setAdapter(pageStripAdapter);
+                pageListLayout.scrollToPositionWithOffset(currentPageIndex, 0);
+            });
+            updatePageInfo();
+        } else {
+            showPage(currentPageIndex);
+        }
+    }
 
-            parcelFileDescriptor = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
-            pdfRenderer = new PdfRenderer(parcelFileDescriptor);
-            showPage(0);
+    /**
+     * Starts rendering the page a swipe is bringing in as soon as the swipe begins, at the
+     * priority of a visible page, so the turn finds it cached and the drag can show it sliding in.
+     */
+    private void speculate(int index) {
+        if (!navigationEnabled || continuousMode || index == speculativePageIndex) {
+            return;
+        }
+        cancelSpeculation();
+        if (index < 0 || index >= renderEngine.getPageCount()) {
+            return;
+        }
+        speculativePageIndex = index;
+        renderClient.requestStripPage(index, reqWidth, reqHeight, incomingCallback);
+    }
 
-            btnPrevious.setEnabled(false);
-            btnNext.setEnabled(pdfRenderer.getPageCount() > 1);
-        } catch (IOException e) {
-            Toast.makeText(this, "Error opening PDF: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+    /** Drops the render of an abandoned swipe's page unless it started already. */
+    private void cancelSpeculation() {
+        if (speculativePageIndex >= 0) {
+            renderClient.cancelStripPage(speculativePageIndex);
+            speculativePageIndex = -1;
         }
     }
 
-    private void showPage(int index) {
-        if (pdfRenderer == null || pdfRenderer.getPageCount() <= index || index < 0) {
+    private void setIncomingPage(Bitmap bitmap, boolean fromRight) {
+        if (bitmap == incomingBitmap) {
             return;
         }
+        if (bitmap != null) {
+            renderCaches.bitmapPool.retain(bitmap);
+        }
+        imageView.setIncomingPage(bitmap, fromRight);
+        renderCaches.bitmapPool.release(incomingBitmap);
+        incomingBitmap = bitmap;
+    }
 
-        if (currentPage != null) {
-            currentPage.close();
+    /** Prefetches further in the direction of a fast fling: the reader is flipping through. */
+    private void adaptPrefetchTo(float velocityX) {
+        if (renderEngine == null) {
+            return;
+        }
+        float fast = FAST_FLING_DP_PER_SECOND * getResources().getDisplayMetrics().density;
+        if (Math.abs(velocityX) < fast) {
+            renderClient.setPrefetchWindow(PdfRenderEngine.Client.DEFAULT_PREFETCH_BEHIND,
+                    PdfRenderEngine.Client.DEFAULT_PREFETCH_AHEAD);
+        } else if (velocityX < 0) {
+            renderClient.setPrefetchWindow(PdfRenderEngine.Client.DEFAULT_PREFETCH_BEHIND, FAST_FLING_PREFETCH);
+        } else {
+            renderClient.setPrefetchWindow(FAST_FLING_PREFETCH, PdfRenderEngine.Client.DEFAULT_PREFETCH_AHEAD);
+        }
+    }
+
+    /**
+     * Enables navigation once the current page is on screen. A page rendered after a fast swipe
+     * moved on, or one bound just outside the screen, does not count.
+     */
+    private void onFirstPageShown(int index) {
+        if (navigationEnabled || index != currentPageIndex) {
+            return;
+        }
+        if (pageStripAdapter != null) {
+            pageStripAdapter.setPageShownListener(null);
+        }
+        recordFirstPage();
+        navigationEnabled = true;
+        btnGrid.setEnabled(true);
+        updatePageInfo();
+    }
+
+    /** Records the startup time once, at the first page on screen, stored or rendered. */
+    private void recordFirstPage() {
+        if (createdNanos != 0) {
+            RenderMetrics.getInstance().recordFirstPage(System.nanoTime() - createdNanos);
+            createdNanos = 0;
+        }
+    }
+
+    private void releaseCover() {
+        if (coverBitmap != null) {
+            renderCaches.bitmapPool.release(coverBitmap);
+            coverBitmap = null;
+        }
+    }
+
+    private void showPage(int index) {
+        if (renderEngine == null || renderEngine.getPageCount() <= index || index < 0) {
+            return;
         }
 
         currentPageIndex = index;
-        currentPage = pdfRenderer.openPage(index);
+        updatePageInfo();
+        if (searchBar.getVisibility() == View.VISIBLE) {
+            // Indexing follows the reader.
+            session.getSearch().start(index);
+        }
+        if (continuousMode) {
+            pageListLayout.scrollToPositionWithOffset(index, 0);
+            return;
+        }
+        renderClient.requestPage(index, reqWidth, reqHeight, pageCallback);
+    }
 
-        int sampleSize = calculateSampleSize(currentPage.getWidth(), currentPage.getHeight());
+    /**
+     * Shows pages as one zoomable vertical strip. The layout manager lays out half a screen beyond
+     * each edge so pages about to scroll in are already bound and rendering.
+     */
+    private void setUpPageList() {
+        imageView.setVisibility(View.GONE);
+        pageList.setVisibility(View.VISIBLE);
+        pageListLayout = new LinearLayoutManager(this) {
+            @Override
+            protected void calculateExtraLayoutSpace(RecyclerView.State state, int[] extraLayoutSpace) {
+                int margin = pageList.getHeight() / 2;
+                extraLayoutSpace[0] = margin;
+                extraLayoutSpace[1] = margin;
+            }
+        };
+        pageList.setLayoutManager(pageListLayout);
+        pageList.setHasFixedSize(true);
+        pageList.setItemViewCacheSize(1);
+        pageList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                int first = pageListLayout.findFirstVisibleItemPosition();
+                if (renderEngine != null && first != RecyclerView.NO_POSITION && first != currentPageIndex) {
+                    currentPageIndex = first;
+                    updatePageInfo();
+                }
+            }
+        });
+        pageList.setZoomListener(scale -> {
+            showZoomLevel(scale);
+            if (pageStripAdapter != null) {
+                pageStripAdapter.setZoom(TilePlanner.quantizeScale(scale));
+            }
+        });
+    }
 
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inSampleSize = sampleSize;
+    /**
+     * Keeps the page sharp at the current zoom: switch to the best cached pyramid level, render the
+     * next whole-page level while it is small enough, and fall back to tiles beyond that.
+     */
+    private void updateTiles(RectF visible, float displayedWidth) {
+        if (renderEngine == null || imageView.getDrawable() == null || displayedPageIndex != currentPageIndex) {
+            return;
+        }
+        int pageWidth = renderEngine.getPageWidth(currentPageIndex);
+        if (pageWidth == 0) {
+            return;
+        }
+        float requiredScale = displayedWidth / pageWidth;
+        float bitmapScale = (float) imageView.getDrawable().getIntrinsicWidth() / pageWidth;
+        if (requiredScale <= bitmapScale * TILE_ZOOM_THRESHOLD) {
+            renderClient.cancelTiles();
+            imageView.setTiles(null);
+            renderClient.setDisplayedTiles(null);
+            return;
+        }
+        if (renderEngine.deliverCachedLevel(currentPageIndex, bitmapScale, requiredScale, pageCallback)) {
+            bitmapScale = (float) imageView.getDrawable().getIntrinsicWidth() / pageWidth;
+            if (requiredScale <= bitmapScale * TILE_ZOOM_THRESHOLD) {
+                return;
+            }
+        }
+        float levelScale = TilePlanner.quantizeScale(requiredScale);
+        if (renderEngine.canRenderLevel(currentPageIndex, levelScale)) {
+            renderClient.requestLevel(currentPageIndex, levelScale, pageCallback);
+        } else {
+            renderClient.requestTiles(currentPageIndex, levelScale, visible, tileCallback);
+        }
+    }
 
-        try {
-            Bitmap bitmap = Bitmap.createBitmap(
-                    currentPage.getWidth() / sampleSize,
-                    currentPage.getHeight() / sampleSize,
-                    Bitmap.Config.ARGB_8888);
+    private void togglePageGrid() {
+        if (pageGrid.getVisibility() == View.VISIBLE) {
+            hidePageGrid();
+        } else {
+            showPageGrid();
+        }
+    }
 
-            currentPage.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
-            imageView.setImageBitmap(bitmap);
-            imageView.resetZoom();
-        } catch (IllegalArgumentException e) {
-            if (sampleSize == 1) {
-                sampleSize = 2;
-                Bitmap bitmap = Bitmap.createBitmap(
-                        currentPage.getWidth() / sampleSize,
-                        currentPage.getHeight() / sampleSize,
-                        Bitmap.Config.ARGB_8888);
-                currentPage.render(bitmap, null, null, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
-                imageView.setImageBitmap(bitmap);
-                imageView.resetZoom();
+    /**
+     * Shows every page as a thumbnail. Thumbnails are rendered at the width of a grid cell as the
+     * cells are bound, so the grid fills in progressively while it scrolls.
+     */
+    private void showPageGrid() {
+        if (renderEngine == null) {
+            return;
+        }
+        pageGrid.setVisibility(View.VISIBLE);
+        closeGridOnBack.setEnabled(true);
+        if (thumbnailGridAdapter != null) {
+            thumbnailGridAdapter.setCurrentPage(currentPageIndex);
+            pageGrid.scrollToPosition(currentPageIndex);
+            return;
+        }
+        int screenWidth = getResources().getDisplayMetrics().widthPixels;
+        int spanCount = Math.max(2, screenWidth / getResources().getDimensionPixelSize(R.dimen.thumbnail_width));
+        int thumbnailWidth = screenWidth / spanCount - 2 * getResources().getDimensionPixelSize(R.dimen.thumbnail_pad);
+        pageGrid.setLayoutManager(new GridLayoutManager(this, spanCount));
+        PdfRenderEngine.Client client = renderClient;
+        renderEngine.measurePages(() -> {
+            // Another document is shown, the activity closed, or an earlier tap built the grid.
+            if (client != renderClient || thumbnailGridAdapter != null) {
+                return;
+            }
+            thumbnailGridAdapter = new ThumbnailGridAdapter(client, renderCaches.bitmapPool, thumbnailWidth, index -> {
+                hidePageGrid();
+                showPage(index);
+            });
+            thumbnailGridAdapter.setCurrentPage(currentPageIndex);
+            pageGrid.setAdapter(thumbnailGridAdapter);
+            pageGrid.scrollToPosition(currentPageIndex);
+        });
+    }
+
+    private void hidePageGrid() {
+        pageGrid.setVisibility(View.GONE);
+        closeGridOnBack.setEnabled(false);
+    }
+
+    private void setUpSearch() {
+        findViewById(R.id.btnSearch).setOnClickListener(v -> {
+            if (searchBar.getVisibility() == View.VISIBLE) {
+                hideSearch();
+            } else {
+                showSearch();
+            }
+        });
+        findViewById(R.id.btnPreviousHit).setOnClickListener(v -> showHitPage(hitPage - 1));
+        findViewById(R.id.btnNextHit).setOnClickListener(v -> showHitPage(hitPage + 1));
+        searchInput.setOnEditorActionListener((v, actionId, event) -> {
+            if (actionId != EditorInfo.IME_ACTION_SEARCH) {
+                return false;
+            }
+            InputMethodManager input = (InputMethodManager) getSystemService(Context.INPUT_METHOD_SERVICE);
+            input.hideSoftInputFromWindow(searchInput.getWindowToken(), 0);
+            runSearch(true);
+            return true;
+        });
+        closeSearchOnBack = new OnBackPressedCallback(false) {
+            @Override
+            public void handleOnBackPressed() {
+                hideSearch();
             }
+        };
+        getOnBackPressedDispatcher().addCallback(this, closeSearchOnBack);
+    }
+
+    /** Opens the search bar and starts indexing from the current page in the background. */
+    private void showSearch() {
+        if (session == null) {
+            return;
         }
+        searchBar.setVisibility(View.VISIBLE);
+        closeSearchOnBack.setEnabled(true);
+        searchInput.requestFocus();
+        InputMethodManager input = (InputMethodManager) getSystemService(Context.INPUT_METHOD_SERVICE);
+        input.showSoftInput(searchInput, 0);
+        session.getSearch().start(currentPageIndex);
+    }
 
-        updatePageInfo();
+    private void hideSearch() {
+        searchBar.setVisibility(View.GONE);
+        closeSearchOnBack.setEnabled(false);
+        searchInput.removeCallbacks(refreshSearch);
+        searchResult = null;
+        hitPages.clear();
+        hitPage = -1;
+        imageView.setHighlights(null);
     }
 
-    private int calculateSampleSize(int width, int height) {
-        DisplayMetrics displayMetrics = new DisplayMetrics();
-        getWindowManager().getDefaultDisplay().getMetrics(displayMetrics);
-        int reqWidth = displayMetrics.widthPixels * 2;
-        int reqHeight = displayMetrics.heightPixels * 2;
+    /**
+     * Searches for the text in the search bar. A new search moves to the first page with a hit
+     * from the current one on; a refresh while indexing only updates the hits.
+     */
+    private void runSearch(boolean navigate) {
+        searchInput.removeCallbacks(refreshSearch);
+        String query = searchInput.getText().toString();
+        if (session == null || query.trim().isEmpty()) {
+            return;
+        }
+        DocumentSession searched = session;
+        searched.getSearch().search(query, currentPageIndex, MAX_SEARCH_HITS, SEARCH_BOUNDS_PAGES, result -> {
+            if (searched != session || !query.equals(searchInput.getText().toString())) {
+                return;
+            }
+            boolean hadHits = !hitPages.isEmpty();
+            searchResult = result;
+            hitPages.clear();
+            for (TextIndex.Hit hit : result.hits) {
+                if (hitPages.isEmpty() || hitPages.get(hitPages.size() - 1) != hit.page) {
+                    hitPages.add(hit.page);
+                }
+            }
+            hitPage = hitPages.indexOf(currentPageIndex);
+            if ((navigate || !hadHits) && !hitPages.isEmpty()) {
+                int next = 0;
+                while (next < hitPages.size() - 1 && hitPages.get(next) < currentPageIndex) {
+                    next++;
+                }
+                showHitPage(next);
+            } else {
+                showHighlights(displayedPageIndex);
+            }
+            updateSearchStatus();
+            if (result.supported && !result.isComplete()) {
+                searchInput.postDelayed(refreshSearch, SEARCH_REFRESH_MS);
+            }
+        });
+    }
 
-        int sampleSize = 1;
-        if (height > reqHeight || width > reqWidth) {
-            final int halfHeight = height / 2;
-            final int halfWidth = width / 2;
+    private void showHitPage(int index) {
+        if (index < 0 || index >= hitPages.size()) {
+            return;
+        }
+        hitPage = index;
+        int page = hitPages.get(index);
+        if (page == displayedPageIndex) {
+            showHighlights(page);
+        } else {
+            // The highlights follow once the page is shown.
+            showPage(page);
+        }
+        updateSearchStatus();
+    }
 
-            while ((halfHeight / sampleSize) >= reqHeight
-                    && (halfWidth / sampleSize) >= reqWidth) {
-                sampleSize *= 2;
+    /** Highlights the matches of the current search on {@code page}, which is on screen. */
+    private void showHighlights(int page) {
+        imageView.setHighlights(null);
+        if (searchResult == null || continuousMode || !hitPages.contains(page)) {
+            return;
+        }
+        DocumentSearch.Result shown = searchResult;
+        session.getSearch().findBounds(shown.query, page, (boundsPage, bounds) -> {
+            if (shown == searchResult && boundsPage == displayedPageIndex) {
+                imageView.setHighlights(bounds);
             }
+        });
+    }
+
+    private void updateSearchStatus() {
+        if (searchResult == null) {
+            searchStatus.setText("");
+        } else if (!searchResult.supported) {
+            searchStatus.setText("No text");
+        } else if (!searchResult.isComplete()) {
+            searchStatus.setText(String.format("%d hits, %d%%", searchResult.hits.size(),
+                    searchResult.indexedPages * 100 / Math.max(1, searchResult.pageCount)));
+        } else if (hitPage >= 0) {
+            searchStatus.setText(String.format("%d / %d", hitPage + 1, hitPages.size()));
+        } else {
+            searchStatus.setText(String.format("%d hits", searchResult.hits.size()));
         }
+    }
 
-        return sampleSize;
+    private void showZoomLevel(float zoom) {
+        int percent = (int) (zoom * 100);
+        zoomLevelText.setText(percent + "%");
+        zoomLevelText.setVisibility(View.VISIBLE);
+        zoomLevelText.postDelayed(() -> {
+            zoomLevelText.setVisibility(View.GONE);
+        }, 1500);
+    }
+
+    private void updateRequestedSize() {
+        reqWidth = memoryGovernor.getRequestWidth();
+        reqHeight = memoryGovernor.getRequestHeight();
     }
 
     private void updatePageInfo() {
-        pageInfo.setText(String.format("%d / %d", currentPageIndex + 1, pdfRenderer.getPageCount()));
-        btnPrevious.setEnabled(currentPageIndex > 0);
-        btnNext.setEnabled(currentPageIndex + 1 < pdfRenderer.getPageCount());
+        pageInfo.setText(String.format("%d / %d", currentPageIndex + 1, renderEngine.getPageCount()));
+        btnPrevious.setEnabled(navigationEnabled && currentPageIndex > 0);
+        btnNext.setEnabled(navigationEnabled && currentPageIndex + 1 < renderEngine.getPageCount());
     }
 
     private void closeRenderer() {
-        if (currentPage != null) {
-            currentPage.close();
-            currentPage = null;
+        hideSearch();
+        if (thumbnailGridAdapter != null) {
+            pageGrid.setAdapter(null);
+            thumbnailGridAdapter = null;
         }
-        if (pdfRenderer != null) {
-            pdfRenderer.close();
-            pdfRenderer = null;
+        if (pageStripAdapter != null) {
+            pageList.setAdapter(null);
+            pageStripAdapter = null;
         }
-        if (parcelFileDescriptor != null) {
-            try {
-                parcelFileDescriptor.close();
-            } catch (IOException e) {
-                // ignored
-            }
-            parcelFileDescriptor = null;
+        speculativePageIndex = -1;
+        setIncomingPage(null, false);
+        if (renderEngine != null) {
+            // The renderer may serve others, so only drop this screen's work and bitmaps.
+            renderClient.close();
+            renderClient = null;
+            renderEngine = null;
+            session = null;
         }
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        frameMonitor.start();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        frameMonitor.stop();
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        frameMonitor.onTouchEvent(event);
+        return super.dispatchTouchEvent(event);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        viewModel.setPageIndex(currentPageIndex);
+        imageView.saveZoomState(viewModel.zoomState);
+        imageView.setTiles(null);
+        imageView.setImageDrawable(null);
+        releaseCover();
         closeRenderer();
+        registry.removeResolutionListener(resolutionListener);
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.ahmed.pdfx.pdfreadx;
+
+import android.graphics.Bitmap;
+
+import androidx.lifecycle.ViewModel;
+
+import com.ahmed.pdfx.pdfreadx.cache.BitmapPool;
+import com.ahmed.pdfx.pdfreadx.session.DocumentRegistry;
+import com.ahmed.pdfx.pdfreadx.session.DocumentSession;
+
+/**
+ * What {@link PDFViewActivity} keeps across configuration changes: its reference to the open
+ * document, the page it shows with the bitmap on screen, and the zoom. A recreated viewer re-fits
+ * that bitmap right away and only re-renders at its new size in the background. Everything is
+ * given back once the viewer finishes for good. Must be used on the main thread.
+ */
+public class PDFViewModel extends ViewModel {
+    /** Zoom relative to the fitted page, then the page point in the view's centre as fractions. */
+    final float[] zoomState = {1f, 0.5f, 0.5f};
+
+    private DocumentRegistry registry;
+    private DocumentSession session;
+    private int pageIndex;
+    private BitmapPool bitmapPool;
+    private Bitmap pageBitmap;
+    private int bitmapPageIndex = -1;
+
+    public PDFViewModel() {
+    }
+
+    DocumentSession getSession() {
+        return session;
+    }
+
+    /** Takes over the caller's reference to {@code newSession}, giving back the previous one. */
+    void setSession(DocumentRegistry registry, DocumentSession newSession) {
+        if (newSession == session) {
+            return;
+        }
+        setPageBitmap(-1, null, null);
+        if (session != null) {
+            this.registry.release(session);
+        }
+        this.registry = registry;
+        session = newSession;
+    }
+
+    int getPageIndex() {
+        return pageIndex;
+    }
+
+    void setPageIndex(int pageIndex) {
+        this.pageIndex = pageIndex;
+    }
+
+    /** The bitmap of {@code index} on screen, or null if the viewer does not show that page. */
+    Bitmap getPageBitmap(int index) {
+        return index == bitmapPageIndex ? pageBitmap : null;
+    }
+
+    /** Keeps the bitmap of page {@code index} on screen intact until another one replaces it. */
+    void setPageBitmap(int index, Bitmap bitmap, BitmapPool pool) {
+        if (bitmap != null) {
+            pool.retain(bitmap);
+        }
+        if (pageBitmap != null) {
+            bitmapPool.release(pageBitmap);
+        }
+        pageBitmap = bitmap;
+        bitmapPool = pool;
+        bitmapPageIndex = index;
+    }
+
+    @Override
+    protected void onCleared() {
+        setSession(null, null);
+    }
+}
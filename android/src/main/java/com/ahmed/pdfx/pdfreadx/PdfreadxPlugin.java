@@ -3,75 +3,589 @@ package com.ahmed.pdfx.pdfreadx;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
 
+import com.ahmed.pdfx.pdfreadx.channel.BinaryRenderChannel;
+import com.ahmed.pdfx.pdfreadx.channel.ExportStreamHandler;
+import com.ahmed.pdfx.pdfreadx.channel.MetricsStreamHandler;
+import com.ahmed.pdfx.pdfreadx.export.DocumentExport;
+import com.ahmed.pdfx.pdfreadx.metrics.RenderMetrics;
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+import com.ahmed.pdfx.pdfreadx.search.DocumentSearch;
+import com.ahmed.pdfx.pdfreadx.search.TextIndex;
+import com.ahmed.pdfx.pdfreadx.session.DocumentRegistry;
+import com.ahmed.pdfx.pdfreadx.session.DocumentSession;
+import com.ahmed.pdfx.pdfreadx.texture.PageTexture;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import io.flutter.Log;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
+import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 import io.flutter.plugin.common.MethodChannel.Result;
+import io.flutter.plugin.common.StandardMethodCodec;
+import io.flutter.view.TextureRegistry;
 
 /** PdfreadxPlugin */
 public class PdfreadxPlugin implements FlutterPlugin, MethodCallHandler, ActivityAware {
+  private static final int DEFAULT_THUMBNAIL_WIDTH = 200;
+  private static final int DEFAULT_MAX_SEARCH_HITS = 1000;
+  private static final int DEFAULT_SEARCH_BOUNDS_PAGES = 10;
+  private static final int SEARCH_SNIPPET_CONTEXT = 40;
+  private static final float DEFAULT_EXPORT_DPI = 150;
+  private static final int DEFAULT_EXPORT_QUALITY = 90;
+
   /// The MethodChannel that will the communication between Flutter and native Android
   ///
   /// This local reference serves to register the plugin with the Flutter Engine and unregister it
-  /// when the Flutter Engine is detached from the Activity
+  /// when the Flutter Engine is detached from the Activity. Calls arrive on a serial background
+  /// task queue, in the order Dart made them, so a slow call never holds up the platform thread.
   private MethodChannel channel;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private BinaryRenderChannel renderChannel;
+  private MetricsStreamHandler metricsStream;
+  private ExportStreamHandler exportEvents;
   private Context applicationContext;
   private Activity currentActivity;
+  // Viewers to start once the activity recreated for a configuration change is attached again.
+  private final List<Intent> pendingViewerIntents = new ArrayList<>();
+  private boolean reattaching;
+  private TextureRegistry textureRegistry;
+  // Shares open documents, and one memory budget, with the viewer activities.
+  private DocumentRegistry registry;
+  // Sessions Flutter opened, with how many references it holds to each, by document id. Changed on
+  // the main thread only; the task queues read documents too.
+  private final Map<Integer, DocumentSession> documents = new ConcurrentHashMap<>();
+  private final Map<Integer, Integer> documentReferences = new HashMap<>();
+  private final Map<Long, PageTexture> textures = new HashMap<>();
+  // Running exports by id; each holds a reference to its document until it finishes.
+  private final Map<Integer, DocumentExport> exports = new HashMap<>();
+  private int nextExportId = 1;
 
   @Override
   public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
-    channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), "pdfreadx");
+    BinaryMessenger messenger = flutterPluginBinding.getBinaryMessenger();
+    // Method calls stay serial, so they reach the main thread in the order Dart made them; only
+    // binary renders, which do not depend on each other, run concurrently.
+    BinaryMessenger.TaskQueue callQueue =
+        messenger.makeBackgroundTaskQueue(new BinaryMessenger.TaskQueueOptions().setIsSerial(true));
+    BinaryMessenger.TaskQueue renderQueue =
+        messenger.makeBackgroundTaskQueue(new BinaryMessenger.TaskQueueOptions().setIsSerial(false));
+    channel = new MethodChannel(messenger, "pdfreadx", StandardMethodCodec.INSTANCE, callQueue);
+    applicationContext = flutterPluginBinding.getApplicationContext();
+    textureRegistry = flutterPluginBinding.getTextureRegistry();
+    registry = DocumentRegistry.getInstance(applicationContext);
+    renderChannel = new BinaryRenderChannel(messenger, renderQueue, documentId -> {
+      DocumentSession session = documents.get(documentId);
+      return session != null ? session.getEngine() : null;
+    });
+    metricsStream = new MetricsStreamHandler(messenger, registry.getMemoryGovernor());
+    exportEvents = new ExportStreamHandler(messenger);
+    // Last, so calls arriving on the task queue find everything in place.
     channel.setMethodCallHandler(this);
   }
 
+  /// Runs on the background task queue, which parses and checks the arguments and opens
+  /// documents. Only what touches the plugin's own maps, the activity or a document's search, all
+  /// of which live on the main thread, moves there through [onMain].
   @Override
   public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
     if (call.method.equals("getPlatformVersion")) {
       result.success("Android " + android.os.Build.VERSION.RELEASE);
+    }else if (call.method.equals("getMetrics")) {
+      // Timings, frame and cache counters of every document and viewer in the process.
+      result.success(RenderMetrics.getInstance().snapshot(registry.getMemoryGovernor()));
     }else if (call.method.equals("startPDFViewActivity")) {
-      if (currentActivity == null) {
-        result.error("NO_ACTIVITY", "Plugin not attached to an activity.", null);
+      startPDFViewActivity(call, result);
+    }else if (call.method.equals("getThumbnails")) {
+      getThumbnails(call, result);
+    }else if (call.method.equals("openDocument")) {
+      openDocument(call, result);
+    }else if (call.method.equals("renderTexture")) {
+      renderTexture(call, result);
+    }else if (call.method.equals("disposeTexture")) {
+      disposeTexture(call, result);
+    }else if (call.method.equals("closeDocument")) {
+      closeDocument(call, result);
+    }else if (call.method.equals("getPageSizes")) {
+      getPageSizes(call, result);
+    }else if (call.method.equals("exportPages")) {
+      exportPages(call, result);
+    }else if (call.method.equals("cancelExport")) {
+      Integer exportId = call.argument("exportId");
+      onMain(result, () -> {
+        DocumentExport export = exportId != null ? exports.get(exportId) : null;
+        if (export != null) {
+          export.cancel();
+        }
+        result.success(null);
+      });
+    }else if (call.method.equals("search")) {
+      search(call, result);
+    }else {
+      result.notImplemented();
+    }
+  }
+
+  /// Runs `task` on the main thread, or fails `result` if the plugin is detached by then.
+  private void onMain(Result result, Runnable task) {
+    mainHandler.post(() -> {
+      if (channel == null) {
+        result.error("DETACHED", "Plugin detached from the engine.", null);
         return;
       }
-      try {
-        Intent intent = new Intent(currentActivity, PDFViewActivity.class);
-
-        // Optional: Pass arguments from Flutter to the native Activity
-        if (call.hasArgument("data")) {
-          //Log.d("PdfreadxPlugin", "Received data from Flutter: " + call.argument("data"));
-          Map<String, Object> args = call.argument("data");
-          //Log.d("PdfreadxPlugin", "Received data from Flutter: " + args.get("message"));
-          String message = (String) Objects.requireNonNull(args).get("message");
-          String filePath = (String) Objects.requireNonNull(args).get("filePath");
-          String fileName = (String) Objects.requireNonNull(args).get("fileName");
-          intent.putExtra("message_from_flutter", message);
-          intent.putExtra("filePath", filePath);
-          intent.putExtra("fileName", fileName);
+      task.run();
+    });
+  }
+
+  private void startPDFViewActivity(@NonNull MethodCall call, @NonNull Result result) {
+    try {
+      Intent intent = new Intent(applicationContext, PDFViewActivity.class);
+      Map<String, Object> documentArgs = null;
+
+      // Optional: Pass arguments from Flutter to the native Activity
+      if (call.hasArgument("data")) {
+        //Log.d("PdfreadxPlugin", "Received data from Flutter: " + call.argument("data"));
+        Map<String, Object> args = call.argument("data");
+        //Log.d("PdfreadxPlugin", "Received data from Flutter: " + args.get("message"));
+        String message = (String) Objects.requireNonNull(args).get("message");
+        String filePath = (String) Objects.requireNonNull(args).get("filePath");
+        String fileName = (String) Objects.requireNonNull(args).get("fileName");
+        intent.putExtra("message_from_flutter", message);
+        intent.putExtra("filePath", filePath);
+        intent.putExtra("fileName", fileName);
+        // "continuous" shows all pages in one vertical strip; anything else shows one page at a time.
+        intent.putExtra("scrollMode", (String) args.get("scrollMode"));
+        // A document opened with openDocument is shown through its session instead of reopened.
+        Integer documentId = (Integer) args.get("documentId");
+        if (documentId != null) {
+          intent.putExtra("documentId", documentId.intValue());
+        } else if (args.get("bytes") != null) {
+          documentArgs = args;
+        } else if (args.get("uri") != null) {
+          intent.putExtra("uri", (String) args.get("uri"));
         }
-        currentActivity.startActivity(intent);
-        result.success("Native Activity Started from Java"); // Or null
-      } catch (Exception e) {
-        result.error("START_ACTIVITY_FAILED", "Failed to start native activity: " + e.getMessage(), null);
       }
-    }else {
-      result.notImplemented();
+      if (documentArgs == null) {
+        onMain(result, () -> startViewer(intent, result));
+        return;
+      }
+      // Too large for an intent, so the bytes go through a session the activity acquires
+      // before the registry's idle timeout closes it.
+      openSession(documentArgs, result, session -> {
+        intent.putExtra("documentId", session.getHandle());
+        registry.release(session);
+        startViewer(intent, result);
+      });
+    } catch (Exception e) {
+      result.error("START_ACTIVITY_FAILED", "Failed to start native activity: " + e.getMessage(), null);
+    }
+  }
+
+  private void startViewer(Intent intent, Result result) {
+    if (currentActivity != null) {
+      currentActivity.startActivity(intent);
+    } else if (reattaching) {
+      pendingViewerIntents.add(intent);
+    } else {
+      result.error("NO_ACTIVITY", "Plugin not attached to an activity.", null);
+      return;
+    }
+    result.success("Native Activity Started from Java"); // Or null
+  }
+
+  /// Opens the document `args` name on the calling task queue and passes it to `onOpened` on the
+  /// main thread with one reference for the caller, or fails `result`. The document is a file by
+  /// `filePath` and `fileName`, a `content://` or `file://` `uri`, or `bytes` with an optional `name`.
+  private void openSession(Map<String, Object> args, Result result, Consumer<DocumentSession> onOpened) {
+    DocumentRegistry.OpenCallback callback = new DocumentRegistry.OpenCallback() {
+      @Override
+      public void onCover(Bitmap cover) {
+        registry.getMemoryGovernor().getCaches().bitmapPool.release(cover);
+      }
+
+      @Override
+      public void onOpened(DocumentSession session) {
+        if (channel == null) {
+          // Detached meanwhile; nobody is left to reply to.
+          registry.release(session);
+          return;
+        }
+        onOpened.accept(session);
+      }
+
+      @Override
+      public void onOpenFailed(Exception e) {
+        result.error("OPEN_FAILED", "Failed to open PDF: " + e.getMessage(), null);
+      }
+    };
+    if (args.get("uri") != null) {
+      registry.openAsync(Uri.parse((String) args.get("uri")), callback);
+    } else if (args.get("bytes") != null) {
+      String name = (String) args.get("name");
+      registry.openAsync((byte[]) args.get("bytes"), name != null ? name : "document.pdf", callback);
+    } else {
+      registry.openAsync(new File((String) args.get("filePath"), (String) args.get("fileName")), callback);
+    }
+  }
+
+  private static boolean namesDocument(Map<String, Object> args) {
+    return args != null && (args.get("uri") != null || args.get("bytes") != null
+        || (args.get("filePath") != null && args.get("fileName") != null));
+  }
+
+  /// Renders PNG thumbnails of a document's pages in the background, keyed by page index.
+  /// Takes the document as [openSession] does, and optionally `width` in pixels and the `pages`
+  /// to render, so callers can fetch the pages they are about to show first.
+  private void getThumbnails(@NonNull MethodCall call, @NonNull Result result) {
+    Map<String, Object> args = call.argument("data");
+    if (!namesDocument(args)) {
+      result.error("INVALID_ARGUMENTS", "filePath and fileName, uri or bytes are required.", null);
+      return;
+    }
+    Integer width = (Integer) args.get("width");
+    @SuppressWarnings("unchecked")
+    List<Integer> pages = (List<Integer>) args.get("pages");
+    int[] pageIndices = pages != null ? new int[pages.size()] : null;
+    for (int i = 0; pageIndices != null && i < pageIndices.length; i++) {
+      pageIndices[i] = pages.get(i);
+    }
+
+    openSession(args, result, session -> encodeThumbnails(session, width, pageIndices, result));
+  }
+
+  /// Encodes `pages` of the document, or all of them if null.
+  private void encodeThumbnails(DocumentSession session, Integer width, int[] pages, Result result) {
+    PdfRenderEngine engine = session.getEngine();
+    int[] pageIndices = pages;
+    if (pageIndices == null) {
+      pageIndices = new int[engine.getPageCount()];
+      for (int i = 0; i < pageIndices.length; i++) {
+        pageIndices[i] = i;
+      }
+    }
+    engine.encodeThumbnails(pageIndices, width != null ? width : DEFAULT_THUMBNAIL_WIDTH, thumbnails -> {
+      registry.release(session);
+      result.success(thumbnails);
+    });
+  }
+
+  /// Opens a document for texture rendering and returns its `documentId` and `pageCount`.
+  /// Opening a file or URI that is already open returns the same id; each open needs its own
+  /// close. Every open of `bytes` is a document of its own.
+  private void openDocument(@NonNull MethodCall call, @NonNull Result result) {
+    Map<String, Object> args = call.arguments();
+    if (!namesDocument(args)) {
+      result.error("INVALID_ARGUMENTS", "filePath and fileName, uri or bytes are required.", null);
+      return;
+    }
+    openSession(args, result, session -> {
+      int documentId = session.getHandle();
+      documents.put(documentId, session);
+      documentReferences.merge(documentId, 1, Integer::sum);
+      Map<String, Object> info = new HashMap<>();
+      info.put("documentId", documentId);
+      info.put("pageCount", session.getPageCount());
+      result.success(info);
+    });
+  }
+
+  /// Renders a page, or the `viewport` part of it given as normalized [left, top, right, bottom],
+  /// to fit `width` x `height` into a texture. Creates the texture unless `textureId` names one.
+  private void renderTexture(@NonNull MethodCall call, @NonNull Result result) {
+    Integer documentId = call.argument("documentId");
+    Integer pageIndex = call.argument("pageIndex");
+    Integer width = call.argument("width");
+    Integer height = call.argument("height");
+    Number textureId = call.argument("textureId");
+    List<Number> viewport = call.argument("viewport");
+    if (pageIndex == null || width == null || height == null) {
+      result.error("INVALID_ARGUMENTS", "pageIndex, width and height are required.", null);
+      return;
+    }
+    RectF region;
+    if (viewport == null) {
+      region = null;
+    } else if (viewport.size() != 4) {
+      result.error("INVALID_ARGUMENTS", "viewport must be [left, top, right, bottom].", null);
+      return;
+    } else {
+      region = new RectF(viewport.get(0).floatValue(), viewport.get(1).floatValue(),
+          viewport.get(2).floatValue(), viewport.get(3).floatValue());
+    }
+    onMain(result, () -> renderTexture(documentId, pageIndex, region, width, height, textureId, result));
+  }
+
+  private void renderTexture(Integer documentId, int pageIndex, RectF region, int width, int height,
+      Number textureId, Result result) {
+    DocumentSession session = documentId != null ? documents.get(documentId) : null;
+    if (session == null) {
+      result.error("NO_DOCUMENT", "Document " + documentId + " is not open.", null);
+      return;
+    }
+    PageTexture texture;
+    if (textureId != null) {
+      texture = textures.get(textureId.longValue());
+      if (texture == null || texture.getDocumentId() != documentId) {
+        result.error("NO_TEXTURE", "Texture " + textureId + " does not belong to document " + documentId + ".", null);
+        return;
+      }
+    } else {
+      texture = new PageTexture(textureRegistry, documentId);
+      textures.put(texture.id(), texture);
+      result = releasingOnError(texture, result);
+    }
+    texture.render(session.getEngine(), pageIndex, region, width, height, result);
+  }
+
+  /// Wraps the result of a texture's first render so the texture is released if that render
+  /// fails, since Dart never learns its id and cannot dispose it.
+  private Result releasingOnError(PageTexture texture, Result result) {
+    return new Result() {
+      @Override
+      public void success(Object value) {
+        result.success(value);
+      }
+
+      @Override
+      public void error(@NonNull String code, String message, Object details) {
+        if (textures.remove(texture.id()) != null) {
+          texture.release();
+        }
+        result.error(code, message, details);
+      }
+
+      @Override
+      public void notImplemented() {
+        result.notImplemented();
+      }
+    };
+  }
+
+  /// Starts writing pages `firstPage` to `lastPage` of a document to `outputDirectory` as `png` or
+  /// `webp` images at `dpi`, and replies with the export's id. Progress and the outcome arrive on
+  /// the export event channel under that id.
+  private void exportPages(@NonNull MethodCall call, @NonNull Result result) {
+    Integer documentId = call.argument("documentId");
+    String outputDirectory = call.argument("outputDirectory");
+    Integer firstPage = call.argument("firstPage");
+    Integer lastPage = call.argument("lastPage");
+    Number dpi = call.argument("dpi");
+    String format = call.argument("format");
+    Integer quality = call.argument("quality");
+    if (outputDirectory == null) {
+      result.error("INVALID_ARGUMENTS", "outputDirectory is required.", null);
+      return;
+    }
+    DocumentExport.Format exportFormat;
+    try {
+      exportFormat = DocumentExport.Format.valueOf((format != null ? format : "png").toUpperCase(Locale.US));
+    } catch (IllegalArgumentException e) {
+      result.error("INVALID_ARGUMENTS", "Unknown format " + format + ".", null);
+      return;
+    }
+    onMain(result, () -> startExport(documentId, firstPage, lastPage, dpi, exportFormat, quality,
+        new File(outputDirectory), result));
+  }
+
+  private void startExport(Integer documentId, Integer firstPage, Integer lastPage, Number dpi,
+      DocumentExport.Format format, Integer quality, File outputDirectory, Result result) {
+    DocumentSession session = documentId != null ? documents.get(documentId) : null;
+    if (session == null) {
+      result.error("NO_DOCUMENT", "Document " + documentId + " is not open.", null);
+      return;
+    }
+    int exportId = nextExportId++;
+    DocumentExport export;
+    try {
+      export = new DocumentExport(session.getEngine(), registry.getMemoryGovernor(),
+          firstPage != null ? firstPage : 0,
+          lastPage != null ? lastPage : session.getPageCount() - 1,
+          dpi != null ? dpi.floatValue() : DEFAULT_EXPORT_DPI,
+          format,
+          quality != null ? quality : DEFAULT_EXPORT_QUALITY,
+          outputDirectory,
+          exportEvents.listenerFor(exportId, () -> {
+            exports.remove(exportId);
+            registry.release(session);
+          }));
+    } catch (IllegalArgumentException e) {
+      result.error("INVALID_ARGUMENTS", e.getMessage(), null);
+      return;
+    }
+    // The export keeps the document open even if Flutter closes it meanwhile.
+    registry.acquire(session.getHandle());
+    exports.put(exportId, export);
+    result.success(exportId);
+    export.start();
+  }
+
+  /// Searches the text of an open document for `query`, starting the background indexer on the
+  /// first call. Answers from the pages indexed so far with up to `maxHits` hits, each with its
+  /// `page`, position and a `snippet` around it, and the normalized [left, top, right, bottom]
+  /// `bounds` of the matches on the first `boundsPages` pages with hits. `page` is where the
+  /// reader is, which indexing continues from.
+  private void search(@NonNull MethodCall call, @NonNull Result result) {
+    Integer documentId = call.argument("documentId");
+    String query = call.argument("query");
+    Integer page = call.argument("page");
+    Integer maxHits = call.argument("maxHits");
+    Integer boundsPages = call.argument("boundsPages");
+    if (query == null) {
+      result.error("INVALID_ARGUMENTS", "query is required.", null);
+      return;
+    }
+    onMain(result, () -> {
+      DocumentSession session = documentId != null ? documents.get(documentId) : null;
+      if (session == null) {
+        result.error("NO_DOCUMENT", "Document " + documentId + " is not open.", null);
+        return;
+      }
+      session.getSearch().search(query, page != null ? page : 0,
+          maxHits != null ? maxHits : DEFAULT_MAX_SEARCH_HITS,
+          boundsPages != null ? boundsPages : DEFAULT_SEARCH_BOUNDS_PAGES,
+          found -> result.success(searchResult(found)));
+    });
+  }
+
+  private static Map<String, Object> searchResult(DocumentSearch.Result found) {
+    List<Map<String, Object>> hits = new ArrayList<>(found.hits.size());
+    for (TextIndex.Hit hit : found.hits) {
+      Map<String, Object> entry = new HashMap<>();
+      entry.put("page", hit.page);
+      entry.put("start", hit.start);
+      entry.put("length", hit.length);
+      entry.put("snippet", found.snippet(hit, SEARCH_SNIPPET_CONTEXT));
+      hits.add(entry);
+    }
+    Map<Integer, double[]> bounds = new HashMap<>();
+    for (Map.Entry<Integer, float[]> page : found.bounds.entrySet()) {
+      double[] rects = new double[page.getValue().length];
+      for (int i = 0; i < rects.length; i++) {
+        rects[i] = page.getValue()[i];
+      }
+      bounds.put(page.getKey(), rects);
+    }
+    Map<String, Object> info = new HashMap<>();
+    info.put("query", found.query);
+    info.put("pageCount", found.pageCount);
+    info.put("indexedPages", found.indexedPages);
+    info.put("supported", found.supported);
+    info.put("hits", hits);
+    info.put("bounds", bounds);
+    return info;
+  }
+
+  /// Replies with the width and height of every page in PDF points, interleaved. A document opened
+  /// before answers from its stored layout without opening any page.
+  private void getPageSizes(@NonNull MethodCall call, @NonNull Result result) {
+    Integer documentId = call.argument("documentId");
+    DocumentSession session = documentId != null ? documents.get(documentId) : null;
+    if (session == null) {
+      result.error("NO_DOCUMENT", "Document " + documentId + " is not open.", null);
+      return;
+    }
+    PdfRenderEngine engine = session.getEngine();
+    engine.measurePages(() -> {
+      int[] sizes = new int[engine.getPageCount() * 2];
+      for (int i = 0; i < engine.getPageCount(); i++) {
+        sizes[i * 2] = engine.getPageWidth(i);
+        sizes[i * 2 + 1] = engine.getPageHeight(i);
+      }
+      result.success(sizes);
+    }, () -> result.error("NO_DOCUMENT", "Document " + documentId + " was closed.", null));
+  }
+
+  private void disposeTexture(@NonNull MethodCall call, @NonNull Result result) {
+    Number textureId = call.argument("textureId");
+    if (textureId == null) {
+      result.success(null);
+      return;
+    }
+    onMain(result, () -> {
+      PageTexture texture = textures.remove(textureId.longValue());
+      if (texture != null) {
+        texture.release();
+      }
+      result.success(null);
+    });
+  }
+
+  /// Gives back one open of a document. The last one disposes the textures it renders into; the
+  /// renderer itself closes once no viewer uses it either.
+  private void closeDocument(@NonNull MethodCall call, @NonNull Result result) {
+    Integer documentId = call.argument("documentId");
+    if (documentId == null) {
+      result.success(null);
+      return;
+    }
+    onMain(result, () -> {
+      DocumentSession session = documents.get(documentId);
+      if (session != null) {
+        int references = documentReferences.get(documentId) - 1;
+        if (references == 0) {
+          documents.remove(documentId);
+          documentReferences.remove(documentId);
+          disposeTextures(documentId);
+        } else {
+          documentReferences.put(documentId, references);
+        }
+        registry.release(session);
+      }
+      result.success(null);
+    });
+  }
+
+  private void disposeTextures(int documentId) {
+    for (PageTexture texture : new ArrayList<>(textures.values())) {
+      if (texture.getDocumentId() == documentId) {
+        textures.remove(texture.id());
+        texture.release();
+      }
     }
   }
 
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
     channel.setMethodCallHandler(null);
+    channel = null;
+    renderChannel.dispose();
+    metricsStream.dispose();
+    for (DocumentExport export : new ArrayList<>(exports.values())) {
+      export.cancel();
+    }
+    exportEvents.dispose();
+    for (PageTexture texture : textures.values()) {
+      texture.release();
+    }
+    textures.clear();
+    for (Map.Entry<Integer, DocumentSession> document : documents.entrySet()) {
+      for (int i = documentReferences.get(document.getKey()); i > 0; i--) {
+        registry.release(document.getValue());
+      }
+    }
+    documents.clear();
+    documentReferences.clear();
   }
 
   // ActivityAware methods
@@ -82,16 +596,25 @@ public class PdfreadxPlugin implements FlutterPlugin, MethodCallHandler, Activit
 
   @Override
   public void onDetachedFromActivityForConfigChanges() {
+    // A viewer requested during the rotation starts from the recreated activity.
     currentActivity = null;
+    reattaching = true;
   }
 
   @Override
   public void onReattachedToActivityForConfigChanges(@NonNull ActivityPluginBinding binding) {
     currentActivity = binding.getActivity();
+    reattaching = false;
+    for (Intent intent : pendingViewerIntents) {
+      currentActivity.startActivity(intent);
+    }
+    pendingViewerIntents.clear();
   }
 
   @Override
   public void onDetachedFromActivity() {
     currentActivity = null;
+    reattaching = false;
+    pendingViewerIntents.clear();
   }
 }
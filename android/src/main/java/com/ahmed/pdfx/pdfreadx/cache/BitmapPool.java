@@ -0,0 +1,150 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Size-bucketed pool of mutable bitmaps that lets the renderer reuse page-sized allocations.
+ *
+ * Ownership is reference counted. {@link #acquire} hands out a bitmap holding one reference for
+ * the caller. Every other holder, such as the page cache or the view showing the bitmap, takes its
+ * own reference with {@link #retain}. Each holder calls {@link #release} when it lets go, and the
+ * last release returns the bitmap to its bucket. Pooled bitmaps beyond the byte budget are
+ * recycled, oldest first.
+ */
+public class BitmapPool {
+    private final Map<Long, ArrayDeque<Bitmap>> buckets = new HashMap<>();
+    private final ArrayDeque<Bitmap> freeOrder = new ArrayDeque<>();
+    private final IdentityHashMap<Bitmap, Integer> references = new IdentityHashMap<>();
+    private long maxSize;
+    private long size;
+    /** Bytes of the bitmaps someone holds a reference to, pooled or not. */
+    private long liveSize;
+    private long hitCount;
+    private long missCount;
+
+    public BitmapPool(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /** Returns a bitmap of exactly this size and config with one reference held by the caller. */
+    public Bitmap acquire(int width, int height, Bitmap.Config config) {
+        synchronized (this) {
+            ArrayDeque<Bitmap> bucket = buckets.get(bucketKey(width, height, config));
+            Bitmap pooled = bucket != null ? bucket.pollLast() : null;
+            if (pooled != null) {
+                freeOrder.remove(pooled);
+                size -= pooled.getAllocationByteCount();
+                liveSize += pooled.getAllocationByteCount();
+                references.put(pooled, 1);
+                hitCount++;
+                return pooled;
+            }
+            missCount++;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+        synchronized (this) {
+            references.put(bitmap, 1);
+            liveSize += bitmap.getAllocationByteCount();
+        }
+        return bitmap;
+    }
+
+    public synchronized void retain(Bitmap bitmap) {
+        Integer count = references.get(bitmap);
+        references.put(bitmap, count == null ? 1 : count + 1);
+        if (count == null) {
+            liveSize += bitmap.getAllocationByteCount();
+        }
+    }
+
+    /** Drops one reference; the last one returns the bitmap to the pool. */
+    public synchronized void release(Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        Integer count = references.get(bitmap);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            references.put(bitmap, count - 1);
+            return;
+        }
+        references.remove(bitmap);
+        liveSize -= bitmap.getAllocationByteCount();
+        if (bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        long key = bucketKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+        ArrayDeque<Bitmap> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(key, bucket);
+        }
+        bucket.addLast(bitmap);
+        freeOrder.addLast(bitmap);
+        size += bitmap.getAllocationByteCount();
+        trimToSize(maxSize);
+    }
+
+    /** Recycles pooled bitmaps, oldest first, until the idle bitmaps fit in {@code targetSize}. */
+    public synchronized void trimToSize(long targetSize) {
+        while (size > targetSize && !freeOrder.isEmpty()) {
+            Bitmap eldest = freeOrder.pollFirst();
+            ArrayDeque<Bitmap> bucket = buckets.get(bucketKey(eldest.getWidth(), eldest.getHeight(), eldest.getConfig()));
+            if (bucket != null) {
+                bucket.remove(eldest);
+            }
+            size -= eldest.getAllocationByteCount();
+            eldest.recycle();
+        }
+        Iterator<ArrayDeque<Bitmap>> iterator = buckets.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void resize(long maxSize) {
+        this.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    /** Returns the bytes of all bitmaps still referenced, which the pool cannot reclaim. */
+    public synchronized long liveSize() {
+        return liveSize;
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    private static long bucketKey(int width, int height, Bitmap.Config config) {
+        int configOrdinal = config != null ? config.ordinal() : 0;
+        return ((long) width << 36) | ((long) height << 8) | configOrdinal;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("BitmapPool[size=%d,maxSize=%d,hits=%d,misses=%d]", size, maxSize, hitCount, missCount);
+    }
+}
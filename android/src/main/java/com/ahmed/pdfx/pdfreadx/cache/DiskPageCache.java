@@ -0,0 +1,232 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Keeps renderings in the app's cache directory so a document that is opened again shows its
+ * pages without rendering them.
+ *
+ * Each entry is one file: a small header followed by the bitmap's raw pixels. Files are written
+ * and read through memory maps, so a hit is a single copy from the page cache into a pooled
+ * bitmap. Entries are named after a {@link DocumentFingerprint}, the page and the scale; the
+ * total size is bounded and the least recently used files are deleted first. Recency survives
+ * restarts through each file's modification time.
+ *
+ * Methods do file I/O and must not be called on the main thread.
+ */
+public class DiskPageCache {
+    private static final String TAG = "DiskPageCache";
+    private static final String DIRECTORY_NAME = "pdfreadx-pages";
+    private static final String ENTRY_SUFFIX = ".px";
+    private static final int MAGIC = 0x50445850;
+    private static final int HEADER_BYTES = 12;
+    public static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+
+    private static DiskPageCache instance;
+
+    private final File directory;
+    /** File lengths by entry name, in access order; evicting an entry deletes its file. */
+    private final LruMemoryCache<String, Integer> index;
+    private boolean loaded = false;
+
+    /** Returns the cache shared by every engine in the process. */
+    public static synchronized DiskPageCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new DiskPageCache(new File(context.getCacheDir(), DIRECTORY_NAME), DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    public DiskPageCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.index = new LruMemoryCache<>(maxBytes, length -> length);
+        index.setEvictionListener((name, length) -> delete(new File(directory, name)));
+    }
+
+    /** Names the entry of a page level of the document with this fingerprint. */
+    public static String pageEntry(String fingerprint, int pageIndex, float scale) {
+        return fingerprint + "-p" + pageIndex + "-" + Integer.toHexString(Float.floatToIntBits(scale)) + ENTRY_SUFFIX;
+    }
+
+    /** Names the entry of a thumbnail {@code width} pixels wide. */
+    public static String thumbnailEntry(String fingerprint, int pageIndex, int width) {
+        return fingerprint + "-t" + pageIndex + "-" + width + ENTRY_SUFFIX;
+    }
+
+    /**
+     * Names the most recently used entry of a page of the document with this fingerprint,
+     * preferring page levels to thumbnails, or returns null if none is stored. Lets a stored
+     * rendering be shown before the page size, and with it the level's name, is known.
+     */
+    public synchronized String latestPageEntry(String fingerprint, int pageIndex) {
+        ensureLoaded();
+        String level = fingerprint + "-p" + pageIndex + "-";
+        String thumbnail = fingerprint + "-t" + pageIndex + "-";
+        String latestLevel = null;
+        String latestThumbnail = null;
+        for (String name : index.keys()) {
+            if (name.startsWith(level)) {
+                latestLevel = name;
+            } else if (name.startsWith(thumbnail)) {
+                latestThumbnail = name;
+            }
+        }
+        return latestLevel != null ? latestLevel : latestThumbnail;
+    }
+
+    public synchronized boolean contains(String name) {
+        ensureLoaded();
+        return index.contains(name);
+    }
+
+    /**
+     * Returns the stored bitmap in a fresh bitmap from {@code pool} that the caller owns one
+     * reference to, or null if there is no usable entry.
+     */
+    public Bitmap get(String name, BitmapPool pool) {
+        synchronized (this) {
+            ensureLoaded();
+            if (index.get(name) == null) {
+                return null;
+            }
+        }
+        File file = new File(directory, name);
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a page entry");
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width <= 0 || height <= 0 || buffer.remaining() != (long) width * height * 4) {
+                throw new IOException("Truncated page entry");
+            }
+            Bitmap bitmap = pool.acquire(width, height, Bitmap.Config.ARGB_8888);
+            try {
+                bitmap.copyPixelsFromBuffer(buffer);
+            } catch (RuntimeException e) {
+                pool.release(bitmap);
+                throw e;
+            }
+            file.setLastModified(System.currentTimeMillis());
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Dropping unreadable entry " + name, e);
+            remove(name);
+            return null;
+        }
+    }
+
+    /** Stores an ARGB_8888 {@code bitmap} under {@code name}, replacing any previous entry. */
+    public void put(String name, Bitmap bitmap) {
+        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            return;
+        }
+        long length = HEADER_BYTES + (long) bitmap.getByteCount();
+        synchronized (this) {
+            ensureLoaded();
+            if (length > index.maxSize() || !directory.isDirectory()) {
+                return;
+            }
+        }
+        File temp = null;
+        try {
+            // Written aside and renamed into place, so readers never see a partial entry.
+            temp = File.createTempFile(name, ".tmp", directory);
+            try (RandomAccessFile output = new RandomAccessFile(temp, "rw");
+                 FileChannel channel = output.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                buffer.putInt(MAGIC).putInt(bitmap.getWidth()).putInt(bitmap.getHeight());
+                bitmap.copyPixelsToBuffer(buffer);
+            }
+            commit(name, temp, (int) length);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Failed to store " + name, e);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    private synchronized void commit(String name, File temp, int length) {
+        // Removed without eviction so the replaced file is not deleted after the rename.
+        index.remove(name);
+        if (temp.renameTo(new File(directory, name))) {
+            index.put(name, length);
+        } else {
+            delete(temp);
+        }
+    }
+
+    public synchronized void remove(String name) {
+        ensureLoaded();
+        index.remove(name);
+        delete(new File(directory, name));
+    }
+
+    /** Deletes every entry. */
+    public synchronized void clear() {
+        ensureLoaded();
+        index.clear();
+    }
+
+    public synchronized long size() {
+        ensureLoaded();
+        return index.size();
+    }
+
+    /** Indexes the files left by earlier runs, oldest first, and deletes abandoned temp files. */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Cannot create " + directory);
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+        for (int i : order) {
+            File file = files[i];
+            long length = file.length();
+            boolean indexed = file.getName().endsWith(ENTRY_SUFFIX)
+                    && length >= HEADER_BYTES && length <= Integer.MAX_VALUE
+                    && index.put(file.getName(), (int) length);
+            if (!indexed) {
+                delete(file);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            Log.w(TAG, "Failed to delete " + file);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DiskPageCache[" + directory + ", " + index + "]";
+    }
+}
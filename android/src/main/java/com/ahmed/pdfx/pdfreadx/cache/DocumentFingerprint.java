@@ -0,0 +1,97 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import android.os.ParcelFileDescriptor;
+import android.system.ErrnoException;
+import android.system.Os;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Identifies the contents of a document cheaply enough to compute on every open: a hash of its
+ * size, its modification time and a few evenly spaced byte ranges, never of the whole file.
+ *
+ * The first and last ranges always take part, so the usual edits to a PDF, which append a new
+ * cross-reference section and trailer, change the fingerprint even when the file keeps its
+ * modification time.
+ */
+public final class DocumentFingerprint {
+    static final int SAMPLE_BYTES = 16 * 1024;
+    static final int SAMPLE_COUNT = 4;
+
+    private DocumentFingerprint() {
+    }
+
+    public static String of(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            return of(in.getChannel(), file.length(), file.lastModified());
+        }
+    }
+
+    /** Fingerprints an open document without moving the descriptor's file offset. */
+    public static String of(ParcelFileDescriptor descriptor) throws IOException {
+        // A duplicate descriptor and positional reads leave the renderers' file offset alone.
+        try (FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(descriptor.dup())) {
+            long modified = Os.fstat(in.getFD()).st_mtime * 1000L;
+            return of(in.getChannel(), descriptor.getStatSize(), modified);
+        } catch (ErrnoException e) {
+            throw new IOException("Cannot stat the document", e);
+        }
+    }
+
+    /**
+     * Fingerprints the first {@code size} bytes of {@code channel} with positional reads, so the
+     * channel's position is left untouched. Pass 0 for an unknown {@code lastModified}.
+     */
+    public static String of(FileChannel channel, long size, long lastModified) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_BYTES);
+        buffer.putLong(size).putLong(lastModified).flip();
+        digest.update(buffer);
+
+        // Files no larger than the samples together are simply hashed whole.
+        boolean whole = size <= (long) SAMPLE_BYTES * SAMPLE_COUNT;
+        int ranges = whole ? (int) ((size + SAMPLE_BYTES - 1) / SAMPLE_BYTES) : SAMPLE_COUNT;
+        for (int i = 0; i < ranges; i++) {
+            long offset = whole ? (long) i * SAMPLE_BYTES : (size - SAMPLE_BYTES) * i / (SAMPLE_COUNT - 1);
+            buffer.clear();
+            buffer.limit((int) Math.min(size - offset, SAMPLE_BYTES));
+            readFully(channel, buffer, offset);
+            digest.update(buffer);
+        }
+        return toHex(digest.digest());
+    }
+
+    /** Fills {@code buffer} from {@code offset}, stopping early at the end of the file, and flips it. */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
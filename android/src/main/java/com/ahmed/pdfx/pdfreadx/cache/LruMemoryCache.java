@@ -0,0 +1,161 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe LRU cache bounded by the summed size of its values rather than their count.
+ *
+ * Sizes are measured once, on insertion, by the supplied {@link Sizer}. Evicted and replaced
+ * values are handed to the {@link EvictionListener} so their owner can reuse or release them.
+ */
+public class LruMemoryCache<K, V> {
+
+    public interface Sizer<V> {
+        int sizeOf(V value);
+    }
+
+    public interface EvictionListener<K, V> {
+        void onEvicted(K key, V value);
+    }
+
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final Sizer<V> sizer;
+    private EvictionListener<K, V> evictionListener;
+    private long maxSize;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public LruMemoryCache(long maxSize, Sizer<V> sizer) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize < 0");
+        }
+        this.maxSize = maxSize;
+        this.sizer = sizer;
+    }
+
+    public synchronized void setEvictionListener(EvictionListener<K, V> listener) {
+        this.evictionListener = listener;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+
+    /** Returns whether {@code key} is cached without touching its recency or the hit counters. */
+    public synchronized boolean contains(K key) {
+        return map.containsKey(key);
+    }
+
+    /** Returns the keys from least to most recently used without touching their recency. */
+    public synchronized List<K> keys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    /** Caches {@code value}, returning false if it is larger than the whole cache. */
+    public synchronized boolean put(K key, V value) {
+        int valueSize = sizer.sizeOf(value);
+        if (valueSize > maxSize) {
+            return false;
+        }
+        Entry<V> previous = map.put(key, new Entry<>(value, valueSize));
+        size += valueSize;
+        if (previous != null) {
+            size -= previous.size;
+            if (previous.value != value) {
+                notifyEvicted(key, previous.value);
+            }
+        }
+        trimToSize(maxSize);
+        return true;
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = map.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        size -= entry.size;
+        return entry.value;
+    }
+
+    /** Evicts least recently used entries until the cache holds at most {@code targetSize}. */
+    public synchronized void trimToSize(long targetSize) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = map.entrySet().iterator();
+        while (size > targetSize && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue().size;
+            evictionCount++;
+            notifyEvicted(eldest.getKey(), eldest.getValue().value);
+        }
+    }
+
+    public synchronized void resize(long maxSize) {
+        this.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    public synchronized void clear() {
+        trimToSize(-1);
+    }
+
+    private void notifyEvicted(K key, V value) {
+        if (evictionListener != null) {
+            evictionListener.onEvicted(key, value);
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized long maxSize() {
+        return maxSize;
+    }
+
+    public synchronized int count() {
+        return map.size();
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (int) (100 * hitCount / accesses) : 0;
+        return String.format("LruMemoryCache[size=%d,maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                size, maxSize, hitCount, missCount, hitPercent);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final int size;
+
+        Entry(V value, int size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides how much bitmap memory the viewer may use and how finely it renders, from the device
+ * limits, and steps both down under memory pressure.
+ *
+ * The budget is a fraction of the smaller of the memory class and the VM heap limit. It is split
+ * between the page, tile and thumbnail caches and the bitmap pool, and the render resolution, as a
+ * multiple of the screen size, is the largest step that lets the page cache hold a handful of
+ * pages. On {@link #onTrimMemory} the caches are shrunk first. Only sustained pressure lowers the
+ * resolution: a low-memory trim within {@link #PRESSURE_WINDOW_MS} of an earlier one while running,
+ * or a critical one. Once no such trim has come for {@link #RECOVERY_MS}, the resolution goes back
+ * up a step at a time towards the one chosen at first. Listeners are told of every change so they
+ * can re-render.
+ */
+public class MemoryGovernor {
+    /** Render resolutions, as multiples of the screen size, from lowest to highest. */
+    static final float[] RESOLUTION_STEPS = {0.5f, 1f, 1.5f, 2f};
+    /** Pages the page cache should be able to hold at the chosen resolution. */
+    static final int PAGES_TO_HOLD = 3;
+    /** Upper bound of pages rendered at once, each on its own renderer of the document. */
+    static final int MAX_RENDER_WORKERS = 4;
+    /** A running trim this soon after another one makes the pressure sustained. */
+    static final long PRESSURE_WINDOW_MS = 30_000;
+    /** How long without a running trim before the resolution goes back up a step. */
+    static final long RECOVERY_MS = 60_000;
+
+    private static final float PAGE_SHARE = 0.6f;
+    private static final float TILE_SHARE = 0.15f;
+    private static final float THUMBNAIL_SHARE = 0.05f;
+    private static final float POOL_SHARE = 0.2f;
+    private static final long MB = 1024 * 1024;
+
+    public interface ResolutionListener {
+        void onResolutionChanged(float multiplier);
+    }
+
+    private final long budget;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final RenderCaches caches;
+    private final int preferredStep;
+    private final LongSupplier clock;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable restoreCheck = this::restoreResolution;
+    private int resolutionStep;
+    private int lastTrimLevel = 0;
+    // Uptime of the last running trim, and of the last change of resolution; 0 before the first.
+    private long lastPressureMillis;
+    private long lastChangeMillis;
+    private ResolutionListener resolutionListener;
+
+    public static MemoryGovernor create(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        return new MemoryGovernor(
+                activityManager.getMemoryClass() * MB,
+                Runtime.getRuntime().maxMemory(),
+                activityManager.isLowRamDevice(),
+                displayMetrics.widthPixels,
+                displayMetrics.heightPixels);
+    }
+
+    public MemoryGovernor(long memoryClassBytes, long maxHeapBytes, boolean lowRamDevice,
+                          int screenWidth, int screenHeight) {
+        this(memoryClassBytes, maxHeapBytes, lowRamDevice, screenWidth, screenHeight, SystemClock::uptimeMillis);
+    }
+
+    MemoryGovernor(long memoryClassBytes, long maxHeapBytes, boolean lowRamDevice,
+                   int screenWidth, int screenHeight, LongSupplier clock) {
+        this.budget = computeBudget(memoryClassBytes, maxHeapBytes, lowRamDevice);
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.clock = clock;
+        this.preferredStep = chooseResolutionStep((long) (budget * PAGE_SHARE), (long) screenWidth * screenHeight);
+        this.resolutionStep = preferredStep;
+        this.caches = new RenderCaches((long) (budget * PAGE_SHARE), (long) (budget * TILE_SHARE),
+                (long) (budget * THUMBNAIL_SHARE), (long) (budget * POOL_SHARE));
+    }
+
+    static long computeBudget(long memoryClassBytes, long maxHeapBytes, boolean lowRamDevice) {
+        long heap = Math.min(memoryClassBytes, maxHeapBytes);
+        return heap / (lowRamDevice ? 4 : 2);
+    }
+
+    /** Returns the highest resolution step whose pages still fit {@link #PAGES_TO_HOLD} times. */
+    static int chooseResolutionStep(long pageBudget, long screenPixels) {
+        for (int step = RESOLUTION_STEPS.length - 1; step > 0; step--) {
+            float multiplier = RESOLUTION_STEPS[step];
+            long pageBytes = (long) (screenPixels * multiplier * multiplier * 4);
+            if (pageBytes * PAGES_TO_HOLD <= pageBudget) {
+                return step;
+            }
+        }
+        return 0;
+    }
+
+    public void setResolutionListener(ResolutionListener listener) {
+        this.resolutionListener = listener;
+    }
+
+    public RenderCaches getCaches() {
+        return caches;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public synchronized float getResolutionMultiplier() {
+        return RESOLUTION_STEPS[resolutionStep];
+    }
+
+    /** Width of the box pages are rendered to fit, in pixels. */
+    public synchronized int getRequestWidth() {
+        return Math.round(screenWidth * RESOLUTION_STEPS[resolutionStep]);
+    }
+
+    /** Height of the box pages are rendered to fit, in pixels. */
+    public synchronized int getRequestHeight() {
+        return Math.round(screenHeight * RESOLUTION_STEPS[resolutionStep]);
+    }
+
+    /**
+     * Returns how many pages a document may render at once: one core is left to the UI, and
+     * a page at the current resolution in flight per worker must fit the bitmap pool's share.
+     */
+    public int getRenderWorkerCount() {
+        long pageBytes = (long) getRequestWidth() * getRequestHeight() * 4;
+        return renderWorkerCount(Runtime.getRuntime().availableProcessors(), (long) (budget * POOL_SHARE), pageBytes);
+    }
+
+    static int renderWorkerCount(int processors, long poolBytes, long pageBytes) {
+        long byMemory = poolBytes / Math.max(1, pageBytes);
+        return (int) Math.max(1, Math.min(MAX_RENDER_WORKERS, Math.min(processors - 1, byMemory)));
+    }
+
+    /**
+     * Returns how many renderings of {@code pageBytes} an export may hold between render and
+     * write: one per core to keep the encoders busy, as far as they fit the bitmap pool's share.
+     */
+    public int getExportDepth(long pageBytes) {
+        return exportDepth(Runtime.getRuntime().availableProcessors(), (long) (budget * POOL_SHARE), pageBytes);
+    }
+
+    static int exportDepth(int processors, long poolBytes, long pageBytes) {
+        long byMemory = poolBytes / Math.max(1, pageBytes);
+        return (int) Math.max(1, Math.min(processors, byMemory));
+    }
+
+    /** Responds to a {@link ComponentCallbacks2#onTrimMemory} level, mildest measures first. */
+    public void onTrimMemory(int level) {
+        boolean sustained;
+        synchronized (this) {
+            lastTrimLevel = level;
+            // Trims from UI_HIDDEN on come with the app in the background, where nothing is shown.
+            boolean running = level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE
+                    && level < ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+            long now = clock.getAsLong();
+            sustained = running && lastPressureMillis != 0 && now - lastPressureMillis <= PRESSURE_WINDOW_MS;
+            if (running) {
+                lastPressureMillis = now;
+            }
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            caches.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            caches.tiles.clear();
+            caches.pages.trimToSize(caches.pages.maxSize() / 4);
+            caches.bitmapPool.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            caches.clear();
+            lowerResolution(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            caches.tiles.clear();
+            caches.thumbnails.trimToSize(caches.thumbnails.maxSize() / 2);
+            caches.pages.trimToSize(caches.pages.maxSize() / 4);
+            caches.bitmapPool.clear();
+            if (sustained) {
+                lowerResolution(getResolutionStep() - 1);
+            }
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            caches.tiles.trimToSize(caches.tiles.maxSize() / 2);
+            caches.pages.trimToSize(caches.pages.maxSize() / 2);
+            caches.bitmapPool.clear();
+        }
+    }
+
+    public void onLowMemory() {
+        onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+    }
+
+    private synchronized int getResolutionStep() {
+        return resolutionStep;
+    }
+
+    private void lowerResolution(int step) {
+        float multiplier;
+        synchronized (this) {
+            step = Math.max(0, step);
+            if (step >= resolutionStep) {
+                return;
+            }
+            resolutionStep = step;
+            lastChangeMillis = clock.getAsLong();
+            multiplier = RESOLUTION_STEPS[step];
+            scheduleRestore(RECOVERY_MS);
+        }
+        if (resolutionListener != null) {
+            resolutionListener.onResolutionChanged(multiplier);
+        }
+    }
+
+    /**
+     * Raises the resolution a step once neither a running trim nor the last change is within
+     * {@link #RECOVERY_MS}, and checks again later until it is back where it started.
+     */
+    void restoreResolution() {
+        float multiplier;
+        synchronized (this) {
+            if (resolutionStep >= preferredStep) {
+                return;
+            }
+            long quiet = clock.getAsLong() - Math.max(lastPressureMillis, lastChangeMillis);
+            if (quiet < RECOVERY_MS) {
+                scheduleRestore(RECOVERY_MS - quiet);
+                return;
+            }
+            resolutionStep++;
+            lastChangeMillis = clock.getAsLong();
+            multiplier = RESOLUTION_STEPS[resolutionStep];
+            if (resolutionStep < preferredStep) {
+                scheduleRestore(RECOVERY_MS);
+            }
+        }
+        if (resolutionListener != null) {
+            resolutionListener.onResolutionChanged(multiplier);
+        }
+    }
+
+    private void scheduleRestore(long delayMillis) {
+        handler.removeCallbacks(restoreCheck);
+        handler.postDelayed(restoreCheck, delayMillis);
+    }
+
+    /** Returns the current budget and what uses it, for diagnostics. */
+    public Map<String, Object> getUsage() {
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("budgetBytes", budget);
+        usage.put("pageCacheBytes", caches.pages.size());
+        usage.put("pageCacheMaxBytes", caches.pages.maxSize());
+        usage.put("tileCacheBytes", caches.tiles.size());
+        usage.put("tileCacheMaxBytes", caches.tiles.maxSize());
+        usage.put("thumbnailCacheBytes", caches.thumbnails.size());
+        usage.put("bitmapPoolBytes", caches.bitmapPool.size());
+        usage.put("renderWorkers", getRenderWorkerCount());
+        usage.put("usedBytes", caches.pages.size() + caches.tiles.size() + caches.thumbnails.size()
+                + caches.bitmapPool.size());
+        synchronized (this) {
+            usage.put("resolutionMultiplier", RESOLUTION_STEPS[resolutionStep]);
+            usage.put("lastTrimLevel", lastTrimLevel);
+        }
+        return usage;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryGovernor" + getUsage();
+    }
+}
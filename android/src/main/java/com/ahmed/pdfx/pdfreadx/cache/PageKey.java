@@ -0,0 +1,37 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+/** Identifies one rendering of a page: the document, the page index and the render scale. */
+public final class PageKey {
+    public final String documentId;
+    public final int pageIndex;
+    public final float scale;
+
+    public PageKey(String documentId, int pageIndex, float scale) {
+        this.documentId = documentId;
+        this.pageIndex = pageIndex;
+        this.scale = scale;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PageKey)) return false;
+        PageKey other = (PageKey) o;
+        return pageIndex == other.pageIndex
+                && Float.compare(scale, other.scale) == 0
+                && documentId.equals(other.documentId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = documentId.hashCode();
+        result = 31 * result + pageIndex;
+        result = 31 * result + Float.floatToIntBits(scale);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return documentId + "#" + pageIndex + "@" + scale;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The layout of a document: its page count and the size of every page in PDF points, in two
+ * plain arrays, so a list of a thousand pages can be sized up front without opening any of them.
+ * Eight bytes per page when stored.
+ */
+public final class PageMetadata {
+    private static final int MAGIC = 0x5044584D;
+    private static final int FORMAT_VERSION = 1;
+
+    private final int[] widths;
+    private final int[] heights;
+
+    /** Takes the arrays as they are; both have one entry per page. */
+    public PageMetadata(int[] widths, int[] heights) {
+        if (widths.length != heights.length) {
+            throw new IllegalArgumentException("widths and heights differ in length");
+        }
+        this.widths = widths;
+        this.heights = heights;
+    }
+
+    public int getPageCount() {
+        return widths.length;
+    }
+
+    public int getWidth(int index) {
+        return widths[index];
+    }
+
+    public int getHeight(int index) {
+        return heights[index];
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(widths.length);
+        for (int i = 0; i < widths.length; i++) {
+            out.writeInt(widths[i]);
+            out.writeInt(heights[i]);
+        }
+    }
+
+    /** Reads metadata written by {@link #writeTo}. */
+    public static PageMetadata readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not page metadata");
+        }
+        int pageCount = in.readInt();
+        if (pageCount < 0) {
+            throw new IOException("Corrupt page metadata");
+        }
+        int[] widths = new int[pageCount];
+        int[] heights = new int[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            widths[i] = in.readInt();
+            heights[i] = in.readInt();
+            if (widths[i] <= 0 || heights[i] <= 0) {
+                throw new IOException("Corrupt page metadata");
+            }
+        }
+        return new PageMetadata(widths, heights);
+    }
+}
@@ -0,0 +1,95 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Keeps the {@link PageMetadata} of documents next to the {@link DiskPageCache}, one small file
+ * per {@link DocumentFingerprint}, so a document opened again knows its layout at once. Files
+ * beyond {@link #MAX_ENTRIES} are deleted, least recently used first.
+ *
+ * Methods do file I/O and must not be called on the main thread.
+ */
+public class PageMetadataStore {
+    private static final String TAG = "PageMetadataStore";
+    private static final String DIRECTORY_NAME = "pdfreadx-meta";
+    private static final String ENTRY_SUFFIX = ".meta";
+    static final int MAX_ENTRIES = 256;
+
+    private static PageMetadataStore instance;
+
+    private final File directory;
+
+    /** Returns the store shared by every engine in the process. */
+    public static synchronized PageMetadataStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new PageMetadataStore(new File(context.getCacheDir(), DIRECTORY_NAME));
+        }
+        return instance;
+    }
+
+    public PageMetadataStore(File directory) {
+        this.directory = directory;
+    }
+
+    /** Returns the stored metadata of the document, or null if there is none that is readable. */
+    public synchronized PageMetadata load(String fingerprint) {
+        File file = entryFile(fingerprint);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            PageMetadata metadata = PageMetadata.readFrom(in);
+            file.setLastModified(System.currentTimeMillis());
+            return metadata;
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable entry " + file, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    public synchronized void store(String fingerprint, PageMetadata metadata) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        File temporary = new File(directory, fingerprint + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            metadata.writeTo(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot store the metadata of " + fingerprint, e);
+            temporary.delete();
+            return;
+        }
+        if (!temporary.renameTo(entryFile(fingerprint))) {
+            temporary.delete();
+        }
+        trim();
+    }
+
+    private File entryFile(String fingerprint) {
+        return new File(directory, fingerprint + ENTRY_SUFFIX);
+    }
+
+    private void trim() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (files == null || files.length <= MAX_ENTRIES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_ENTRIES; i++) {
+            files[i].delete();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import android.graphics.Bitmap;
+
+/**
+ * The memory caches a render engine works with: whole pages, zoom tiles, thumbnails and the
+ * bitmap pool they all draw from. Entries evicted from any cache release their reference into
+ * the pool.
+ */
+public class RenderCaches {
+    public final LruMemoryCache<PageKey, Bitmap> pages;
+    public final LruMemoryCache<TileKey, Bitmap> tiles;
+    /** Thumbnails keyed by the scale that maps the page onto the thumbnail width. */
+    public final LruMemoryCache<PageKey, Bitmap> thumbnails;
+    public final BitmapPool bitmapPool;
+
+    public RenderCaches(long pageBytes, long tileBytes, long thumbnailBytes, long poolBytes) {
+        bitmapPool = new BitmapPool(poolBytes);
+        pages = new LruMemoryCache<>(pageBytes, Bitmap::getAllocationByteCount);
+        tiles = new LruMemoryCache<>(tileBytes, Bitmap::getAllocationByteCount);
+        thumbnails = new LruMemoryCache<>(thumbnailBytes, Bitmap::getAllocationByteCount);
+        pages.setEvictionListener((key, bitmap) -> bitmapPool.release(bitmap));
+        tiles.setEvictionListener((key, bitmap) -> bitmapPool.release(bitmap));
+        thumbnails.setEvictionListener((key, bitmap) -> bitmapPool.release(bitmap));
+    }
+
+    /** Empties every cache and recycles every pooled bitmap. */
+    public void clear() {
+        pages.clear();
+        tiles.clear();
+        thumbnails.clear();
+        bitmapPool.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "pages=" + pages + ", tiles=" + tiles + ", thumbnails=" + thumbnails + ", pool=" + bitmapPool;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+/** Identifies one tile of a page rendered at a given scale. */
+public final class TileKey {
+    public final String documentId;
+    public final int pageIndex;
+    public final float scale;
+    public final int column;
+    public final int row;
+
+    public TileKey(String documentId, int pageIndex, float scale, int column, int row) {
+        this.documentId = documentId;
+        this.pageIndex = pageIndex;
+        this.scale = scale;
+        this.column = column;
+        this.row = row;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TileKey)) return false;
+        TileKey other = (TileKey) o;
+        return pageIndex == other.pageIndex
+                && column == other.column
+                && row == other.row
+                && Float.compare(scale, other.scale) == 0
+                && documentId.equals(other.documentId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = documentId.hashCode();
+        result = 31 * result + pageIndex;
+        result = 31 * result + Float.floatToIntBits(scale);
+        result = 31 * result + column;
+        result = 31 * result + row;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return documentId + "#" + pageIndex + "@" + scale + "[" + column + "," + row + "]";
+    }
+}
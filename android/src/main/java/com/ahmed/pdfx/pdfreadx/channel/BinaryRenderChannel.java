@@ -0,0 +1,221 @@
+package com.ahmed.pdfx.pdfreadx.channel;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+import com.ahmed.pdfx.pdfreadx.render.RegionRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
+
+/**
+ * Serves batch page renders as raw bytes over a {@link BasicMessageChannel}, in the format of
+ * {@link RenderProtocol}, without boxing anything through the standard codec.
+ *
+ * Raw RGBA responses are sized before the first render, so a batch too large to send renders
+ * nothing, and every bitmap is copied straight into its slot of one direct buffer on a render
+ * worker, which is then handed to the messenger as is.
+ * PNG responses are assembled once all pages are encoded. Requests are parsed on the messenger's
+ * background task queue, so they never wait for the platform thread.
+ */
+public class BinaryRenderChannel implements BasicMessageChannel.MessageHandler<ByteBuffer> {
+    public static final String CHANNEL_NAME = "pdfreadx/render";
+
+    private final BasicMessageChannel<ByteBuffer> channel;
+    private final IntFunction<PdfRenderEngine> documents;
+
+    /**
+     * {@code documents} looks up the engine of an open document id, or returns null; it is called
+     * on {@code taskQueue}.
+     */
+    public BinaryRenderChannel(BinaryMessenger messenger, BinaryMessenger.TaskQueue taskQueue,
+                               IntFunction<PdfRenderEngine> documents) {
+        this.documents = documents;
+        // Requests are parsed before onMessage returns, so the messenger's own buffer is safe to read.
+        this.channel = new BasicMessageChannel<>(messenger, CHANNEL_NAME, BinaryCodec.INSTANCE_DIRECT, taskQueue);
+        channel.setMessageHandler(this);
+    }
+
+    public void dispose() {
+        channel.setMessageHandler(null);
+    }
+
+    @Override
+    public void onMessage(ByteBuffer message, @NonNull BasicMessageChannel.Reply<ByteBuffer> reply) {
+        RenderProtocol.Request request;
+        try {
+            request = RenderProtocol.parseRequest(message);
+        } catch (IllegalArgumentException e) {
+            reply.reply(complete(RenderProtocol.errorResponse(RenderProtocol.STATUS_BAD_REQUEST)));
+            return;
+        }
+        PdfRenderEngine engine = documents.apply(request.documentId);
+        if (engine == null) {
+            reply.reply(complete(RenderProtocol.errorResponse(RenderProtocol.STATUS_NO_DOCUMENT)));
+            return;
+        }
+        BatchWriter writer = request.format == RenderProtocol.FORMAT_RGBA
+                ? new RgbaWriter(engine, request)
+                : new PngWriter(engine, request);
+        engine.renderBatch(PdfRenderEngine.PRIORITY_VISIBLE, request.regions, writer,
+                () -> reply.reply(complete(writer.finish())));
+    }
+
+    /** The messenger sends a reply up to its position, so move it past the last byte. */
+    private static ByteBuffer complete(ByteBuffer response) {
+        response.position(response.capacity());
+        return response;
+    }
+
+    private abstract static class BatchWriter implements PdfRenderEngine.BatchSink {
+        final PdfRenderEngine engine;
+        final RenderProtocol.Request request;
+        final int[] pageIndices;
+        final int[] widths;
+        final int[] heights;
+        volatile boolean started = false;
+
+        BatchWriter(PdfRenderEngine engine, RenderProtocol.Request request) {
+            this.engine = engine;
+            this.request = request;
+            int count = request.regions.size();
+            this.pageIndices = new int[count];
+            this.widths = new int[count];
+            this.heights = new int[count];
+        }
+
+        /** Fills in the output size of every page; zero for pages that cannot be rendered. */
+        @Override
+        public boolean onStart() {
+            for (int i = 0; i < pageIndices.length; i++) {
+                RegionRequest region = request.regions.get(i);
+                pageIndices[i] = region.pageIndex;
+                if (region.pageIndex < 0 || region.pageIndex >= engine.getPageCount()) {
+                    continue;
+                }
+                int pageWidth = engine.getPageWidth(region.pageIndex);
+                int pageHeight = engine.getPageHeight(region.pageIndex);
+                if (region.isRenderable(pageWidth, pageHeight)) {
+                    widths[i] = region.pixelWidth(pageWidth);
+                    heights[i] = region.pixelHeight(pageHeight);
+                }
+            }
+            started = true;
+            return true;
+        }
+
+        /** Returns the response; runs on the main thread after the last render. */
+        abstract ByteBuffer finish();
+    }
+
+    private static final class RgbaWriter extends BatchWriter {
+        private int[] byteLengths;
+        private boolean[] written;
+        private ByteBuffer response;
+        private boolean tooLarge = false;
+
+        RgbaWriter(PdfRenderEngine engine, RenderProtocol.Request request) {
+            super(engine, request);
+        }
+
+        /** Skips rendering a batch whose response would be too large to send. */
+        @Override
+        public boolean onStart() {
+            super.onStart();
+            byteLengths = new int[widths.length];
+            written = new boolean[widths.length];
+            for (int i = 0; i < widths.length; i++) {
+                byteLengths[i] = widths[i] * heights[i] * 4;
+            }
+            if (RenderProtocol.responseSize(byteLengths) > RenderProtocol.MAX_RESPONSE_BYTES) {
+                tooLarge = true;
+                return false;
+            }
+            response = RenderProtocol.allocateResponse(RenderProtocol.STATUS_OK, pageIndices, widths, heights, byteLengths);
+            return true;
+        }
+
+        @Override
+        public void onRendered(int index, Bitmap bitmap) {
+            if (response == null || bitmap == null || byteLengths[index] == 0) {
+                return;
+            }
+            response.position(RenderProtocol.payloadOffset(byteLengths, index));
+            bitmap.copyPixelsToBuffer(response);
+            written[index] = true;
+        }
+
+        @Override
+        ByteBuffer finish() {
+            if (tooLarge) {
+                return RenderProtocol.errorResponse(RenderProtocol.STATUS_TOO_LARGE);
+            }
+            if (!started || response == null) {
+                return RenderProtocol.errorResponse(RenderProtocol.STATUS_CLOSED);
+            }
+            // Pages that failed keep their slot, so later offsets hold, but report no image.
+            for (int i = 0; i < written.length; i++) {
+                if (!written[i] && byteLengths[i] > 0) {
+                    int entry = RenderProtocol.RESPONSE_HEADER_BYTES + RenderProtocol.RESPONSE_ENTRY_BYTES * i;
+                    response.putInt(entry + 4, 0);
+                    response.putInt(entry + 8, 0);
+                }
+            }
+            return response;
+        }
+    }
+
+    private static final class PngWriter extends BatchWriter {
+        private final byte[][] payloads;
+        private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        PngWriter(PdfRenderEngine engine, RenderProtocol.Request request) {
+            super(engine, request);
+            this.payloads = new byte[request.regions.size()][];
+        }
+
+        @Override
+        public void onRendered(int index, Bitmap bitmap) {
+            if (bitmap == null || widths[index] == 0) {
+                return;
+            }
+            stream.reset();
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+            payloads[index] = stream.toByteArray();
+        }
+
+        @Override
+        ByteBuffer finish() {
+            if (!started) {
+                return RenderProtocol.errorResponse(RenderProtocol.STATUS_CLOSED);
+            }
+            int[] byteLengths = new int[payloads.length];
+            for (int i = 0; i < payloads.length; i++) {
+                if (payloads[i] != null) {
+                    byteLengths[i] = payloads[i].length;
+                } else {
+                    widths[i] = 0;
+                    heights[i] = 0;
+                }
+            }
+            if (RenderProtocol.responseSize(byteLengths) > RenderProtocol.MAX_RESPONSE_BYTES) {
+                return RenderProtocol.errorResponse(RenderProtocol.STATUS_TOO_LARGE);
+            }
+            ByteBuffer response = RenderProtocol.allocateResponse(
+                    RenderProtocol.STATUS_OK, pageIndices, widths, heights, byteLengths);
+            for (byte[] payload : payloads) {
+                if (payload != null) {
+                    response.put(payload);
+                }
+            }
+            return response;
+        }
+    }
+}
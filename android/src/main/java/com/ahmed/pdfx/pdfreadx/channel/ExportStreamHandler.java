@@ -0,0 +1,80 @@
+package com.ahmed.pdfx.pdfreadx.channel;
+
+import com.ahmed.pdfx.pdfreadx.export.DocumentExport;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * Streams the progress of every running {@link DocumentExport} to Flutter over one
+ * {@link EventChannel}, each event tagged with its export's id. Events sent while nothing
+ * listens are dropped. Must be used on the main thread.
+ */
+public class ExportStreamHandler implements EventChannel.StreamHandler {
+    public static final String CHANNEL_NAME = "pdfreadx/export";
+
+    private final EventChannel channel;
+    private EventChannel.EventSink events;
+
+    public ExportStreamHandler(BinaryMessenger messenger) {
+        this.channel = new EventChannel(messenger, CHANNEL_NAME);
+        channel.setStreamHandler(this);
+    }
+
+    public void dispose() {
+        channel.setStreamHandler(null);
+        events = null;
+    }
+
+    /** Returns a listener that reports the export {@code exportId} on this stream. */
+    public DocumentExport.Listener listenerFor(int exportId, Runnable onFinished) {
+        return new DocumentExport.Listener() {
+            @Override
+            public void onPageWritten(int page, File file, int done, int total) {
+                Map<String, Object> event = event(exportId, "page", done, total);
+                event.put("page", page);
+                event.put("path", file.getAbsolutePath());
+                send(event);
+            }
+
+            @Override
+            public void onFinished(DocumentExport.Outcome outcome, Exception error, int done, int total) {
+                Map<String, Object> event = event(exportId, "finished", done, total);
+                event.put("outcome", outcome.name().toLowerCase(Locale.US));
+                event.put("error", error != null ? String.valueOf(error.getMessage()) : null);
+                send(event);
+                onFinished.run();
+            }
+        };
+    }
+
+    private static Map<String, Object> event(int exportId, String type, int done, int total) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("exportId", exportId);
+        event.put("event", type);
+        event.put("done", done);
+        event.put("total", total);
+        return event;
+    }
+
+    private void send(Map<String, Object> event) {
+        if (events != null) {
+            events.success(event);
+        }
+    }
+
+    @Override
+    public void onListen(Object arguments, EventChannel.EventSink events) {
+        this.events = events;
+    }
+
+    @Override
+    public void onCancel(Object arguments) {
+        events = null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ahmed.pdfx.pdfreadx.channel;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.ahmed.pdfx.pdfreadx.cache.MemoryGovernor;
+import com.ahmed.pdfx.pdfreadx.metrics.RenderMetrics;
+
+import java.util.Map;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * Streams {@link RenderMetrics} snapshots to Flutter over an {@link EventChannel}: one right
+ * away and then one every {@code intervalMs} given as the listen argument, by default
+ * {@link #DEFAULT_INTERVAL_MS}, until the stream is cancelled.
+ */
+public class MetricsStreamHandler implements EventChannel.StreamHandler {
+    public static final String CHANNEL_NAME = "pdfreadx/metrics";
+    static final long DEFAULT_INTERVAL_MS = 1000;
+    static final long MIN_INTERVAL_MS = 100;
+
+    private final EventChannel channel;
+    private final MemoryGovernor governor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private EventChannel.EventSink events;
+    private long intervalMs;
+
+    private final Runnable emit = new Runnable() {
+        @Override
+        public void run() {
+            if (events == null) {
+                return;
+            }
+            events.success(RenderMetrics.getInstance().snapshot(governor));
+            mainHandler.postDelayed(this, intervalMs);
+        }
+    };
+
+    public MetricsStreamHandler(BinaryMessenger messenger, MemoryGovernor governor) {
+        this.governor = governor;
+        this.channel = new EventChannel(messenger, CHANNEL_NAME);
+        channel.setStreamHandler(this);
+    }
+
+    public void dispose() {
+        channel.setStreamHandler(null);
+        onCancel(null);
+    }
+
+    @Override
+    public void onListen(Object arguments, EventChannel.EventSink events) {
+        mainHandler.removeCallbacks(emit);
+        Object interval = arguments instanceof Map ? ((Map<?, ?>) arguments).get("intervalMs") : null;
+        intervalMs = interval instanceof Number
+                ? Math.max(MIN_INTERVAL_MS, ((Number) interval).longValue())
+                : DEFAULT_INTERVAL_MS;
+        this.events = events;
+        emit.run();
+    }
+
+    @Override
+    public void onCancel(Object arguments) {
+        mainHandler.removeCallbacks(emit);
+        events = null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ahmed.pdfx.pdfreadx.channel;
+
+import com.ahmed.pdfx.pdfreadx.render.RegionRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wire format of the binary render channel. All values are little-endian.
+ *
+ * <pre>
+ * request:  int32 documentId, int32 format, int32 count,
+ *           count x { int32 pageIndex, float32 scale, float32 left, top, right, bottom }
+ * response: int32 status, int32 count,
+ *           count x { int32 pageIndex, int32 width, int32 height, int32 byteLength },
+ *           then the payloads back to back in the same order
+ * </pre>
+ *
+ * The crop rectangle is page-normalized; 0, 0, 1, 1 is the whole page. A page that could not be
+ * rendered has zero width and height; its byteLength bytes still follow and must be skipped. The
+ * table comes before the payloads so a reader can slice every image out of the response without
+ * copying. Any status other than {@link #STATUS_OK} comes with an empty table.
+ */
+public final class RenderProtocol {
+    /** Raw RGBA, 8 bits per channel, rows packed without padding. */
+    public static final int FORMAT_RGBA = 0;
+    public static final int FORMAT_PNG = 1;
+
+    public static final int STATUS_OK = 0;
+    public static final int STATUS_BAD_REQUEST = 1;
+    public static final int STATUS_NO_DOCUMENT = 2;
+    public static final int STATUS_TOO_LARGE = 3;
+    public static final int STATUS_CLOSED = 4;
+
+    public static final int MAX_PAGES_PER_REQUEST = 64;
+    /** Upper bound of a whole response, to keep one batch from exhausting the heap. */
+    public static final long MAX_RESPONSE_BYTES = 64L * 1024 * 1024;
+
+    static final int REQUEST_HEADER_BYTES = 12;
+    static final int REQUEST_ENTRY_BYTES = 24;
+    static final int RESPONSE_HEADER_BYTES = 8;
+    static final int RESPONSE_ENTRY_BYTES = 16;
+
+    private RenderProtocol() {
+    }
+
+    public static final class Request {
+        public final int documentId;
+        public final int format;
+        public final List<RegionRequest> regions;
+
+        Request(int documentId, int format, List<RegionRequest> regions) {
+            this.documentId = documentId;
+            this.format = format;
+            this.regions = regions;
+        }
+    }
+
+    /** Parses a request, reading from the buffer's current position. */
+    public static Request parseRequest(ByteBuffer message) {
+        if (message == null || message.remaining() < REQUEST_HEADER_BYTES) {
+            throw new IllegalArgumentException("Truncated request");
+        }
+        ByteBuffer buffer = message.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int documentId = buffer.getInt();
+        int format = buffer.getInt();
+        int count = buffer.getInt();
+        if (format != FORMAT_RGBA && format != FORMAT_PNG) {
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+        if (count < 0 || count > MAX_PAGES_PER_REQUEST) {
+            throw new IllegalArgumentException("Page count " + count + " out of range");
+        }
+        if (buffer.remaining() < REQUEST_ENTRY_BYTES * count) {
+            throw new IllegalArgumentException("Truncated request");
+        }
+        List<RegionRequest> regions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            regions.add(new RegionRequest(buffer.getInt(), buffer.getFloat(),
+                    buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()));
+        }
+        return new Request(documentId, format, Collections.unmodifiableList(regions));
+    }
+
+    /** Returns the total size of a response whose payloads have these lengths. */
+    public static long responseSize(int[] byteLengths) {
+        long size = RESPONSE_HEADER_BYTES + (long) RESPONSE_ENTRY_BYTES * byteLengths.length;
+        for (int length : byteLengths) {
+            size += length;
+        }
+        return size;
+    }
+
+    /**
+     * Allocates a direct response buffer and writes the header and table. The buffer is
+     * positioned at the first payload; {@link #payloadOffset} gives the start of each one.
+     */
+    public static ByteBuffer allocateResponse(int status, int[] pageIndices, int[] widths, int[] heights,
+                                              int[] byteLengths) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) responseSize(byteLengths)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(status);
+        buffer.putInt(byteLengths.length);
+        for (int i = 0; i < byteLengths.length; i++) {
+            buffer.putInt(pageIndices[i]);
+            buffer.putInt(widths[i]);
+            buffer.putInt(heights[i]);
+            buffer.putInt(byteLengths[i]);
+        }
+        return buffer;
+    }
+
+    /** Returns where payload {@code index} starts in a response with these payload lengths. */
+    public static int payloadOffset(int[] byteLengths, int index) {
+        int offset = RESPONSE_HEADER_BYTES + RESPONSE_ENTRY_BYTES * byteLengths.length;
+        for (int i = 0; i < index; i++) {
+            offset += byteLengths[i];
+        }
+        return offset;
+    }
+
+    /** Returns a response carrying only a status. */
+    public static ByteBuffer errorResponse(int status) {
+        return allocateResponse(status, new int[0], new int[0], new int[0], new int[0]);
+    }
+}
@@ -0,0 +1,185 @@
+package com.ahmed.pdfx.pdfreadx.export;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.ahmed.pdfx.pdfreadx.cache.BitmapPool;
+import com.ahmed.pdfx.pdfreadx.cache.MemoryGovernor;
+import com.ahmed.pdfx.pdfreadx.render.PageLevels;
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+import com.ahmed.pdfx.pdfreadx.render.RegionRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * Writes a range of pages of a document to image files as a pipeline: the engine renders each
+ * page at the export resolution, a pool of encoders compresses the renderings in parallel, and
+ * each is streamed straight into its file. Only {@link MemoryGovernor#getExportDepth} pages are
+ * between render and written at any time, and the next page is rendered once one is written, so
+ * memory stays flat however long the document is.
+ *
+ * Files are named after the page number, {@code page-0001.png} and so on, and are written under
+ * a temporary name first, so every file that exists is complete. Pages larger than the engine's
+ * level limit at the requested resolution are exported at the largest scale that fits it. All
+ * methods and listener calls are on the main thread.
+ */
+public class DocumentExport {
+    /** PDF page sizes are in points, 72 to the inch. */
+    private static final float POINTS_PER_INCH = 72f;
+
+    public enum Format {
+        PNG("png"),
+        /** Lossless at quality 100 from Android 11 on, lossy otherwise. */
+        WEBP("webp");
+
+        final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        @SuppressWarnings("deprecation")
+        Bitmap.CompressFormat compressFormat(int quality) {
+            if (this == PNG) {
+                return Bitmap.CompressFormat.PNG;
+            }
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+                return Bitmap.CompressFormat.WEBP;
+            }
+            return quality >= 100 ? Bitmap.CompressFormat.WEBP_LOSSLESS : Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+    }
+
+    public enum Outcome {
+        COMPLETED, CANCELLED, FAILED
+    }
+
+    public interface Listener {
+        /** Called once page {@code page} is in {@code file}; {@code done} of {@code total} are. */
+        void onPageWritten(int page, File file, int done, int total);
+
+        /** Called once at the end; {@code error} says what failed, and is null otherwise. */
+        void onFinished(Outcome outcome, Exception error, int done, int total);
+    }
+
+    private final PdfRenderEngine engine;
+    private final MemoryGovernor governor;
+    private final BitmapPool bitmapPool;
+    private final int firstPage;
+    private final int lastPage;
+    private final float scale;
+    private final Format format;
+    private final int quality;
+    private final File directory;
+    private final ExportPipeline<Bitmap> pipeline;
+
+    /** Exports pages {@code firstPage} to {@code lastPage}, both included, at {@code dpi}. */
+    public DocumentExport(PdfRenderEngine engine, MemoryGovernor governor, int firstPage, int lastPage,
+                          float dpi, Format format, int quality, File directory, Listener listener) {
+        if (firstPage < 0 || lastPage >= engine.getPageCount() || firstPage > lastPage) {
+            throw new IllegalArgumentException("No pages " + firstPage + " to " + lastPage);
+        }
+        if (dpi <= 0f) {
+            throw new IllegalArgumentException("dpi must be positive");
+        }
+        this.engine = engine;
+        this.governor = governor;
+        this.bitmapPool = governor.getCaches().bitmapPool;
+        this.firstPage = firstPage;
+        this.lastPage = lastPage;
+        this.scale = dpi / POINTS_PER_INCH;
+        this.format = format;
+        this.quality = Math.max(0, Math.min(100, quality));
+        this.directory = directory;
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        this.pipeline = new ExportPipeline<>(firstPage, lastPage, format.extension, directory, new Stages(),
+                mainHandler::post, listener);
+    }
+
+    public int getTotal() {
+        return pipeline.getTotal();
+    }
+
+    /** Measures the pages, then starts the pipeline. */
+    public void start() {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            pipeline.fail(new IOException("Cannot create " + directory));
+            return;
+        }
+        engine.measurePages(this::startPipeline,
+                () -> pipeline.fail(new IllegalStateException("Renderer closed")));
+    }
+
+    /**
+     * Stops rendering and writing further pages; the listener is told once the pages in flight
+     * are dropped. Files already written stay; pages still encoding are not written.
+     */
+    public void cancel() {
+        pipeline.cancel();
+    }
+
+    private void startPipeline() {
+        long largest = 0;
+        for (int page = firstPage; page <= lastPage; page++) {
+            float pageScale = scaleFor(page);
+            largest = Math.max(largest, (long) Math.round(engine.getPageWidth(page) * pageScale)
+                    * Math.round(engine.getPageHeight(page) * pageScale) * 4);
+        }
+        pipeline.start(governor.getExportDepth(largest));
+    }
+
+    /** The export scale, or the largest below it within the engine's level limit. */
+    private float scaleFor(int page) {
+        int longest = Math.max(engine.getPageWidth(page), engine.getPageHeight(page));
+        return longest > 0 ? Math.min(scale, (float) PageLevels.MAX_LEVEL_DIMENSION / longest) : scale;
+    }
+
+    /** Renders pages on the engine below its prefetching, and compresses them as {@link #format}. */
+    private final class Stages implements ExportPipeline.Stages<Bitmap> {
+        @Override
+        public void render(int page, Consumer<Bitmap> rendered) {
+            boolean[] delivered = {false};
+            RegionRequest request = new RegionRequest(page, scaleFor(page), 0f, 0f, 1f, 1f);
+            engine.renderBatch(PdfRenderEngine.PRIORITY_PERSIST, Collections.singletonList(request),
+                    new PdfRenderEngine.BatchSink() {
+                        @Override
+                        public boolean onStart() {
+                            return true;
+                        }
+
+                        @Override
+                        public void onRendered(int request, Bitmap bitmap) {
+                            if (bitmap == null) {
+                                return;
+                            }
+                            // The engine releases its reference after this call; the pipeline holds its own.
+                            bitmapPool.retain(bitmap);
+                            delivered[0] = true;
+                            rendered.accept(bitmap);
+                        }
+                    }, () -> {
+                        if (!delivered[0]) {
+                            rendered.accept(null);
+                        }
+                    });
+        }
+
+        @Override
+        public void encode(int page, Bitmap bitmap, OutputStream out) throws IOException {
+            if (!bitmap.compress(format.compressFormat(quality), quality, out)) {
+                throw new IOException("Cannot encode page " + (page + 1));
+            }
+        }
+
+        @Override
+        public void release(Bitmap bitmap) {
+            bitmapPool.release(bitmap);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.ahmed.pdfx.pdfreadx.export;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The flow control of a {@link DocumentExport}, independent of what renders and encodes the
+ * pages: renders pages in order while fewer than the depth are between render and written,
+ * writes each rendering on its own pool of encoder threads, and reports progress and the
+ * outcome. Methods and listener calls are on the thread {@code mainThread} runs tasks on.
+ *
+ * @param <T> what pages render into
+ */
+final class ExportPipeline<T> {
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    interface Stages<T> {
+        /**
+         * Starts rendering {@code page} and passes the rendering, owned by the pipeline, or null if
+         * it failed, to {@code rendered} on any thread.
+         */
+        void render(int page, Consumer<T> rendered);
+
+        /** Compresses a rendering into {@code out}; called on an encoder thread. */
+        void encode(int page, T rendering, OutputStream out) throws IOException;
+
+        /** Gives back a rendering once it is written or dropped; called on an encoder thread. */
+        void release(T rendering);
+    }
+
+    private final int firstPage;
+    private final int lastPage;
+    private final String extension;
+    private final File directory;
+    private final Stages<T> stages;
+    private final Executor mainThread;
+    private final DocumentExport.Listener listener;
+    private ExecutorService encoders;
+    private int depth;
+    private int nextPage;
+    private int inFlight;
+    private int done;
+    private Exception failure;
+    private volatile boolean cancelled;
+    private boolean finished;
+
+    ExportPipeline(int firstPage, int lastPage, String extension, File directory, Stages<T> stages,
+                   Executor mainThread, DocumentExport.Listener listener) {
+        this.firstPage = firstPage;
+        this.lastPage = lastPage;
+        this.extension = extension;
+        this.directory = directory;
+        this.stages = stages;
+        this.mainThread = mainThread;
+        this.listener = listener;
+        this.nextPage = firstPage;
+    }
+
+    int getTotal() {
+        return lastPage - firstPage + 1;
+    }
+
+    /** Starts rendering with at most {@code depth} pages in flight, unless it already finished. */
+    void start(int depth) {
+        if (finished) {
+            return;
+        }
+        this.depth = Math.max(1, depth);
+        encoders = Executors.newFixedThreadPool(this.depth, r -> {
+            Thread thread = new Thread(r, "pdfreadx-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fill();
+    }
+
+    /** See {@link DocumentExport#cancel}. */
+    void cancel() {
+        if (finished) {
+            return;
+        }
+        cancelled = true;
+        if (inFlight == 0) {
+            finish(DocumentExport.Outcome.CANCELLED, null);
+        }
+    }
+
+    /** Ends the export before it started. */
+    void fail(Exception error) {
+        finish(DocumentExport.Outcome.FAILED, error);
+    }
+
+    /** Renders more pages while there is room in the pipeline, or finishes once it is empty. */
+    private void fill() {
+        while (!cancelled && failure == null && inFlight < depth && nextPage <= lastPage) {
+            inFlight++;
+            render(nextPage++);
+        }
+        if (inFlight > 0) {
+            return;
+        }
+        if (failure != null) {
+            finish(DocumentExport.Outcome.FAILED, failure);
+        } else if (cancelled) {
+            finish(DocumentExport.Outcome.CANCELLED, null);
+        } else {
+            finish(DocumentExport.Outcome.COMPLETED, null);
+        }
+    }
+
+    private void render(int page) {
+        stages.render(page, rendering -> {
+            if (rendering == null) {
+                mainThread.execute(() -> onPageDone(page, null, new IOException("Cannot render page " + (page + 1))));
+            } else {
+                encoders.execute(() -> writeOnEncoder(page, rendering));
+            }
+        });
+    }
+
+    /** Writes a page under a temporary name and renames it unless the export was cancelled meanwhile. */
+    private void writeOnEncoder(int page, T rendering) {
+        File file = new File(directory, String.format(Locale.US, "page-%04d.%s", page + 1, extension));
+        File temporary = new File(directory, file.getName() + ".tmp");
+        IOException error = null;
+        try {
+            if (!cancelled) {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temporary), WRITE_BUFFER_BYTES)) {
+                    stages.encode(page, rendering, out);
+                }
+                if (cancelled) {
+                    temporary.delete();
+                } else if (!temporary.renameTo(file)) {
+                    throw new IOException("Cannot write " + file);
+                }
+            }
+        } catch (IOException e) {
+            temporary.delete();
+            error = e;
+        } finally {
+            stages.release(rendering);
+        }
+        IOException written = error;
+        mainThread.execute(() -> onPageDone(page, file, written));
+    }
+
+    private void onPageDone(int page, File file, Exception error) {
+        inFlight--;
+        if (error != null) {
+            if (failure == null) {
+                failure = error;
+            }
+        } else if (!cancelled && failure == null) {
+            done++;
+            listener.onPageWritten(page, file, done, getTotal());
+        }
+        fill();
+    }
+
+    private void finish(DocumentExport.Outcome outcome, Exception error) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (encoders != null) {
+            encoders.shutdown();
+        }
+        listener.onFinished(outcome, error, done, getTotal());
+    }
+}
@@ -0,0 +1,76 @@
+package com.ahmed.pdfx.pdfreadx.metrics;
+
+import android.view.Choreographer;
+import android.view.MotionEvent;
+
+/**
+ * Measures the frame intervals of a screen through {@link Choreographer} callbacks and records
+ * them in {@link RenderMetrics}, separately for frames during a touch gesture and the
+ * {@link #GESTURE_SETTLE_NANOS} after it, which covers the fling that usually follows.
+ * Must be used on the main thread.
+ */
+public class FrameMonitor implements Choreographer.FrameCallback {
+    static final long GESTURE_SETTLE_NANOS = 300_000_000L;
+
+    private final RenderMetrics metrics;
+    private final long refreshNanos;
+    private boolean running;
+    private long lastFrameNanos;
+    private boolean touching;
+    private long gestureEndNanos;
+
+    /** Monitors a display that refreshes {@code refreshRate} times a second. */
+    public FrameMonitor(float refreshRate) {
+        this(RenderMetrics.getInstance(), refreshRate);
+    }
+
+    FrameMonitor(RenderMetrics metrics, float refreshRate) {
+        this.metrics = metrics;
+        this.refreshNanos = (long) (1_000_000_000L / (refreshRate > 0 ? refreshRate : 60f));
+    }
+
+    public void start() {
+        if (!running) {
+            running = true;
+            lastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    public void stop() {
+        if (running) {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    /** Feeds every touch event of the screen so frames can be attributed to gestures. */
+    public void onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                touching = true;
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                touching = false;
+                gestureEndNanos = System.nanoTime();
+                break;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            metrics.recordFrame(frameTimeNanos - lastFrameNanos, refreshNanos, inGesture(frameTimeNanos));
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    boolean inGesture(long frameTimeNanos) {
+        return touching || (gestureEndNanos != 0 && frameTimeNanos - gestureEndNanos < GESTURE_SETTLE_NANOS);
+    }
+}
@@ -0,0 +1,109 @@
+package com.ahmed.pdfx.pdfreadx.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations over power-of-two millisecond buckets, cheap enough to record
+ * every render. Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+    /** Inclusive upper bounds of the buckets in milliseconds; a last bucket takes the rest. */
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(nanos));
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        count.incrementAndGet();
+    }
+
+    static int bucketOf(long nanos) {
+        double millis = nanos / 1e6;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (millis <= BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the upper bound in milliseconds of the bucket holding the {@code quantile}
+     * (0..1) of recorded durations, the maximum for the last bucket, or 0 when empty.
+     */
+    public double percentileMillis(double quantile) {
+        long total = 0;
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return maxNanos.get() / 1e6;
+    }
+
+    /** Returns the counts and summary statistics in types the standard message codec carries. */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        long samples = count.get();
+        snapshot.put("count", samples);
+        snapshot.put("meanMs", samples != 0 ? totalNanos.get() / 1e6 / samples : 0d);
+        snapshot.put("maxMs", maxNanos.get() / 1e6);
+        snapshot.put("p50Ms", percentileMillis(0.5));
+        snapshot.put("p90Ms", percentileMillis(0.9));
+        snapshot.put("p99Ms", percentileMillis(0.99));
+        List<Long> bounds = new ArrayList<>(BUCKET_BOUNDS_MS.length);
+        for (long bound : BUCKET_BOUNDS_MS) {
+            bounds.add(bound);
+        }
+        List<Long> counts = new ArrayList<>(buckets.length());
+        for (int i = 0; i < buckets.length(); i++) {
+            counts.add(buckets.get(i));
+        }
+        snapshot.put("bucketBoundsMs", bounds);
+        snapshot.put("bucketCounts", counts);
+        return snapshot;
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram[count=%d,p50=%.0fms,p99=%.0fms,max=%dms]",
+                count.get(), percentileMillis(0.5), percentileMillis(0.99),
+                TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+    }
+}
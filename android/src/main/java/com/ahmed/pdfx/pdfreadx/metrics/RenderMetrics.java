@@ -0,0 +1,167 @@
+package com.ahmed.pdfx.pdfreadx.metrics;
+
+import com.ahmed.pdfx.pdfreadx.cache.BitmapPool;
+import com.ahmed.pdfx.pdfreadx.cache.LruMemoryCache;
+import com.ahmed.pdfx.pdfreadx.cache.MemoryGovernor;
+import com.ahmed.pdfx.pdfreadx.cache.RenderCaches;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide performance counters of the viewer: how long documents take to open, viewers take
+ * to show their first page and pages take to open and render, how often a render falls back to
+ * half resolution, and how many frames are late, overall and while a gesture is in progress.
+ * The render workers' total busy time shows how well they overlap: between two snapshots it
+ * grows by up to the worker count times the wall time. Recording is lock-free and safe from any
+ * thread; {@link #snapshot} adds the current cache and bitmap memory figures.
+ */
+public final class RenderMetrics {
+    /** A frame this many times longer than the refresh interval counts as janky. */
+    static final float JANK_FACTOR = 1.5f;
+
+    private static final RenderMetrics INSTANCE = new RenderMetrics();
+
+    private final LatencyHistogram documentOpen = new LatencyHistogram();
+    private final LatencyHistogram firstPage = new LatencyHistogram();
+    private final LatencyHistogram pageOpen = new LatencyHistogram();
+    private final LatencyHistogram render = new LatencyHistogram();
+    private final AtomicLong renderBusyNanos = new AtomicLong();
+    private final AtomicLong fallbackRenders = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong jankyFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong gestureFrames = new AtomicLong();
+    private final AtomicLong gestureJankyFrames = new AtomicLong();
+    private final AtomicLong gestureDroppedFrames = new AtomicLong();
+
+    public static RenderMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    RenderMetrics() {
+    }
+
+    /** Records the time to open a document and read its page count. */
+    public void recordDocumentOpen(long nanos) {
+        documentOpen.record(nanos);
+    }
+
+    /**
+     * Records the time from creating a viewer to the first page on its screen, stored or
+     * rendered.
+     */
+    public void recordFirstPage(long nanos) {
+        firstPage.record(nanos);
+    }
+
+    public void recordPageOpen(long nanos) {
+        pageOpen.record(nanos);
+    }
+
+    /** Records one render on a worker, which was busy with it for {@code nanos}. */
+    public void recordRender(long nanos) {
+        render.record(nanos);
+        renderBusyNanos.addAndGet(nanos);
+    }
+
+    /** Counts a page rendered at half resolution because the full-size bitmap did not fit. */
+    public void recordFallbackRender() {
+        fallbackRenders.incrementAndGet();
+    }
+
+    /**
+     * Records one frame that took {@code intervalNanos} since the previous one on a display
+     * refreshing every {@code refreshNanos}. Each whole refresh interval beyond the first
+     * counts as a dropped frame.
+     */
+    public void recordFrame(long intervalNanos, long refreshNanos, boolean inGesture) {
+        boolean janky = intervalNanos > refreshNanos * JANK_FACTOR;
+        long dropped = Math.max(0, Math.round((double) intervalNanos / refreshNanos) - 1);
+        frames.incrementAndGet();
+        if (janky) {
+            jankyFrames.incrementAndGet();
+        }
+        droppedFrames.addAndGet(dropped);
+        if (inGesture) {
+            gestureFrames.incrementAndGet();
+            if (janky) {
+                gestureJankyFrames.incrementAndGet();
+            }
+            gestureDroppedFrames.addAndGet(dropped);
+        }
+    }
+
+    /**
+     * Returns every counter, plus the memory usage and cache statistics of {@code governor} if
+     * it is not null, as maps and numbers the standard message codec carries.
+     */
+    public Map<String, Object> snapshot(MemoryGovernor governor) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("timestampMs", System.currentTimeMillis());
+        snapshot.put("documentOpen", documentOpen.snapshot());
+        snapshot.put("firstPage", firstPage.snapshot());
+        snapshot.put("pageOpen", pageOpen.snapshot());
+        snapshot.put("render", render.snapshot());
+        snapshot.put("renderBusyMs", renderBusyNanos.get() / 1e6);
+        snapshot.put("fallbackRenders", fallbackRenders.get());
+
+        Map<String, Object> frameStats = new LinkedHashMap<>();
+        frameStats.put("total", frames.get());
+        frameStats.put("janky", jankyFrames.get());
+        frameStats.put("dropped", droppedFrames.get());
+        frameStats.put("gestureTotal", gestureFrames.get());
+        frameStats.put("gestureJanky", gestureJankyFrames.get());
+        frameStats.put("gestureDropped", gestureDroppedFrames.get());
+        snapshot.put("frames", frameStats);
+
+        if (governor != null) {
+            RenderCaches caches = governor.getCaches();
+            snapshot.put("memory", governor.getUsage());
+            Map<String, Object> cacheStats = new LinkedHashMap<>();
+            cacheStats.put("pages", cacheStats(caches.pages));
+            cacheStats.put("tiles", cacheStats(caches.tiles));
+            cacheStats.put("thumbnails", cacheStats(caches.thumbnails));
+            cacheStats.put("bitmapPool", poolStats(caches.bitmapPool));
+            snapshot.put("caches", cacheStats);
+        }
+        return snapshot;
+    }
+
+    private static Map<String, Object> cacheStats(LruMemoryCache<?, ?> cache) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bytes", cache.size());
+        stats.put("maxBytes", cache.maxSize());
+        stats.put("entries", cache.count());
+        stats.put("hits", cache.hitCount());
+        stats.put("misses", cache.missCount());
+        stats.put("evictions", cache.evictionCount());
+        return stats;
+    }
+
+    private static Map<String, Object> poolStats(BitmapPool pool) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bytes", pool.size());
+        stats.put("liveBytes", pool.liveSize());
+        stats.put("hits", pool.hitCount());
+        stats.put("misses", pool.missCount());
+        return stats;
+    }
+
+    /** Clears every counter, e.g. after the values have been shipped somewhere. */
+    public void reset() {
+        documentOpen.reset();
+        firstPage.reset();
+        pageOpen.reset();
+        render.reset();
+        renderBusyNanos.set(0);
+        fallbackRenders.set(0);
+        frames.set(0);
+        jankyFrames.set(0);
+        droppedFrames.set(0);
+        gestureFrames.set(0);
+        gestureJankyFrames.set(0);
+        gestureDroppedFrames.set(0);
+    }
+}
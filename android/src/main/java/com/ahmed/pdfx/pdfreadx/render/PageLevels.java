@@ -0,0 +1,60 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+/**
+ * Picks the power-of-two scales, in pixels per PDF point, at which whole pages are rendered and
+ * cached. A page is rendered at one normal level that fits the screen, and at sharper levels
+ * while zooming until {@link #MAX_LEVEL_DIMENSION}, beyond which tiles take over.
+ */
+public final class PageLevels {
+    /** Whole-page levels are capped at this size on their longest side; beyond it, use tiles. */
+    public static final int MAX_LEVEL_DIMENSION = 4096;
+    static final int MIN_LEVEL_EXPONENT = -8;
+    static final int MAX_LEVEL_EXPONENT = 4;
+
+    private PageLevels() {
+    }
+
+    /**
+     * Picks the power-of-two scale at which a page of {@code width} x {@code height} points fits
+     * the requested box: downsampled like {@link #calculateSampleSize} when the page is larger,
+     * and upscaled while twice the scale still fits when it is smaller.
+     */
+    public static float baseScale(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = calculateSampleSize(width, height, reqWidth, reqHeight);
+        if (sampleSize > 1) {
+            return 1f / sampleSize;
+        }
+        float scale = 1f;
+        while (width * scale * 2 <= reqWidth && height * scale * 2 <= reqHeight
+                && Math.max(width, height) * scale * 2 <= MAX_LEVEL_DIMENSION) {
+            scale *= 2;
+        }
+        return scale;
+    }
+
+    public static int calculateSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if (height > reqHeight || width > reqWidth) {
+            final int halfHeight = height / 2;
+            final int halfWidth = width / 2;
+
+            while ((halfHeight / sampleSize) >= reqHeight
+                    && (halfWidth / sampleSize) >= reqWidth) {
+                sampleSize *= 2;
+            }
+        }
+
+        return sampleSize;
+    }
+
+    /** Returns the smallest level that fills the box, capped at the level size limit. */
+    public static float fittingLevel(int width, int height, int maxWidth, int maxHeight) {
+        float fit = Math.min((float) maxWidth / width, (float) maxHeight / height);
+        float scale = TilePlanner.quantizeScale(fit);
+        while (Math.max(width, height) * scale > MAX_LEVEL_DIMENSION
+                && scale > Math.pow(2, MIN_LEVEL_EXPONENT)) {
+            scale /= 2;
+        }
+        return scale;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A document whose pages can be measured and rendered, independent of the backend doing it.
+ * {@link PdfRendererPageSource} renders with the platform's {@code PdfRenderer} into bitmaps;
+ * {@link SyntheticPageSource} draws generated pages into pixel arrays on any JVM.
+ *
+ * Like {@code PdfRenderer}, a source has at most one page open at a time and is used by one
+ * thread at a time. Workers that render concurrently each open a source of their own from the
+ * same {@link Factory}.
+ *
+ * @param <T> what pages render into
+ */
+public interface PageSource<T> extends Closeable {
+
+    int getPageCount();
+
+    /** Opens page {@code index}, which must be closed before the next one is opened. */
+    Page<T> openPage(int index);
+
+    @Override
+    void close();
+
+    interface Page<T> extends AutoCloseable {
+        /** The width of the page in PDF points. */
+        int getWidth();
+
+        /** The height of the page in PDF points. */
+        int getHeight();
+
+        /**
+         * Draws the page scaled by {@code scaleX} x {@code scaleY} pixels per point into the
+         * {@code width} x {@code height} pixels of {@code target}, shifted so the scaled page's
+         * pixel ({@code x}, {@code y}) lands on the target's origin. Pixels the page does not
+         * cover are left as they are.
+         */
+        void render(T target, int width, int height, float scaleX, float scaleY, int x, int y);
+
+        /** Returns the text of the page in reading order, or null if the backend cannot extract text. */
+        String getText();
+
+        /**
+         * Returns where {@code query} occurs on the page, ignoring case, as left, top, right,
+         * bottom quadruples in points, or null if the backend cannot search.
+         */
+        float[] findText(String query);
+
+        @Override
+        void close();
+    }
+
+    /** Opens independent sources of one document and owns what they share. */
+    interface Factory<T> extends Closeable {
+        PageSource<T> open() throws IOException;
+
+        /** Releases the document; call once every source opened from it is closed. */
+        @Override
+        void close();
+    }
+}
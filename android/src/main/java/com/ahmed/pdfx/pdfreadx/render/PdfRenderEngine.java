@@ -0,0 +1,1398 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import com.ahmed.pdfx.pdfreadx.cache.BitmapPool;
+import com.ahmed.pdfx.pdfreadx.cache.DiskPageCache;
+import com.ahmed.pdfx.pdfreadx.cache.DocumentFingerprint;
+import com.ahmed.pdfx.pdfreadx.cache.LruMemoryCache;
+import com.ahmed.pdfx.pdfreadx.cache.PageKey;
+import com.ahmed.pdfx.pdfreadx.cache.PageMetadata;
+import com.ahmed.pdfx.pdfreadx.cache.PageMetadataStore;
+import com.ahmed.pdfx.pdfreadx.cache.RenderCaches;
+import com.ahmed.pdfx.pdfreadx.cache.TileKey;
+import com.ahmed.pdfx.pdfreadx.metrics.RenderMetrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Renders pages of a document off the UI thread on a small pool of workers. A {@link PageSource}
+ * can only have one page open at a time, so every worker renders with a source of its own,
+ * opened from the document's {@link PageSource.Factory} the first time the worker needs it; for
+ * {@code PdfRenderer} that is a duplicate of the document's file descriptor.
+ * {@link #setRenderWorkerCount} sizes the {@link RenderExecutor}; queued work is taken by
+ * priority, visible first.
+ *
+ * Viewers request pages through a {@link Client} of their own from {@link #openClient}, which
+ * keeps their tickets, the bitmaps they show and their prefetch window apart, so several viewers
+ * can share one engine and its caches. Page requests are latest-wins per client: every call to
+ * {@link Client#requestPage} supersedes the previous one, so jobs queued during rapid navigation
+ * are dropped before they open a page and results that finish late are never delivered.
+ * Callbacks always run on the main thread.
+ *
+ * Pages are rendered as a pyramid of power-of-two scales (pixels per PDF point). A page request
+ * first shows whatever level of the page is already cached, or else a quick preview at 1/8 of the
+ * normal scale, and then delivers the normal level. {@link Client#requestLevel} adds sharper
+ * levels while zooming, and {@link #deliverCachedLevel} switches instantly to one that is already
+ * cached.
+ * Every level goes into a shared {@link LruMemoryCache}. After each page change the engine
+ * pre-renders the neighbors inside the prefetch window at a lower priority than visible work,
+ * so flipping back and forth inside that window is served straight from the cache.
+ *
+ * For continuous scrolling, {@link Client#requestStripPage} renders the pages of a list
+ * independently: each page has its own ticket, so binding one page never drops the render of
+ * another, and {@link Client#cancelStripPage} drops a page once its view is recycled.
+ * {@link #measurePages} reads every page size up front so the list can lay out placeholders
+ * before anything is rendered.
+ *
+ * Thumbnails are rendered straight at thumbnail size by {@link Client#requestThumbnail} into
+ * their own small cache, ahead of prefetch work but behind anything on screen. Like list pages they have
+ * per-page tickets, so a grid can cancel thumbnails that scrolled away before they are rendered.
+ *
+ * {@link #requestRegion} serves callers that draw elsewhere, such as Flutter textures: it renders
+ * a whole page or any part of it to fit a box and always calls back, never superseded.
+ * {@link #renderBatch} renders several regions at exact scales and hands the bitmaps to a sink on
+ * the workers, so callers can copy the pixels out without another thread hop.
+ *
+ * For deeper zoom, {@link Client#requestTiles} renders only the tiles of a page that cover the
+ * visible viewport, at a power-of-two scale, into a separate tile cache. Memory then scales with the
+ * screen area rather than with the page area times the zoom.
+ *
+ * {@link #readText} extracts the text of a page behind all other work, for background indexing,
+ * and {@link #findText} locates a query on a page for highlighting.
+ *
+ * With a {@link DiskPageCache}, normal levels and thumbnails are also stored on disk under the
+ * document's {@link DocumentFingerprint}, written at the lowest priority once delivered. After a
+ * reopen they are read back instead of rendered, and a stored page skips its preview. With a
+ * {@link PageMetadataStore}, the page sizes are measured behind all rendering and stored the same
+ * way, so a reopened document knows its whole layout before any page is opened.
+ *
+ * Bitmaps come from a {@link BitmapPool} and are reference counted there: each cache entry holds
+ * one reference, a pending delivery holds one until its callback returns, and whatever is passed
+ * to {@link Client#setDisplayedBitmap} or {@link Client#setDisplayedTiles} holds one until it is
+ * replaced.
+ */
+public class PdfRenderEngine {
+    private static final String TAG = "PdfRenderEngine";
+
+    /** Queued work runs most urgent first; {@link #renderBatch} callers pick their priority. */
+    public static final int PRIORITY_VISIBLE = 0;
+    public static final int PRIORITY_THUMBNAIL = 1;
+    public static final int PRIORITY_PREFETCH = 2;
+    public static final int PRIORITY_PERSIST = 3;
+    public static final int PRIORITY_INDEX = 4;
+
+    /** The preview level is this many times smaller than the normal level. */
+    static final int PREVIEW_DOWNSCALE = 8;
+
+    public interface PageCallback {
+        /**
+         * Called with a rendering of {@code index}; progressive requests call it once per level,
+         * from lowest to highest resolution.
+         */
+        void onPageRendered(int index, Bitmap bitmap);
+        void onPageFailed(int index, Exception e);
+    }
+
+    public interface ThumbnailCallback {
+        /** Called on the main thread; the bitmap is only guaranteed to stay intact meanwhile. */
+        void onThumbnailRendered(int index, Bitmap bitmap);
+    }
+
+    public interface EncodedThumbnailsCallback {
+        /** Called on the main thread with PNG bytes by page index, in the order requested. */
+        void onThumbnailsEncoded(Map<Integer, byte[]> thumbnails);
+    }
+
+    public interface BatchSink {
+        /**
+         * Called on a worker once every page of the batch has a known size, before any render.
+         * Returns false to complete the batch without rendering it.
+         */
+        boolean onStart();
+
+        /**
+         * Called on a worker with the rendering of request {@code request}, or with null if it
+         * failed or is not renderable. Requests finish in any order but the calls never overlap.
+         * The bitmap is only valid during the call.
+         */
+        void onRendered(int request, Bitmap bitmap);
+    }
+
+    public interface TextSink {
+        /**
+         * Called on a worker with the text of page {@code index}, empty if it could not be read,
+         * or null if the backend cannot extract text.
+         */
+        void onPageText(int index, String text);
+    }
+
+    public interface TextBoundsCallback {
+        /**
+         * Called on the main thread with the bounds of every match on page {@code index} as
+         * left, top, right, bottom quadruples normalized to the page, or null if the backend
+         * cannot search.
+         */
+        void onTextBounds(int index, float[] bounds);
+    }
+
+    public interface TileCallback {
+        /** Called with every tile that is ready so far; later calls supersede earlier ones. */
+        void onTilesRendered(int index, float scale, List<Tile> tiles);
+    }
+
+    private final RenderExecutor worker = new RenderExecutor("pdfreadx-render-",
+            this::returnRenderer, this::closeRenderers);
+    private final ThreadLocal<PageSource<Bitmap>> workerSources = new ThreadLocal<>();
+    private final PageSource.Factory<Bitmap> sourceFactory;
+    /** Every source opened so far; sources whose worker has exited wait in the spares. */
+    private final List<PageSource<Bitmap>> renderers = new ArrayList<>();
+    private final Deque<PageSource<Bitmap>> spareRenderers = new ArrayDeque<>();
+    private boolean renderersClosed = false;
+    private final Handler mainHandler;
+    /** The document file, for fingerprinting; null when rendering from another kind of source. */
+    private final ParcelFileDescriptor parcelFileDescriptor;
+    private final String documentId;
+    private final LruMemoryCache<PageKey, Bitmap> pageCache;
+    private final LruMemoryCache<TileKey, Bitmap> tileCache;
+    private final LruMemoryCache<PageKey, Bitmap> thumbnailCache;
+    private final BitmapPool bitmapPool;
+    private final DiskPageCache diskCache;
+    /** Computed on a worker on first use; null until then or if it cannot be computed. */
+    private String fingerprint;
+    private boolean fingerprintFailed = false;
+    private final Object fingerprintLock = new Object();
+    private final int pageCount;
+    private final int[] pageWidths;
+    private final int[] pageHeights;
+    private int measuredPageCount;
+    private volatile PageMetadataStore metadataStore;
+    private volatile boolean closed = false;
+    private final List<Client> clients = new ArrayList<>();
+
+    public PdfRenderEngine(ParcelFileDescriptor parcelFileDescriptor, String documentId,
+                           RenderCaches caches) throws IOException {
+        this(parcelFileDescriptor, documentId, caches, null);
+    }
+
+    /** Like the other constructor; {@code diskCache} may be null to keep renderings in memory only. */
+    public PdfRenderEngine(ParcelFileDescriptor parcelFileDescriptor, String documentId,
+                           RenderCaches caches, DiskPageCache diskCache) throws IOException {
+        this(new PdfRendererPageSource.Factory(parcelFileDescriptor), parcelFileDescriptor, documentId, caches, diskCache,
+                new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * Renders the pages of {@code sources}, which the engine closes when it is closed. Without a
+     * file descriptor to fingerprint the document, {@code diskCache} is not used.
+     */
+    public PdfRenderEngine(PageSource.Factory<Bitmap> sources, String documentId,
+                           RenderCaches caches, DiskPageCache diskCache) throws IOException {
+        this(sources, null, documentId, caches, diskCache, new Handler(Looper.getMainLooper()));
+    }
+
+    /** Renders {@code sources} in memory only and calls back through {@code mainHandler}, for tests. */
+    PdfRenderEngine(PageSource.Factory<Bitmap> sources, RenderCaches caches, Handler mainHandler) throws IOException {
+        this(sources, null, "test", caches, null, mainHandler);
+    }
+
+    private PdfRenderEngine(PageSource.Factory<Bitmap> sources, ParcelFileDescriptor parcelFileDescriptor,
+                            String documentId, RenderCaches caches, DiskPageCache diskCache,
+                            Handler mainHandler) throws IOException {
+        this.sourceFactory = sources;
+        this.mainHandler = mainHandler;
+        this.parcelFileDescriptor = parcelFileDescriptor;
+        PageSource<Bitmap> firstRenderer = sources.open();
+        this.renderers.add(firstRenderer);
+        this.spareRenderers.push(firstRenderer);
+        this.documentId = documentId;
+        this.pageCache = caches.pages;
+        this.tileCache = caches.tiles;
+        this.thumbnailCache = caches.thumbnails;
+        this.bitmapPool = caches.bitmapPool;
+        this.diskCache = diskCache;
+        this.pageCount = firstRenderer.getPageCount();
+        this.pageWidths = new int[pageCount];
+        this.pageHeights = new int[pageCount];
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public LruMemoryCache<PageKey, Bitmap> getPageCache() {
+        return pageCache;
+    }
+
+    /** Returns the width of a page in PDF points, or 0 if the page has not been opened yet. */
+    public synchronized int getPageWidth(int index) {
+        return pageWidths[index];
+    }
+
+    /** Returns the height of a page in PDF points, or 0 if the page has not been opened yet. */
+    public synchronized int getPageHeight(int index) {
+        return pageHeights[index];
+    }
+
+    /**
+     * Reads the size of every page not opened yet on the worker, then runs {@code onMeasured} on
+     * the main thread. Page sizes are needed to lay out a continuous list before rendering.
+     */
+    public void measurePages(Runnable onMeasured) {
+        measurePages(onMeasured, null);
+    }
+
+    /**
+     * Like {@link #measurePages(Runnable)}, but runs {@code onClosed} instead of
+     * {@code onMeasured} if the engine closes first, so the caller always hears back.
+     */
+    public void measurePages(Runnable onMeasured, Runnable onClosed) {
+        Runnable finish = () -> mainHandler.post(() -> {
+            if (!closed) {
+                onMeasured.run();
+            } else if (onClosed != null) {
+                onClosed.run();
+            }
+        });
+        if (closed || isMeasured()) {
+            finish.run();
+            return;
+        }
+        executeOrRun(PRIORITY_VISIBLE, () -> {
+            try {
+                for (int index = 0; index < pageCount && !closed; index++) {
+                    if (getPageWidth(index) == 0) {
+                        openPageOnWorker(index).close();
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to measure pages", e);
+            }
+            finish.run();
+        });
+    }
+
+    /**
+     * Renders thumbnails of {@code pages} and encodes them as PNG on the workers, one task per
+     * page so they spread over the pool, for callers that ship them elsewhere rather than draw
+     * them. Pages that are out of range or fail to render are left out of the result, as are all
+     * pages not encoded yet when the engine closes; the callback always runs on the main thread.
+     */
+    public void encodeThumbnails(int[] pages, int width, EncodedThumbnailsCallback callback) {
+        if (closed) {
+            mainHandler.post(() -> callback.onThumbnailsEncoded(new LinkedHashMap<>()));
+            return;
+        }
+        byte[][] encoded = new byte[pages.length][];
+        AtomicInteger remaining = new AtomicInteger(pages.length);
+        Runnable finish = () -> {
+            Map<Integer, byte[]> thumbnails = new LinkedHashMap<>();
+            for (int i = 0; i < pages.length; i++) {
+                if (encoded[i] != null) {
+                    thumbnails.put(pages[i], encoded[i]);
+                }
+            }
+            mainHandler.post(() -> callback.onThumbnailsEncoded(thumbnails));
+        };
+        if (pages.length == 0) {
+            finish.run();
+            return;
+        }
+        for (int i = 0; i < pages.length; i++) {
+            final int slot = i;
+            final int index = pages[i];
+            executeOrRun(PRIORITY_THUMBNAIL, () -> {
+                try {
+                    if (!closed && index >= 0 && index < pageCount) {
+                        Bitmap bitmap = obtainThumbnailOnWorker(index, width);
+                        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                        bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+                        bitmapPool.release(bitmap);
+                        encoded[slot] = stream.toByteArray();
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to encode thumbnail " + index, e);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        finish.run();
+                    }
+                }
+            });
+        }
+    }
+
+    /** Returns a thumbnail the caller owns one reference to, rendering and caching it if needed. */
+    private Bitmap obtainThumbnailOnWorker(int index, int width) {
+        int pageWidth = getPageWidth(index);
+        if (pageWidth > 0) {
+            Bitmap cached = getCachedRetained(thumbnailCache, new PageKey(documentId, index, (float) width / pageWidth));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+            float scale = (float) width / page.getWidth();
+            String entry = diskEntryOnWorker(index, 0f, width);
+            Bitmap bitmap = entry != null ? diskCache.get(entry, bitmapPool) : null;
+            if (bitmap == null) {
+                bitmap = renderBitmap(page, width, Math.round(page.getHeight() * scale));
+                persist(entry, bitmap);
+            }
+            PageKey key = new PageKey(documentId, index, scale);
+            bitmapPool.retain(bitmap);
+            if (!thumbnailCache.put(key, bitmap)) {
+                bitmapPool.release(bitmap);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Renders {@code region} of {@code index}, in page-normalized coordinates or null for the whole
+     * page, as large as fits {@code maxWidth} x {@code maxHeight}. Whole pages come from the pyramid
+     * at the first level at least that sharp; regions are rendered exactly and not cached. Unlike
+     * the other requests this one is never superseded: the callback always runs once, with
+     * {@link PageCallback#onPageFailed} if the engine is closed first.
+     */
+    public void requestRegion(int index, RectF region, int maxWidth, int maxHeight, PageCallback callback) {
+        if (closed || index < 0 || index >= pageCount || maxWidth <= 0 || maxHeight <= 0) {
+            callback.onPageFailed(index, new IllegalStateException(closed ? "Renderer closed" : "Invalid request"));
+            return;
+        }
+        final RectF bounds = region != null ? new RectF(region) : null;
+        if (bounds != null && (!bounds.intersect(0f, 0f, 1f, 1f) || bounds.isEmpty())) {
+            callback.onPageFailed(index, new IllegalArgumentException("Region outside the page"));
+            return;
+        }
+        execute(PRIORITY_VISIBLE, () -> {
+            if (closed) {
+                mainHandler.post(() -> callback.onPageFailed(index, new IllegalStateException("Renderer closed")));
+                return;
+            }
+            try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+                Bitmap bitmap = bounds == null
+                        ? obtainLevelOnWorker(page, index,
+                                PageLevels.fittingLevel(page.getWidth(), page.getHeight(), maxWidth, maxHeight))
+                        : renderRegion(page, bounds, maxWidth, maxHeight);
+                mainHandler.post(() -> {
+                    callback.onPageRendered(index, bitmap);
+                    bitmapPool.release(bitmap);
+                });
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to render page " + index, e);
+                mainHandler.post(() -> callback.onPageFailed(index, e));
+            }
+        });
+    }
+
+    /**
+     * Renders every request of {@code requests} at its exact scale on the workers, one task per
+     * request queued at {@code priority}, and passes each result to {@code sink} there.
+     * {@code onComplete} then runs on the main thread, also when the engine closes first;
+     * {@code sink.onStart} is not called in that case.
+     */
+    public void renderBatch(int priority, List<RegionRequest> requests, BatchSink sink, Runnable onComplete) {
+        if (closed) {
+            mainHandler.post(onComplete);
+            return;
+        }
+        // Callers on other threads can race close(); a rejected batch runs here and sees it closed.
+        executeOrRun(priority, () -> {
+            try {
+                if (closed) {
+                    mainHandler.post(onComplete);
+                    return;
+                }
+                for (RegionRequest request : requests) {
+                    if (request.pageIndex >= 0 && request.pageIndex < pageCount && getPageWidth(request.pageIndex) == 0) {
+                        openPageOnWorker(request.pageIndex).close();
+                    }
+                }
+                if (!sink.onStart()) {
+                    mainHandler.post(onComplete);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to render batch", e);
+                mainHandler.post(onComplete);
+                return;
+            }
+            if (requests.isEmpty()) {
+                mainHandler.post(onComplete);
+                return;
+            }
+            AtomicInteger remaining = new AtomicInteger(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                final int slot = i;
+                final RegionRequest request = requests.get(i);
+                executeOrRun(priority, () -> {
+                    try {
+                        if (!closed) {
+                            Bitmap bitmap = renderBatchItemOnWorker(request);
+                            try {
+                                synchronized (sink) {
+                                    sink.onRendered(slot, bitmap);
+                                }
+                            } finally {
+                                bitmapPool.release(bitmap);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Failed to render batch page " + request.pageIndex, e);
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) {
+                            mainHandler.post(onComplete);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /** Returns an owned rendering of {@code request}, or null if it cannot be rendered. */
+    private Bitmap renderBatchItemOnWorker(RegionRequest request) {
+        if (request.pageIndex < 0 || request.pageIndex >= pageCount) {
+            return null;
+        }
+        int width = getPageWidth(request.pageIndex);
+        int height = getPageHeight(request.pageIndex);
+        if (!request.isRenderable(width, height)) {
+            return null;
+        }
+        try (PageSource.Page<Bitmap> page = renderer().openPage(request.pageIndex)) {
+            return renderWindow(page, request.scale, request.pixelX(width), request.pixelY(height),
+                    request.pixelWidth(width), request.pixelHeight(height));
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to render page " + request.pageIndex, e);
+            return null;
+        }
+    }
+
+    private Bitmap renderRegion(PageSource.Page<Bitmap> page, RectF region, int maxWidth, int maxHeight) {
+        float regionWidth = page.getWidth() * region.width();
+        float regionHeight = page.getHeight() * region.height();
+        float scale = Math.min(maxWidth / regionWidth, maxHeight / regionHeight);
+        scale = Math.min(scale, PageLevels.MAX_LEVEL_DIMENSION / Math.max(regionWidth, regionHeight));
+        return renderWindow(page, scale,
+                Math.round(region.left * page.getWidth() * scale), Math.round(region.top * page.getHeight() * scale),
+                Math.max(1, Math.round(regionWidth * scale)), Math.max(1, Math.round(regionHeight * scale)));
+    }
+
+    /** Reads the text of page {@code index} once nothing else is queued; dropped once closed. */
+    public void readText(int index, TextSink sink) {
+        execute(PRIORITY_INDEX, () -> {
+            if (closed) {
+                return;
+            }
+            String text;
+            try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+                text = page.getText();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Cannot read the text of page " + index, e);
+                text = "";
+            }
+            sink.onPageText(index, text);
+        });
+    }
+
+    /**
+     * Finds {@code query} on page {@code index}, ahead of prefetching. Always calls back once, with
+     * no bounds if the engine closes first.
+     */
+    public void findText(int index, String query, TextBoundsCallback callback) {
+        if (closed) {
+            mainHandler.post(() -> callback.onTextBounds(index, new float[0]));
+            return;
+        }
+        executeOrRun(PRIORITY_THUMBNAIL, () -> {
+            float[] bounds;
+            if (closed) {
+                bounds = new float[0];
+            } else {
+                try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+                    bounds = page.findText(query);
+                    if (bounds != null) {
+                        for (int i = 0; i < bounds.length; i += 2) {
+                            bounds[i] /= page.getWidth();
+                            bounds[i + 1] /= page.getHeight();
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Cannot search page " + index, e);
+                    bounds = new float[0];
+                }
+            }
+            float[] found = bounds;
+            mainHandler.post(() -> callback.onTextBounds(index, found));
+        });
+    }
+
+    /**
+     * Reads the page sizes of the document from {@code store} if they were stored before, or else
+     * measures the pages one at a time behind all rendering and stores them once all are known.
+     * Does nothing for a document without a file to fingerprint.
+     */
+    public void setMetadataStore(PageMetadataStore store) {
+        if (closed || parcelFileDescriptor == null) {
+            return;
+        }
+        metadataStore = store;
+        try {
+            execute(PRIORITY_VISIBLE, this::loadMetadataOnWorker);
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile.
+        }
+    }
+
+    /** Runs {@code task} on a worker once nothing else is queued, e.g. for file I/O. */
+    public void executeInBackground(Runnable task) {
+        execute(PRIORITY_INDEX, task);
+    }
+
+    /**
+     * Returns the {@link DocumentFingerprint} of the document's file, or null if it has no file
+     * or cannot be read. Reads the file on first use, so call it off the main thread.
+     */
+    public String getFingerprint() {
+        return parcelFileDescriptor != null ? fingerprintOnWorker() : null;
+    }
+
+    /** Returns whether a whole-page level at {@code scale} stays within the size limits. */
+    public boolean canRenderLevel(int index, float scale) {
+        int width = getPageWidth(index);
+        int height = getPageHeight(index);
+        if (width == 0 || height == 0) {
+            return false;
+        }
+        long levelWidth = (long) (width * scale);
+        long levelHeight = (long) (height * scale);
+        return Math.max(levelWidth, levelHeight) <= PageLevels.MAX_LEVEL_DIMENSION
+                && levelWidth * levelHeight * 4 <= pageCache.maxSize() / 2;
+    }
+
+    /**
+     * Synchronously delivers the cached level of {@code index} that is sharper than
+     * {@code currentScale}, preferring the smallest one that reaches {@code requiredScale} and
+     * otherwise the sharpest available. Returns false if there is no such level.
+     */
+    public boolean deliverCachedLevel(int index, float currentScale, float requiredScale, PageCallback callback) {
+        Bitmap best = null;
+        for (int exponent = PageLevels.MIN_LEVEL_EXPONENT; exponent <= PageLevels.MAX_LEVEL_EXPONENT; exponent++) {
+            float scale = (float) Math.pow(2, exponent);
+            if (scale <= currentScale) {
+                continue;
+            }
+            Bitmap cached = getCachedRetained(pageCache, new PageKey(documentId, index, scale));
+            if (cached == null) {
+                continue;
+            }
+            bitmapPool.release(best);
+            best = cached;
+            if (scale >= requiredScale) {
+                break;
+            }
+        }
+        if (best == null) {
+            return false;
+        }
+        callback.onPageRendered(index, best);
+        bitmapPool.release(best);
+        return true;
+    }
+
+
+    /** Looks up {@code key} and takes a reference before a concurrent eviction can pool it. */
+    private <K> Bitmap getCachedRetained(LruMemoryCache<K, Bitmap> cache, K key) {
+        synchronized (cache) {
+            Bitmap cached = cache.get(key);
+            if (cached != null) {
+                bitmapPool.retain(cached);
+            }
+            return cached;
+        }
+    }
+
+    private void loadMetadataOnWorker() {
+        String fingerprint = fingerprintOnWorker();
+        if (closed || fingerprint == null) {
+            return;
+        }
+        PageMetadata metadata = metadataStore.load(fingerprint);
+        if (metadata != null && metadata.getPageCount() == pageCount) {
+            for (int index = 0; index < pageCount; index++) {
+                recordPageSize(index, metadata.getWidth(index), metadata.getHeight(index));
+            }
+            return;
+        }
+        measureFromOnWorker(0);
+    }
+
+    /**
+     * Measures the first page from {@code index} on whose size is unknown and queues the next,
+     * so rendering can overtake the pass between any two pages; stores the sizes at the end.
+     */
+    private void measureFromOnWorker(int index) {
+        while (index < pageCount && getPageWidth(index) != 0) {
+            index++;
+        }
+        if (closed) {
+            return;
+        }
+        if (index == pageCount) {
+            storeMetadataOnWorker();
+            return;
+        }
+        try {
+            openPageOnWorker(index).close();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to measure page " + index, e);
+            return;
+        }
+        int next = index + 1;
+        try {
+            execute(PRIORITY_PERSIST, () -> measureFromOnWorker(next));
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile.
+        }
+    }
+
+    private void storeMetadataOnWorker() {
+        PageMetadata metadata;
+        synchronized (this) {
+            metadata = new PageMetadata(pageWidths.clone(), pageHeights.clone());
+        }
+        metadataStore.store(fingerprintOnWorker(), metadata);
+    }
+
+    private PageSource.Page<Bitmap> openPageOnWorker(int index) {
+        long start = System.nanoTime();
+        PageSource.Page<Bitmap> page = renderer().openPage(index);
+        RenderMetrics.getInstance().recordPageOpen(System.nanoTime() - start);
+        recordPageSize(index, page.getWidth(), page.getHeight());
+        return page;
+    }
+
+    /**
+     * Returns the normal level of a page from memory, from disk or freshly rendered, falling back
+     * to half of it if the full-size bitmap cannot be created. The fallback is cached under the
+     * normal scale so later lookups still hit, but it is not stored on disk.
+     */
+    private Bitmap obtainBaseOnWorker(PageSource.Page<Bitmap> page, int index, float baseScale) {
+        Bitmap cached = getCachedRetained(pageCache, new PageKey(documentId, index, baseScale));
+        if (cached != null) {
+            return cached;
+        }
+        String entry = diskEntryOnWorker(index, baseScale, 0);
+        Bitmap bitmap = entry != null ? diskCache.get(entry, bitmapPool) : null;
+        if (bitmap == null) {
+            try {
+                bitmap = renderLevel(page, baseScale);
+                persist(entry, bitmap);
+            } catch (IllegalArgumentException e) {
+                if (baseScale < 1f) {
+                    throw e;
+                }
+                bitmap = renderLevel(page, baseScale / 2);
+                RenderMetrics.getInstance().recordFallbackRender();
+            }
+        }
+        cacheOwned(index, baseScale, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Names the disk entry of a normal level, or of a thumbnail when {@code thumbnailWidth} is
+     * positive. Returns null without a disk cache or a file to fingerprint.
+     */
+    private String diskEntryOnWorker(int index, float scale, int thumbnailWidth) {
+        if (diskCache == null || parcelFileDescriptor == null) {
+            return null;
+        }
+        String fingerprint = fingerprintOnWorker();
+        if (fingerprint == null) {
+            return null;
+        }
+        return thumbnailWidth > 0
+                ? DiskPageCache.thumbnailEntry(fingerprint, index, thumbnailWidth)
+                : DiskPageCache.pageEntry(fingerprint, index, scale);
+    }
+
+    private String fingerprintOnWorker() {
+        synchronized (fingerprintLock) {
+            if (fingerprint == null && !fingerprintFailed) {
+                try {
+                    fingerprint = DocumentFingerprint.of(parcelFileDescriptor);
+                } catch (IOException e) {
+                    Log.w(TAG, "Cannot fingerprint " + documentId + ", disk cache disabled", e);
+                    fingerprintFailed = true;
+                }
+            }
+            return fingerprint;
+        }
+    }
+
+    private boolean isStoredOnWorker(int index, float baseScale) {
+        String entry = diskEntryOnWorker(index, baseScale, 0);
+        return entry != null && diskCache.contains(entry);
+    }
+
+    /** Writes a rendering to the disk cache once more urgent work is done. */
+    private void persist(String entry, Bitmap bitmap) {
+        if (entry == null) {
+            return;
+        }
+        bitmapPool.retain(bitmap);
+        try {
+            execute(PRIORITY_PERSIST, () -> {
+                try {
+                    diskCache.put(entry, bitmap);
+                } finally {
+                    bitmapPool.release(bitmap);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile.
+            bitmapPool.release(bitmap);
+        }
+    }
+
+    /**
+     * Returns the cached rendering of a page level, rendering and caching it first if needed.
+     * The caller owns one reference to the result and must release it.
+     */
+    private Bitmap obtainLevelOnWorker(PageSource.Page<Bitmap> page, int index, float scale) {
+        Bitmap cached = getCachedRetained(pageCache, new PageKey(documentId, index, scale));
+        if (cached != null) {
+            return cached;
+        }
+        Bitmap bitmap = renderLevel(page, scale);
+        cacheOwned(index, scale, bitmap);
+        return bitmap;
+    }
+
+    /** Gives the cache its own reference to a freshly rendered bitmap the caller keeps owning. */
+    private void cacheOwned(int index, float scale, Bitmap bitmap) {
+        bitmapPool.retain(bitmap);
+        if (!pageCache.put(new PageKey(documentId, index, scale), bitmap)) {
+            bitmapPool.release(bitmap);
+        }
+    }
+
+    private Bitmap renderLevel(PageSource.Page<Bitmap> page, float scale) {
+        return renderBitmap(page, (int) (page.getWidth() * scale), (int) (page.getHeight() * scale));
+    }
+
+    /** Renders the whole page stretched over a new {@code width} x {@code height} bitmap. */
+    private Bitmap renderBitmap(PageSource.Page<Bitmap> page, int width, int height) {
+        Bitmap bitmap = bitmapPool.acquire(Math.max(1, width), Math.max(1, height), Bitmap.Config.ARGB_8888);
+        long start = System.nanoTime();
+        try {
+            bitmap.eraseColor(Color.WHITE);
+            page.render(bitmap, bitmap.getWidth(), bitmap.getHeight(),
+                    (float) bitmap.getWidth() / page.getWidth(), (float) bitmap.getHeight() / page.getHeight(), 0, 0);
+        } catch (RuntimeException e) {
+            bitmapPool.release(bitmap);
+            throw e;
+        }
+        countRender(start);
+        return bitmap;
+    }
+
+    private Bitmap renderTile(PageSource.Page<Bitmap> page, float scale, TilePlanner.TileSpec spec) {
+        return renderWindow(page, scale, spec.x, spec.y, spec.width, spec.height);
+    }
+
+    /**
+     * Renders a {@code width} x {@code height} window of the page scaled by {@code scale}, shifting
+     * the scaled page so the window's origin at ({@code x}, {@code y}) lands on the bitmap's.
+     */
+    private Bitmap renderWindow(PageSource.Page<Bitmap> page, float scale, int x, int y, int width, int height) {
+        Bitmap bitmap = bitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+        long start = System.nanoTime();
+        try {
+            bitmap.eraseColor(Color.WHITE);
+            page.render(bitmap, width, height, scale, scale, x, y);
+        } catch (RuntimeException e) {
+            bitmapPool.release(bitmap);
+            throw e;
+        }
+        countRender(start);
+        return bitmap;
+    }
+
+    private void countRender(long startNanos) {
+        RenderMetrics.getInstance().recordRender(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Sets how many pages may render at once, each with its own renderer. More workers finish
+     * thumbnail, prefetch and batch work sooner but hold one page bitmap in flight each.
+     */
+    public void setRenderWorkerCount(int count) {
+        count = Math.max(1, count);
+        synchronized (worker) {
+            if (closed || count == worker.getMaximumPoolSize()) {
+                return;
+            }
+            worker.setPoolSize(count);
+        }
+    }
+
+    /** Returns the source of the current worker, taking one on its first render. */
+    private PageSource<Bitmap> renderer() {
+        PageSource<Bitmap> source = workerSources.get();
+        if (source == null) {
+            source = takeRenderer();
+            workerSources.set(source);
+        }
+        return source;
+    }
+
+    /** Hands out a spare source, or opens another one. */
+    private PageSource<Bitmap> takeRenderer() {
+        synchronized (renderers) {
+            if (renderersClosed) {
+                throw new IllegalStateException("Renderer closed");
+            }
+            if (!spareRenderers.isEmpty()) {
+                return spareRenderers.pop();
+            }
+        }
+        try {
+            PageSource<Bitmap> source = sourceFactory.open();
+            synchronized (renderers) {
+                renderers.add(source);
+            }
+            return source;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Runs as a worker thread exits, so a smaller pool keeps the source for later. */
+    private void returnRenderer() {
+        PageSource<Bitmap> source = workerSources.get();
+        if (source == null) {
+            return;
+        }
+        workerSources.remove();
+        synchronized (renderers) {
+            if (!renderersClosed) {
+                spareRenderers.push(source);
+            }
+        }
+    }
+
+    /** Runs once the pool has terminated, when no worker can be rendering any more. */
+    private void closeRenderers() {
+        synchronized (renderers) {
+            renderersClosed = true;
+            for (PageSource<Bitmap> renderer : renderers) {
+                renderer.close();
+            }
+            renderers.clear();
+            spareRenderers.clear();
+        }
+        sourceFactory.close();
+    }
+
+    private synchronized void recordPageSize(int index, int width, int height) {
+        if (pageWidths[index] == 0) {
+            measuredPageCount++;
+        }
+        pageWidths[index] = width;
+        pageHeights[index] = height;
+    }
+
+    private synchronized boolean isMeasured() {
+        return measuredPageCount == pageCount;
+    }
+
+    /**
+     * Returns the normal pyramid level for a request, in pixels per point, or 0 while the page
+     * size is still unknown.
+     */
+    public synchronized float baseScaleFor(int index, int reqWidth, int reqHeight) {
+        int width = pageWidths[index];
+        int height = pageHeights[index];
+        if (width == 0 || height == 0) {
+            return 0f;
+        }
+        return PageLevels.baseScale(width, height, reqWidth, reqHeight);
+    }
+
+    private void execute(int priority, Runnable runnable) {
+        worker.execute(priority, runnable);
+    }
+
+    /** Queues {@code runnable}, or runs it right here if the engine shut down meanwhile. */
+    private void executeOrRun(int priority, Runnable runnable) {
+        worker.executeOrRun(priority, runnable);
+    }
+
+    /** Cancels pending work and closes the renderers once the workers are idle. */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        List<Client> open;
+        synchronized (clients) {
+            open = new ArrayList<>(clients);
+        }
+        for (Client client : open) {
+            client.close();
+        }
+        // Queued work still runs and bails out; the renderers close once it has.
+        synchronized (worker) {
+            worker.shutdown();
+        }
+    }
+
+    /**
+     * Opens a handle through which one viewer requests pages. Each client supersedes only its own
+     * requests, keeps its own bitmaps on screen and prefetches around its own page, so several
+     * viewers can share the engine and its caches. Close it once the viewer is gone.
+     */
+    public Client openClient() {
+        Client client = new Client();
+        synchronized (clients) {
+            clients.add(client);
+        }
+        return client;
+    }
+
+    /** What one viewer has requested and shows; see {@link #openClient}. */
+    public final class Client {
+        /** The prefetch window a client starts with; see {@link #setPrefetchWindow}. */
+        public static final int DEFAULT_PREFETCH_BEHIND = 1;
+        public static final int DEFAULT_PREFETCH_AHEAD = 2;
+
+        private final AtomicInteger latestRequest = new AtomicInteger();
+        private final AtomicInteger latestLevelRequest = new AtomicInteger();
+        private final AtomicInteger latestTileRequest = new AtomicInteger();
+        private final AtomicIntegerArray stripTickets = new AtomicIntegerArray(pageCount);
+        private final AtomicIntegerArray thumbnailTickets = new AtomicIntegerArray(pageCount);
+        private Bitmap displayedBitmap;
+        private List<Tile> displayedTiles = Collections.emptyList();
+        private volatile int currentPageIndex = -1;
+        private volatile int prefetchBehind = DEFAULT_PREFETCH_BEHIND;
+        private volatile int prefetchAhead = DEFAULT_PREFETCH_AHEAD;
+        private volatile boolean closed = false;
+
+        private Client() {
+        }
+
+        public PdfRenderEngine getEngine() {
+            return PdfRenderEngine.this;
+        }
+
+        /**
+         * Marks {@code bitmap} as the one currently on screen so it is not reused while visible, and
+         * gives the previously displayed bitmap back. Must be called on the main thread.
+         */
+        public void setDisplayedBitmap(Bitmap bitmap) {
+            if (bitmap == displayedBitmap) {
+                return;
+            }
+            if (bitmap != null) {
+                bitmapPool.retain(bitmap);
+            }
+            bitmapPool.release(displayedBitmap);
+            displayedBitmap = bitmap;
+        }
+
+        /** Like {@link #setDisplayedBitmap}, for the zoom tiles drawn over the page. */
+        public void setDisplayedTiles(List<Tile> tiles) {
+            if (tiles == null) {
+                tiles = Collections.emptyList();
+            }
+            for (Tile tile : tiles) {
+                bitmapPool.retain(tile.bitmap);
+            }
+            for (Tile tile : displayedTiles) {
+                bitmapPool.release(tile.bitmap);
+            }
+            displayedTiles = tiles;
+        }
+
+        /** Sets how many pages before and after the current one are pre-rendered. */
+        public void setPrefetchWindow(int behind, int ahead) {
+            prefetchBehind = Math.max(0, behind);
+            prefetchAhead = Math.max(0, ahead);
+        }
+
+        /**
+         * Renders {@code index} so that it fits roughly within {@code reqWidth} x {@code reqHeight}
+         * and delivers it to {@code callback} unless a newer request arrives first. A cached page is
+         * delivered synchronously; otherwise a cached or freshly rendered lower level is delivered
+         * first. The bitmap is only guaranteed to stay intact during the callback; keep it by passing
+         * it to {@link #setDisplayedBitmap}.
+         */
+        public void requestPage(int index, int reqWidth, int reqHeight, PageCallback callback) {
+            if (isClosed() || index < 0 || index >= pageCount) {
+                return;
+            }
+            final int ticket = latestRequest.incrementAndGet();
+            latestLevelRequest.incrementAndGet();
+            latestTileRequest.incrementAndGet();
+            currentPageIndex = index;
+
+            float knownScale = baseScaleFor(index, reqWidth, reqHeight);
+            if (knownScale > 0f) {
+                Bitmap cached = getCachedRetained(pageCache, new PageKey(documentId, index, knownScale));
+                if (cached != null) {
+                    callback.onPageRendered(index, cached);
+                    bitmapPool.release(cached);
+                    schedulePrefetch(index, reqWidth, reqHeight);
+                    return;
+                }
+            }
+            final boolean showedInterim = deliverCachedLevel(index, 0f, Float.MAX_VALUE, callback);
+
+            execute(PRIORITY_VISIBLE, () -> {
+                if (isStale(ticket)) {
+                    return;
+                }
+                try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+                    float baseScale = baseScaleFor(index, reqWidth, reqHeight);
+                    if (!showedInterim && !isStoredOnWorker(index, baseScale)) {
+                        Bitmap preview = obtainLevelOnWorker(page, index, baseScale / PREVIEW_DOWNSCALE);
+                        post(ticket, latestRequest, index, preview, callback);
+                    }
+                    if (isStale(ticket)) {
+                        return;
+                    }
+                    post(ticket, latestRequest, index, obtainBaseOnWorker(page, index, baseScale), callback);
+                    schedulePrefetch(index, reqWidth, reqHeight);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to render page " + index, e);
+                    mainHandler.post(() -> {
+                        if (!isStale(ticket)) {
+                            callback.onPageFailed(index, e);
+                        }
+                    });
+                }
+            });
+        }
+
+        /**
+         * Renders {@code index} for a continuous list, or ahead of a page turn, like
+         * {@link #requestPage} but without a preview and without prefetching. Only a newer request
+         * for the same page, {@link #cancelStripPage} or {@link #cancelPending} supersede it.
+         */
+        public void requestStripPage(int index, int reqWidth, int reqHeight, PageCallback callback) {
+            if (isClosed() || index < 0 || index >= pageCount) {
+                return;
+            }
+            final int ticket = stripTickets.incrementAndGet(index);
+            float knownScale = baseScaleFor(index, reqWidth, reqHeight);
+            if (knownScale > 0f) {
+                Bitmap cached = getCachedRetained(pageCache, new PageKey(documentId, index, knownScale));
+                if (cached != null) {
+                    callback.onPageRendered(index, cached);
+                    bitmapPool.release(cached);
+                    return;
+                }
+            }
+            execute(PRIORITY_VISIBLE, () -> {
+                if (isStripStale(index, ticket)) {
+                    return;
+                }
+                try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+                    Bitmap bitmap = obtainBaseOnWorker(page, index, baseScaleFor(index, reqWidth, reqHeight));
+                    if (isStripStale(index, ticket)) {
+                        bitmapPool.release(bitmap);
+                        return;
+                    }
+                    mainHandler.post(() -> {
+                        if (!isStripStale(index, ticket)) {
+                            callback.onPageRendered(index, bitmap);
+                        }
+                        bitmapPool.release(bitmap);
+                    });
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to render page " + index, e);
+                    mainHandler.post(() -> {
+                        if (!isStripStale(index, ticket)) {
+                            callback.onPageFailed(index, e);
+                        }
+                    });
+                }
+            });
+        }
+
+        /** Drops the pending {@link #requestStripPage} for {@code index}, if any. */
+        public void cancelStripPage(int index) {
+            if (index >= 0 && index < pageCount) {
+                stripTickets.incrementAndGet(index);
+            }
+        }
+
+        private boolean isStripStale(int index, int ticket) {
+            return isClosed() || ticket != stripTickets.get(index);
+        }
+
+        /**
+         * Renders {@code index} directly at {@code width} pixels wide into the thumbnail cache and
+         * delivers it to {@code callback}. A cached thumbnail is delivered synchronously. Only a newer
+         * request for the same thumbnail, {@link #cancelThumbnail} or {@link #cancelPending}
+         * supersede it.
+         */
+        public void requestThumbnail(int index, int width, ThumbnailCallback callback) {
+            if (isClosed() || index < 0 || index >= pageCount) {
+                return;
+            }
+            final int ticket = thumbnailTickets.incrementAndGet(index);
+            int pageWidth = getPageWidth(index);
+            if (pageWidth > 0) {
+                Bitmap cached = getCachedRetained(thumbnailCache, new PageKey(documentId, index, (float) width / pageWidth));
+                if (cached != null) {
+                    callback.onThumbnailRendered(index, cached);
+                    bitmapPool.release(cached);
+                    return;
+                }
+            }
+            execute(PRIORITY_THUMBNAIL, () -> {
+                if (isThumbnailStale(index, ticket)) {
+                    return;
+                }
+                try {
+                    Bitmap bitmap = obtainThumbnailOnWorker(index, width);
+                    if (isThumbnailStale(index, ticket)) {
+                        bitmapPool.release(bitmap);
+                        return;
+                    }
+                    mainHandler.post(() -> {
+                        if (!isThumbnailStale(index, ticket)) {
+                            callback.onThumbnailRendered(index, bitmap);
+                        }
+                        bitmapPool.release(bitmap);
+                    });
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to render thumbnail " + index, e);
+                }
+            });
+        }
+
+        /** Drops the pending {@link #requestThumbnail} for {@code index}, if any. */
+        public void cancelThumbnail(int index) {
+            if (index >= 0 && index < pageCount) {
+                thumbnailTickets.incrementAndGet(index);
+            }
+        }
+
+        private boolean isThumbnailStale(int index, int ticket) {
+            return isClosed() || ticket != thumbnailTickets.get(index);
+        }
+
+        /**
+         * Renders the whole of {@code index} at the pyramid level {@code scale} and delivers it like
+         * {@link #requestPage}. Superseded by the next level or page request.
+         */
+        public void requestLevel(int index, float scale, PageCallback callback) {
+            if (isClosed() || index < 0 || index >= pageCount || !canRenderLevel(index, scale)) {
+                return;
+            }
+            final int ticket = latestLevelRequest.incrementAndGet();
+            execute(PRIORITY_VISIBLE, () -> {
+                if (isStale(ticket, latestLevelRequest)) {
+                    return;
+                }
+                try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+                    post(ticket, latestLevelRequest, index, obtainLevelOnWorker(page, index, scale), callback);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to render page " + index + " at " + scale, e);
+                }
+            });
+        }
+
+        /**
+         * Renders the tiles of {@code index} at {@code scale} pixels per point that intersect
+         * {@code visible}, given in page-normalized coordinates. Superseded by the next tile or page
+         * request. Does nothing until the page has been rendered once and its size is known.
+         */
+        public void requestTiles(int index, float scale, RectF visible, TileCallback callback) {
+            if (isClosed() || index < 0 || index >= pageCount) {
+                return;
+            }
+            int width = getPageWidth(index);
+            int height = getPageHeight(index);
+            if (width == 0 || height == 0) {
+                return;
+            }
+            final int ticket = latestTileRequest.incrementAndGet();
+            final List<TilePlanner.TileSpec> plan = TilePlanner.plan(width, height, scale,
+                    visible.left, visible.top, visible.right, visible.bottom, TilePlanner.DEFAULT_TILE_SIZE);
+            final float scaledWidth = Math.max(1, Math.round(width * scale));
+            final float scaledHeight = Math.max(1, Math.round(height * scale));
+
+            execute(PRIORITY_VISIBLE, () -> {
+                List<Tile> ready = new ArrayList<>(plan.size());
+                PageSource.Page<Bitmap> page = null;
+                try {
+                    for (TilePlanner.TileSpec spec : plan) {
+                        if (isStale(ticket, latestTileRequest)) {
+                            return;
+                        }
+                        TileKey key = new TileKey(documentId, index, scale, spec.column, spec.row);
+                        Bitmap bitmap = getCachedRetained(tileCache, key);
+                        if (bitmap == null) {
+                            if (page == null) {
+                                page = renderer().openPage(index);
+                            }
+                            bitmap = renderTile(page, scale, spec);
+                            bitmapPool.retain(bitmap);
+                            if (!tileCache.put(key, bitmap)) {
+                                bitmapPool.release(bitmap);
+                            }
+                        }
+                        ready.add(new Tile(index, new RectF(
+                                spec.x / scaledWidth, spec.y / scaledHeight,
+                                (spec.x + spec.width) / scaledWidth, (spec.y + spec.height) / scaledHeight), bitmap));
+                        postTiles(ticket, index, scale, new ArrayList<>(ready), callback);
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to render tiles of page " + index, e);
+                } finally {
+                    if (page != null) {
+                        page.close();
+                    }
+                    for (Tile tile : ready) {
+                        bitmapPool.release(tile.bitmap);
+                    }
+                }
+            });
+        }
+
+        /** Hands an owned bitmap to the main thread, or gives it back if the request went stale. */
+        private void post(int ticket, AtomicInteger counter, int index, Bitmap bitmap, PageCallback callback) {
+            if (isStale(ticket, counter)) {
+                bitmapPool.release(bitmap);
+                return;
+            }
+            mainHandler.post(() -> {
+                if (!isStale(ticket, counter)) {
+                    callback.onPageRendered(index, bitmap);
+                }
+                bitmapPool.release(bitmap);
+            });
+        }
+
+        private void postTiles(int ticket, int index, float scale, List<Tile> tiles, TileCallback callback) {
+            for (Tile tile : tiles) {
+                bitmapPool.retain(tile.bitmap);
+            }
+            mainHandler.post(() -> {
+                if (!isStale(ticket, latestTileRequest)) {
+                    callback.onTilesRendered(index, scale, tiles);
+                }
+                for (Tile tile : tiles) {
+                    bitmapPool.release(tile.bitmap);
+                }
+            });
+        }
+
+        /** Drops the pending tile request, if any. */
+        public void cancelTiles() {
+            latestTileRequest.incrementAndGet();
+        }
+
+        /** Drops any queued or in-flight request without delivering it. */
+        public void cancelPending() {
+            latestRequest.incrementAndGet();
+            latestLevelRequest.incrementAndGet();
+            latestTileRequest.incrementAndGet();
+            for (int index = 0; index < pageCount; index++) {
+                stripTickets.incrementAndGet(index);
+                thumbnailTickets.incrementAndGet(index);
+            }
+        }
+
+        private boolean isStale(int ticket) {
+            return isStale(ticket, latestRequest);
+        }
+
+        private boolean isStale(int ticket, AtomicInteger counter) {
+            return isClosed() || ticket != counter.get();
+        }
+
+        private void schedulePrefetch(int center, int reqWidth, int reqHeight) {
+            int behind = prefetchBehind;
+            int ahead = prefetchAhead;
+            int reach = Math.max(behind, ahead);
+            for (int distance = 1; distance <= reach; distance++) {
+                if (distance <= ahead) {
+                    prefetch(center + distance, reqWidth, reqHeight);
+                }
+                if (distance <= behind) {
+                    prefetch(center - distance, reqWidth, reqHeight);
+                }
+            }
+        }
+
+        private void prefetch(int index, int reqWidth, int reqHeight) {
+            if (index < 0 || index >= pageCount) {
+                return;
+            }
+            execute(PRIORITY_PREFETCH, () -> {
+                if (isClosed() || !isInPrefetchWindow(index)) {
+                    return;
+                }
+                float knownScale = baseScaleFor(index, reqWidth, reqHeight);
+                if (knownScale > 0f && pageCache.contains(new PageKey(documentId, index, knownScale))) {
+                    return;
+                }
+                try (PageSource.Page<Bitmap> page = openPageOnWorker(index)) {
+                    bitmapPool.release(obtainBaseOnWorker(page, index, baseScaleFor(index, reqWidth, reqHeight)));
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to prefetch page " + index, e);
+                }
+            });
+        }
+
+        private boolean isInPrefetchWindow(int index) {
+            int offset = index - currentPageIndex;
+            return offset >= -prefetchBehind && offset <= prefetchAhead;
+        }
+
+        private boolean isClosed() {
+            return closed || PdfRenderEngine.this.closed;
+        }
+
+        /**
+         * Drops this client's pending requests and gives back the bitmaps it displays. The engine
+         * and the other clients carry on. Must be called on the main thread.
+         */
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancelPending();
+            setDisplayedBitmap(null);
+            setDisplayedTiles(null);
+            synchronized (clients) {
+                clients.remove(this);
+            }
+        }
+    }
+}
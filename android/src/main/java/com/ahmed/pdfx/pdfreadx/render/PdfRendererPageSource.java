@@ -0,0 +1,148 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.pdf.PdfRenderer;
+import android.graphics.pdf.content.PdfPageTextContent;
+import android.graphics.pdf.models.PageMatchBounds;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Renders pages with the platform's {@link PdfRenderer}. Text extraction and search need the
+ * text APIs {@code PdfRenderer} gained in Android 15; before that pages have no text.
+ */
+public final class PdfRendererPageSource implements PageSource<Bitmap> {
+    private final PdfRenderer renderer;
+    private final Matrix transform = new Matrix();
+    private final Rect clip = new Rect();
+
+    public PdfRendererPageSource(ParcelFileDescriptor parcelFileDescriptor) throws IOException {
+        this.renderer = new PdfRenderer(parcelFileDescriptor);
+    }
+
+    @Override
+    public int getPageCount() {
+        return renderer.getPageCount();
+    }
+
+    @Override
+    public PageSource.Page<Bitmap> openPage(int index) {
+        return new Page(renderer.openPage(index));
+    }
+
+    @Override
+    public void close() {
+        renderer.close();
+    }
+
+    private final class Page implements PageSource.Page<Bitmap> {
+        private final PdfRenderer.Page page;
+
+        Page(PdfRenderer.Page page) {
+            this.page = page;
+        }
+
+        @Override
+        public int getWidth() {
+            return page.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return page.getHeight();
+        }
+
+        @Override
+        public void render(Bitmap target, int width, int height, float scaleX, float scaleY, int x, int y) {
+            transform.setScale(scaleX, scaleY);
+            transform.postTranslate(-x, -y);
+            clip.set(0, 0, width, height);
+            page.render(target, clip, transform, PdfRenderer.Page.RENDER_MODE_FOR_DISPLAY);
+        }
+
+        @Override
+        public String getText() {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+                return null;
+            }
+            StringBuilder text = new StringBuilder();
+            for (PdfPageTextContent content : page.getTextContents()) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(content.getText());
+            }
+            return text.toString();
+        }
+
+        @Override
+        public float[] findText(String query) {
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+                return null;
+            }
+            List<PageMatchBounds> matches = page.searchText(query);
+            int count = 0;
+            for (PageMatchBounds match : matches) {
+                count += match.getBounds().size();
+            }
+            float[] bounds = new float[count * 4];
+            int i = 0;
+            for (PageMatchBounds match : matches) {
+                for (RectF rect : match.getBounds()) {
+                    bounds[i++] = rect.left;
+                    bounds[i++] = rect.top;
+                    bounds[i++] = rect.right;
+                    bounds[i++] = rect.bottom;
+                }
+            }
+            return bounds;
+        }
+
+        @Override
+        public void close() {
+            page.close();
+        }
+    }
+
+    /**
+     * Opens renderers on duplicates of one descriptor, which it closes when closed itself.
+     * PdfRenderer reads with pread, so descriptors sharing a file offset do not interfere.
+     */
+    public static final class Factory implements PageSource.Factory<Bitmap> {
+        private final ParcelFileDescriptor parcelFileDescriptor;
+
+        public Factory(ParcelFileDescriptor parcelFileDescriptor) {
+            this.parcelFileDescriptor = parcelFileDescriptor;
+        }
+
+        @Override
+        public PageSource<Bitmap> open() throws IOException {
+            ParcelFileDescriptor duplicate = parcelFileDescriptor.dup();
+            try {
+                return new PdfRendererPageSource(duplicate);
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(duplicate);
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(parcelFileDescriptor);
+        }
+
+        private static void closeQuietly(ParcelFileDescriptor descriptor) {
+            try {
+                descriptor.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+/**
+ * One page of a batch render: a page, an exact scale in pixels per point, and the part of the
+ * page to render in page-normalized coordinates (0..1 on both axes).
+ */
+public final class RegionRequest {
+    public final int pageIndex;
+    public final float scale;
+    public final float left;
+    public final float top;
+    public final float right;
+    public final float bottom;
+
+    public RegionRequest(int pageIndex, float scale, float left, float top, float right, float bottom) {
+        this.pageIndex = pageIndex;
+        this.scale = scale;
+        this.left = Math.max(0f, left);
+        this.top = Math.max(0f, top);
+        this.right = Math.min(1f, right);
+        this.bottom = Math.min(1f, bottom);
+    }
+
+    /** Width of the rendering for a page {@code pageWidth} points wide. */
+    public int pixelWidth(int pageWidth) {
+        return Math.round(pageWidth * (right - left) * scale);
+    }
+
+    /** Height of the rendering for a page {@code pageHeight} points high. */
+    public int pixelHeight(int pageHeight) {
+        return Math.round(pageHeight * (bottom - top) * scale);
+    }
+
+    /** Offset of the region's left edge within the scaled page, in pixels. */
+    int pixelX(int pageWidth) {
+        return Math.round(pageWidth * left * scale);
+    }
+
+    /** Offset of the region's top edge within the scaled page, in pixels. */
+    int pixelY(int pageHeight) {
+        return Math.round(pageHeight * top * scale);
+    }
+
+    /**
+     * Returns whether the region of a page of this size is non-empty and within the whole-page
+     * level limit on both sides.
+     */
+    public boolean isRenderable(int pageWidth, int pageHeight) {
+        int width = pixelWidth(pageWidth);
+        int height = pixelHeight(pageHeight);
+        return scale > 0f && width > 0 && height > 0
+                && width <= PageLevels.MAX_LEVEL_DIMENSION && height <= PageLevels.MAX_LEVEL_DIMENSION;
+    }
+}
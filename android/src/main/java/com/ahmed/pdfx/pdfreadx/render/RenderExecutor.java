@@ -0,0 +1,102 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The worker pool of a {@link PdfRenderEngine}: queued work runs by priority, lowest value
+ * first, then in submission order. Each worker runs {@code onWorkerExit} as its thread ends,
+ * and {@code onTerminated} runs once after shutdown when every task has finished.
+ */
+public class RenderExecutor extends ThreadPoolExecutor {
+    private final AtomicLong taskSequence = new AtomicLong();
+    private final Runnable onTerminated;
+
+    public RenderExecutor(String threadNamePrefix, Runnable onWorkerExit, Runnable onTerminated) {
+        super(1, 1, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                threadFactory(threadNamePrefix, onWorkerExit));
+        this.onTerminated = onTerminated;
+    }
+
+    private static ThreadFactory threadFactory(String prefix, Runnable onWorkerExit) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    r.run();
+                } finally {
+                    onWorkerExit.run();
+                }
+            }, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void execute(int priority, Runnable runnable) {
+        super.execute(new Task(priority, taskSequence.getAndIncrement(), runnable));
+    }
+
+    /** Queues {@code command} behind all prioritized work. */
+    @Override
+    public void execute(Runnable command) {
+        execute(Integer.MAX_VALUE, command);
+    }
+
+    /** Queues {@code runnable}, or runs it right here if the pool shut down meanwhile. */
+    public void executeOrRun(int priority, Runnable runnable) {
+        try {
+            execute(priority, runnable);
+        } catch (RejectedExecutionException e) {
+            runnable.run();
+        }
+    }
+
+    /** Resizes the pool, keeping the core size within the maximum at every step. */
+    public void setPoolSize(int count) {
+        count = Math.max(1, count);
+        if (count > getMaximumPoolSize()) {
+            setMaximumPoolSize(count);
+            setCorePoolSize(count);
+        } else if (count < getMaximumPoolSize()) {
+            setCorePoolSize(count);
+            setMaximumPoolSize(count);
+        }
+    }
+
+    @Override
+    protected void terminated() {
+        onTerminated.run();
+    }
+
+    /** Orders queued work by priority, then by submission order. */
+    private static final class Task implements Runnable, Comparable<Task> {
+        final int priority;
+        final long sequence;
+        final Runnable runnable;
+
+        Task(int priority, long sequence, Runnable runnable) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return Integer.compare(priority, other.priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
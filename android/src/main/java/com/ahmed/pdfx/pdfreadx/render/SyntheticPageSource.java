@@ -0,0 +1,185 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Generates pages instead of reading a document, so the engine's scheduling, caching and
+ * geometry can be exercised in tests and benchmarks on a plain JVM. Pages render into ARGB
+ * {@code int[]} arrays of {@code width * height} pixels as a white sheet with lines of "text",
+ * at a cost proportional to the pixels drawn like a real renderer. Each line also has words,
+ * picked from a small vocabulary by page and line, for text extraction and search.
+ */
+public final class SyntheticPageSource implements PageSource<int[]> {
+    private static final int PAPER = 0xFFFFFFFF;
+    private static final int INK = 0xFF202020;
+    /** Lines of text are this many points apart, each half as tall. */
+    private static final int LINE_PITCH = 14;
+    static final int WORDS_PER_LINE = 8;
+    private static final String[] VOCABULARY = {
+            "render", "page", "tile", "cache", "bitmap", "scale", "zoom", "scroll",
+            "document", "thumbnail", "level", "pixel", "margin", "index", "search", "text",
+            "worker", "queue", "memory", "budget", "frame", "vsync", "matrix", "viewport",
+            "prefetch", "window", "disk", "entry", "pool", "session", "registry", "metrics"};
+
+    private final int[] pageWidths;
+    private final int[] pageHeights;
+    private boolean pageOpen;
+    private boolean closed;
+
+    /** A document of {@code pageCount} pages of {@code width} x {@code height} points. */
+    public SyntheticPageSource(int pageCount, int width, int height) {
+        this(filled(pageCount, width), filled(pageCount, height));
+    }
+
+    /** A document whose page {@code i} is {@code widths[i]} x {@code heights[i]} points. */
+    public SyntheticPageSource(int[] widths, int[] heights) {
+        if (widths.length != heights.length) {
+            throw new IllegalArgumentException("widths and heights differ in length");
+        }
+        this.pageWidths = widths.clone();
+        this.pageHeights = heights.clone();
+    }
+
+    private static int[] filled(int count, int value) {
+        int[] values = new int[count];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    /** Opens sources of a document of {@code pageCount} pages of {@code width} x {@code height} points. */
+    public static PageSource.Factory<int[]> factory(int pageCount, int width, int height) {
+        return new PageSource.Factory<int[]>() {
+            @Override
+            public PageSource<int[]> open() {
+                return new SyntheticPageSource(pageCount, width, height);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /** The words of {@code line} on page {@code index}, separated by spaces. */
+    static String lineText(int index, int line) {
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < WORDS_PER_LINE; word++) {
+            if (word > 0) {
+                text.append(' ');
+            }
+            text.append(VOCABULARY[(index * 31 + line * 7 + word * 13) % VOCABULARY.length]);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public int getPageCount() {
+        return pageWidths.length;
+    }
+
+    @Override
+    public PageSource.Page<int[]> openPage(int index) {
+        if (closed) {
+            throw new IllegalStateException("Source closed");
+        }
+        if (pageOpen) {
+            throw new IllegalStateException("Current page not closed");
+        }
+        if (index < 0 || index >= pageWidths.length) {
+            throw new IllegalArgumentException("Invalid page index " + index);
+        }
+        pageOpen = true;
+        return new Page(index);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private final class Page implements PageSource.Page<int[]> {
+        private final int index;
+
+        Page(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getWidth() {
+            return pageWidths[index];
+        }
+
+        @Override
+        public int getHeight() {
+            return pageHeights[index];
+        }
+
+        @Override
+        public void render(int[] target, int width, int height, float scaleX, float scaleY, int x, int y) {
+            if (target.length < width * height) {
+                throw new IllegalArgumentException("Target smaller than " + width + "x" + height);
+            }
+            int right = Math.min(width, Math.round(getWidth() * scaleX) - x);
+            int bottom = Math.min(height, Math.round(getHeight() * scaleY) - y);
+            float margin = getWidth() / 10f;
+            for (int row = Math.max(0, -y); row < bottom; row++) {
+                float pointY = (row + y) / scaleY;
+                boolean text = pointY % LINE_PITCH < LINE_PITCH / 2f
+                        && pointY > margin && pointY < getHeight() - margin;
+                int offset = row * width;
+                for (int column = Math.max(0, -x); column < right; column++) {
+                    float pointX = (column + x) / scaleX;
+                    // Breaks between "words" every few points keep the rows from being uniform.
+                    boolean ink = text && pointX > margin && pointX < getWidth() - margin
+                            && ((int) pointX + index + (int) (pointY / LINE_PITCH) * 7) % 23 < 18;
+                    target[offset + column] = ink ? INK : PAPER;
+                }
+            }
+        }
+
+        /** The first and last line of text, inside the margins the way {@link #render} draws them. */
+        private int firstLine() {
+            return (int) Math.ceil(getWidth() / 10f / LINE_PITCH);
+        }
+
+        private int lastLine() {
+            return (int) ((getHeight() - getWidth() / 10f) / LINE_PITCH) - 1;
+        }
+
+        @Override
+        public String getText() {
+            StringBuilder text = new StringBuilder();
+            for (int line = firstLine(); line <= lastLine(); line++) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(lineText(index, line));
+            }
+            return text.toString();
+        }
+
+        /** Finds matches within single lines and reports the bounds of the whole line. */
+        @Override
+        public float[] findText(String query) {
+            String needle = query.toLowerCase(Locale.ROOT);
+            float margin = getWidth() / 10f;
+            float[] bounds = new float[0];
+            for (int line = firstLine(); line <= lastLine(); line++) {
+                if (lineText(index, line).contains(needle)) {
+                    bounds = Arrays.copyOf(bounds, bounds.length + 4);
+                    bounds[bounds.length - 4] = margin;
+                    bounds[bounds.length - 3] = line * LINE_PITCH;
+                    bounds[bounds.length - 2] = getWidth() - margin;
+                    bounds[bounds.length - 1] = line * LINE_PITCH + LINE_PITCH / 2f;
+                }
+            }
+            return bounds;
+        }
+
+        @Override
+        public void close() {
+            pageOpen = false;
+        }
+    }
+}
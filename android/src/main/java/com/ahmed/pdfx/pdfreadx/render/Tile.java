@@ -0,0 +1,17 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+
+/** A rendered tile and the part of its page it covers, in page-normalized coordinates. */
+public final class Tile {
+    public final int pageIndex;
+    public final RectF bounds;
+    public final Bitmap bitmap;
+
+    public Tile(int pageIndex, RectF bounds, Bitmap bitmap) {
+        this.pageIndex = pageIndex;
+        this.bounds = bounds;
+        this.bitmap = bitmap;
+    }
+}
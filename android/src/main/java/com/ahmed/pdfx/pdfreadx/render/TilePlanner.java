@@ -0,0 +1,76 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Works out which fixed-size tiles of a page, rendered at a given scale, cover a viewport.
+ *
+ * Scales are in pixels per PDF point and viewports in page-normalized coordinates (0..1 on both
+ * axes), so a plan does not depend on the size of the bitmap currently on screen.
+ */
+public final class TilePlanner {
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    private TilePlanner() {
+    }
+
+    /** One tile of the plan, in pixels of the page rendered at the plan's scale. */
+    public static final class TileSpec {
+        public final int column;
+        public final int row;
+        public final int x;
+        public final int y;
+        public final int width;
+        public final int height;
+
+        TileSpec(int column, int row, int x, int y, int width, int height) {
+            this.column = column;
+            this.row = row;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Rounds a required scale up to the next power of two, so tiles rendered for nearby zoom
+     * levels share cache entries and are never drawn below their native resolution.
+     */
+    public static float quantizeScale(float requiredScale) {
+        if (requiredScale <= 0f) {
+            return 1f;
+        }
+        int exponent = (int) Math.ceil(Math.log(requiredScale) / Math.log(2));
+        return (float) Math.pow(2, exponent);
+    }
+
+    public static List<TileSpec> plan(int pageWidth, int pageHeight, float scale,
+                                      float left, float top, float right, float bottom, int tileSize) {
+        List<TileSpec> tiles = new ArrayList<>();
+        int scaledWidth = Math.max(1, Math.round(pageWidth * scale));
+        int scaledHeight = Math.max(1, Math.round(pageHeight * scale));
+        int columns = (scaledWidth + tileSize - 1) / tileSize;
+        int rows = (scaledHeight + tileSize - 1) / tileSize;
+
+        int firstColumn = clamp((int) Math.floor(left * scaledWidth / tileSize), 0, columns - 1);
+        int lastColumn = clamp((int) Math.ceil(right * scaledWidth / tileSize) - 1, 0, columns - 1);
+        int firstRow = clamp((int) Math.floor(top * scaledHeight / tileSize), 0, rows - 1);
+        int lastRow = clamp((int) Math.ceil(bottom * scaledHeight / tileSize) - 1, 0, rows - 1);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int x = column * tileSize;
+                int y = row * tileSize;
+                tiles.add(new TileSpec(column, row, x, y,
+                        Math.min(tileSize, scaledWidth - x), Math.min(tileSize, scaledHeight - y)));
+            }
+        }
+        return tiles;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,268 @@
+package com.ahmed.pdfx.pdfreadx.search;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Full-text search of one document. Once started, a background indexer reads the text of one
+ * page at a time into a {@link TextIndex} behind all rendering, beginning at the page being read
+ * and working outward from wherever the reader is. Queries answer from the pages indexed so far,
+ * and the bounds of the hits on the first few matching pages are found with the engine's own
+ * search, remembered per query and page so repeating a search costs only the index lookup.
+ *
+ * A complete index is stored in {@code directory} under the document's fingerprint and read back
+ * the next time the document is searched; without a directory it is kept in memory only. All
+ * methods must be called on the main thread.
+ */
+public class DocumentSearch {
+    private static final String TAG = "DocumentSearch";
+    private static final String INDEX_SUFFIX = ".idx";
+    /** Stored indexes beyond this many are deleted, least recently used first. */
+    static final int MAX_STORED_INDEXES = 32;
+    static final int MAX_CACHED_BOUNDS = 64;
+
+    public interface SearchCallback {
+        void onSearchResult(Result result);
+    }
+
+    public interface BoundsCallback {
+        /** Called with the normalized match bounds on {@code page}, empty if there are none. */
+        void onBounds(int page, float[] bounds);
+    }
+
+    /** The answer to one query from the pages indexed when it ran. */
+    public static final class Result {
+        public final String query;
+        public final int pageCount;
+        public final int indexedPages;
+        /** False if the backend cannot extract text, so nothing will ever be found. */
+        public final boolean supported;
+        public final List<TextIndex.Hit> hits;
+        /** Normalized left, top, right, bottom quadruples of the matches, by page. */
+        public final Map<Integer, float[]> bounds;
+        private final TextIndex index;
+
+        Result(String query, int pageCount, int indexedPages, boolean supported,
+                List<TextIndex.Hit> hits, Map<Integer, float[]> bounds, TextIndex index) {
+            this.query = query;
+            this.pageCount = pageCount;
+            this.indexedPages = indexedPages;
+            this.supported = supported;
+            this.hits = hits;
+            this.bounds = bounds;
+            this.index = index;
+        }
+
+        public boolean isComplete() {
+            return indexedPages == pageCount;
+        }
+
+        /** The text around {@code hit}, for listing results. */
+        public String snippet(TextIndex.Hit hit, int context) {
+            return index != null ? index.snippet(hit, context) : "";
+        }
+    }
+
+    private final PdfRenderEngine engine;
+    private final File directory;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, float[]> boundsCache =
+            new LinkedHashMap<String, float[]>(MAX_CACHED_BOUNDS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                    return size() > MAX_CACHED_BOUNDS;
+                }
+            };
+    private volatile TextIndex index;
+    private volatile int centerPage;
+    private volatile boolean unsupported;
+    private volatile boolean closed;
+    private boolean started;
+
+    public DocumentSearch(PdfRenderEngine engine, File directory) {
+        this.engine = engine;
+        this.directory = directory;
+    }
+
+    /**
+     * Starts indexing unless it has started already, and moves the indexer to continue from
+     * {@code page}, e.g. as the reader turns pages.
+     */
+    public void start(int page) {
+        centerPage = page;
+        if (started || closed) {
+            return;
+        }
+        started = true;
+        try {
+            engine.executeInBackground(this::loadOnWorker);
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile.
+        }
+    }
+
+    /**
+     * Searches the indexed pages for up to {@code maxHits} occurrences of {@code query} and
+     * calls back with them and the bounds of the hits on the first {@code boundsPages} pages.
+     */
+    public void search(String query, int page, int maxHits, int boundsPages, SearchCallback callback) {
+        start(page);
+        TextIndex current = index;
+        List<TextIndex.Hit> hits = current != null ? current.find(query, maxHits) : Collections.emptyList();
+        List<Integer> pages = new ArrayList<>();
+        for (TextIndex.Hit hit : hits) {
+            if (pages.size() == boundsPages) {
+                break;
+            }
+            if (pages.isEmpty() || pages.get(pages.size() - 1) != hit.page) {
+                pages.add(hit.page);
+            }
+        }
+        Map<Integer, float[]> bounds = new LinkedHashMap<>();
+        Runnable deliver = () -> callback.onSearchResult(new Result(query, engine.getPageCount(),
+                current != null ? current.getIndexedPageCount() : 0, !unsupported, hits, bounds, current));
+        if (pages.isEmpty()) {
+            deliver.run();
+            return;
+        }
+        int[] pending = {pages.size()};
+        for (int hitPage : pages) {
+            findBounds(query, hitPage, (boundsPage, pageBounds) -> {
+                bounds.put(boundsPage, pageBounds);
+                if (--pending[0] == 0) {
+                    deliver.run();
+                }
+            });
+        }
+    }
+
+    /** Finds the bounds of {@code query} on {@code page}, from the cache when it was found before. */
+    public void findBounds(String query, int page, BoundsCallback callback) {
+        String key = page + ":" + TextIndex.normalize(query).trim();
+        float[] cached = boundsCache.get(key);
+        if (cached != null) {
+            callback.onBounds(page, cached);
+            return;
+        }
+        engine.findText(page, query, (index, bounds) -> {
+            float[] found = bounds != null ? bounds : new float[0];
+            boundsCache.put(key, found);
+            callback.onBounds(index, found);
+        });
+    }
+
+    /** Stops indexing; queued index work is dropped. */
+    public void close() {
+        closed = true;
+    }
+
+    private File indexFile(String fingerprint) {
+        return new File(directory, fingerprint + INDEX_SUFFIX);
+    }
+
+    private void loadOnWorker() {
+        if (closed) {
+            return;
+        }
+        String fingerprint = directory != null ? engine.getFingerprint() : null;
+        TextIndex loaded = null;
+        if (fingerprint != null) {
+            File file = indexFile(fingerprint);
+            if (file.isFile()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    loaded = TextIndex.readFrom(in);
+                    if (loaded.getPageCount() != engine.getPageCount()) {
+                        loaded = null;
+                    }
+                    file.setLastModified(System.currentTimeMillis());
+                } catch (IOException e) {
+                    Log.w(TAG, "Dropping unreadable index " + file, e);
+                    file.delete();
+                }
+            }
+        }
+        index = loaded != null ? loaded : new TextIndex(engine.getPageCount());
+        indexNext();
+    }
+
+    /** Queues the text of the missing page nearest the reader, or stores the finished index. */
+    private void indexNext() {
+        TextIndex current = index;
+        int page = current.nearestMissingPage(centerPage);
+        if (page < 0) {
+            if (current.getIndexedPageCount() > 0) {
+                storeOnWorker(current);
+            }
+            return;
+        }
+        try {
+            engine.readText(page, (index, text) -> {
+                if (closed) {
+                    return;
+                }
+                if (text == null) {
+                    unsupported = true;
+                    return;
+                }
+                current.addPage(index, text);
+                indexNext();
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile.
+        }
+    }
+
+    private void storeOnWorker(TextIndex complete) {
+        String fingerprint = directory != null ? engine.getFingerprint() : null;
+        if (fingerprint == null || (!directory.isDirectory() && !directory.mkdirs())) {
+            return;
+        }
+        File file = indexFile(fingerprint);
+        if (file.isFile()) {
+            return;
+        }
+        File temporary = new File(directory, fingerprint + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            complete.writeTo(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot store the index of " + fingerprint, e);
+            temporary.delete();
+            return;
+        }
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+        }
+        trimStoredIndexes();
+    }
+
+    private void trimStoredIndexes() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(INDEX_SUFFIX));
+        if (files == null || files.length <= MAX_STORED_INDEXES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_STORED_INDEXES; i++) {
+            files[i].delete();
+        }
+    }
+}
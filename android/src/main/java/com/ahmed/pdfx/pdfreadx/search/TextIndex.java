@@ -0,0 +1,330 @@
+package com.ahmed.pdfx.pdfreadx.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index of the words on the pages of a document, filled in one page at a time in any
+ * order and queryable at any time, so a search answers from the pages indexed so far.
+ *
+ * Page text is kept normalized: lower case, with every run of white space reduced to one space.
+ * A query matches wherever its normalized form occurs in a page's, including inside words. The
+ * word postings narrow a query down to the pages that can contain it, which are then scanned,
+ * and the results of recent queries are kept until another page is added.
+ *
+ * Safe to use from any thread.
+ */
+public final class TextIndex {
+    private static final int MAGIC = 0x50445849;
+    private static final int FORMAT_VERSION = 1;
+    static final int MAX_CACHED_QUERIES = 16;
+
+    /** One occurrence of a query: where it starts in the normalized text of a page. */
+    public static final class Hit {
+        public final int page;
+        public final int start;
+        public final int length;
+
+        Hit(int page, int start, int length) {
+            this.page = page;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public String toString() {
+            return "Hit[page=" + page + ", start=" + start + ", length=" + length + "]";
+        }
+    }
+
+    /** The pages a word occurs on, in the order they were indexed, each once. */
+    private static final class Postings {
+        int[] pages = new int[2];
+        int size;
+
+        void add(int page) {
+            // A page adds all of its words at once, so a repeat is always the last entry.
+            if (size > 0 && pages[size - 1] == page) {
+                return;
+            }
+            if (size == pages.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(pages, 0, grown, 0, size);
+                pages = grown;
+            }
+            pages[size++] = page;
+        }
+
+        void addTo(BitSet set) {
+            for (int i = 0; i < size; i++) {
+                set.set(pages[i]);
+            }
+        }
+    }
+
+    private final String[] pageTexts;
+    private final BitSet indexed;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, List<Hit>> recentQueries =
+            new LinkedHashMap<String, List<Hit>>(MAX_CACHED_QUERIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<Hit>> eldest) {
+                    return size() > MAX_CACHED_QUERIES;
+                }
+            };
+    private int indexedCount;
+
+    public TextIndex(int pageCount) {
+        this.pageTexts = new String[pageCount];
+        this.indexed = new BitSet(pageCount);
+    }
+
+    public int getPageCount() {
+        return pageTexts.length;
+    }
+
+    public synchronized int getIndexedPageCount() {
+        return indexedCount;
+    }
+
+    public synchronized boolean isComplete() {
+        return indexedCount == pageTexts.length;
+    }
+
+    public synchronized boolean contains(int page) {
+        return indexed.get(page);
+    }
+
+    /**
+     * Returns the page nearest to {@code center} that is not indexed yet, the later one on a tie,
+     * or -1 once every page is.
+     */
+    public synchronized int nearestMissingPage(int center) {
+        center = Math.max(0, Math.min(center, pageTexts.length - 1));
+        int after = indexed.nextClearBit(center);
+        int before = indexed.previousClearBit(center);
+        if (after >= pageTexts.length) {
+            after = -1;
+        }
+        if (after < 0 || (before >= 0 && center - before < after - center)) {
+            return before;
+        }
+        return after;
+    }
+
+    /** Indexes the text of {@code page}; a page that is indexed already stays as it is. */
+    public synchronized void addPage(int page, String text) {
+        if (indexed.get(page)) {
+            return;
+        }
+        String normalized = normalize(text);
+        pageTexts[page] = normalized;
+        indexed.set(page);
+        indexedCount++;
+        int length = normalized.length();
+        int wordStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && isWordChar(normalized.charAt(i));
+            if (wordChar && wordStart < 0) {
+                wordStart = i;
+            } else if (!wordChar && wordStart >= 0) {
+                String word = normalized.substring(wordStart, i);
+                Postings pages = postings.get(word);
+                if (pages == null) {
+                    pages = new Postings();
+                    postings.put(word, pages);
+                }
+                pages.add(page);
+                wordStart = -1;
+            }
+        }
+        recentQueries.clear();
+    }
+
+    /**
+     * Returns up to {@code maxHits} occurrences of {@code query} on the indexed pages, by page
+     * and then by position. Occurrences do not overlap.
+     */
+    public synchronized List<Hit> find(String query, int maxHits) {
+        String normalized = normalize(query).trim();
+        if (normalized.isEmpty() || maxHits <= 0) {
+            return Collections.emptyList();
+        }
+        String cacheKey = maxHits + ":" + normalized;
+        List<Hit> cached = recentQueries.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        List<Hit> hits = new ArrayList<>();
+        BitSet candidates = candidatePages(normalized);
+        for (int page = candidates.nextSetBit(0); page >= 0 && hits.size() < maxHits;
+                page = candidates.nextSetBit(page + 1)) {
+            String text = pageTexts[page];
+            int start = text.indexOf(normalized);
+            while (start >= 0 && hits.size() < maxHits) {
+                hits.add(new Hit(page, start, normalized.length()));
+                start = text.indexOf(normalized, start + normalized.length());
+            }
+        }
+        hits = Collections.unmodifiableList(hits);
+        recentQueries.put(cacheKey, hits);
+        return hits;
+    }
+
+    /**
+     * Narrows a query down to the pages whose words allow it: a lone word may lie inside any
+     * word, otherwise the first word ends one, the last starts one and those between are whole.
+     */
+    private BitSet candidatePages(String query) {
+        List<String> words = words(query);
+        BitSet candidates = new BitSet(pageTexts.length);
+        if (words.isEmpty()) {
+            candidates.or(indexed);
+            return candidates;
+        }
+        if (words.size() == 1) {
+            String word = words.get(0);
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                if (entry.getKey().contains(word)) {
+                    entry.getValue().addTo(candidates);
+                }
+            }
+            return candidates;
+        }
+        // Whole words are cheap to look up, so they go first and may rule out everything.
+        candidates.or(indexed);
+        for (int i = 1; i < words.size() - 1 && !candidates.isEmpty(); i++) {
+            Postings pages = postings.get(words.get(i));
+            if (pages == null) {
+                candidates.clear();
+                break;
+            }
+            BitSet wordPages = new BitSet(pageTexts.length);
+            pages.addTo(wordPages);
+            candidates.and(wordPages);
+        }
+        String first = words.get(0);
+        String last = words.get(words.size() - 1);
+        if (!candidates.isEmpty()) {
+            BitSet firstPages = new BitSet(pageTexts.length);
+            BitSet lastPages = new BitSet(pageTexts.length);
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                String word = entry.getKey();
+                if (word.endsWith(first)) {
+                    entry.getValue().addTo(firstPages);
+                }
+                if (word.startsWith(last)) {
+                    entry.getValue().addTo(lastPages);
+                }
+            }
+            candidates.and(firstPages);
+            candidates.and(lastPages);
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the normalized text of {@code hit}'s page around it, at most {@code context}
+     * characters to each side, or an empty string if the page is not indexed.
+     */
+    public synchronized String snippet(Hit hit, int context) {
+        String text = pageTexts[hit.page];
+        if (text == null) {
+            return "";
+        }
+        int start = Math.max(0, hit.start - context);
+        int end = Math.min(text.length(), hit.start + hit.length + context);
+        return text.substring(start, end);
+    }
+
+    /**
+     * Lower-cases {@code text} character by character and reduces every run of white space to
+     * one space, the form pages are indexed and queries are matched in.
+     */
+    public static String normalize(CharSequence text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = true;
+                continue;
+            }
+            if (space && normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            space = false;
+            normalized.append(Character.toLowerCase(c));
+        }
+        if (space && normalized.length() > 0) {
+            normalized.append(' ');
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && isWordChar(text.charAt(i));
+            if (wordChar && wordStart < 0) {
+                wordStart = i;
+            } else if (!wordChar && wordStart >= 0) {
+                words.add(text.substring(wordStart, i));
+                wordStart = -1;
+            }
+        }
+        return words;
+    }
+
+    /** Writes the indexed pages; {@link #readFrom} rebuilds the word postings from them. */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(pageTexts.length);
+        out.writeInt(indexedCount);
+        for (int page = indexed.nextSetBit(0); page >= 0; page = indexed.nextSetBit(page + 1)) {
+            byte[] text = pageTexts[page].getBytes(StandardCharsets.UTF_8);
+            out.writeInt(page);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+    }
+
+    /** Reads an index written by {@link #writeTo}. */
+    public static TextIndex readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a text index");
+        }
+        int pageCount = in.readInt();
+        int count = in.readInt();
+        if (pageCount < 0 || count < 0 || count > pageCount) {
+            throw new IOException("Corrupt text index");
+        }
+        TextIndex index = new TextIndex(pageCount);
+        for (int i = 0; i < count; i++) {
+            int page = in.readInt();
+            int length = in.readInt();
+            if (page < 0 || page >= pageCount || length < 0) {
+                throw new IOException("Corrupt text index");
+            }
+            byte[] text = new byte[length];
+            in.readFully(text);
+            index.addPage(page, new String(text, StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+}
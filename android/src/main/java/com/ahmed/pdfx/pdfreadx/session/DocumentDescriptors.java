@@ -0,0 +1,137 @@
+package com.ahmed.pdfx.pdfreadx.session;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import androidx.annotation.RequiresApi;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Turns the places a document can come from into the seekable file descriptor
+ * {@code PdfRenderer} reads: content URIs are opened as descriptors directly, and documents
+ * held in memory are written to an anonymous memory file, so nothing goes through storage.
+ * Before Android 11, which made memory files public API, a deleted temporary file stands in.
+ */
+final class DocumentDescriptors {
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private DocumentDescriptors() {
+    }
+
+    /**
+     * Opens {@code uri} read-only. Most providers hand out a descriptor of the file itself; one
+     * that streams through a pipe, which cannot seek, is copied instead.
+     */
+    static ParcelFileDescriptor open(Context context, Uri uri) throws IOException {
+        ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(uri, "r");
+        if (descriptor == null) {
+            throw new FileNotFoundException("No document at " + uri);
+        }
+        if (isSeekable(descriptor.getFileDescriptor())) {
+            return descriptor;
+        }
+        try (InputStream in = new ParcelFileDescriptor.AutoCloseInputStream(descriptor)) {
+            return fromStream(context, String.valueOf(uri.getLastPathSegment()), in);
+        }
+    }
+
+    /** Returns a descriptor of a copy of {@code bytes} in memory. */
+    static ParcelFileDescriptor fromBytes(Context context, String name, byte[] bytes) throws IOException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return fromTemporaryFile(context, name, bytes, null);
+        }
+        FileDescriptor memory = createMemoryFile(name);
+        try {
+            write(memory, bytes, bytes.length);
+            return ParcelFileDescriptor.dup(memory);
+        } finally {
+            closeQuietly(memory);
+        }
+    }
+
+    private static ParcelFileDescriptor fromStream(Context context, String name, InputStream in) throws IOException {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            return fromTemporaryFile(context, name, null, in);
+        }
+        FileDescriptor memory = createMemoryFile(name);
+        try {
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                write(memory, buffer, read);
+            }
+            return ParcelFileDescriptor.dup(memory);
+        } finally {
+            closeQuietly(memory);
+        }
+    }
+
+    /** Writes the document to a file that is deleted once open; the descriptor keeps it readable. */
+    private static ParcelFileDescriptor fromTemporaryFile(Context context, String name, byte[] bytes,
+                                                          InputStream in) throws IOException {
+        File file = File.createTempFile("pdfreadx-", ".pdf", context.getCacheDir());
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                if (bytes != null) {
+                    out.write(bytes);
+                } else {
+                    byte[] buffer = new byte[COPY_BUFFER_BYTES];
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+            }
+            return ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.R)
+    private static FileDescriptor createMemoryFile(String name) throws IOException {
+        try {
+            return Os.memfd_create(name, OsConstants.MFD_CLOEXEC);
+        } catch (ErrnoException e) {
+            throw new IOException("Cannot create a memory file for " + name, e);
+        }
+    }
+
+    private static boolean isSeekable(FileDescriptor descriptor) {
+        try {
+            Os.lseek(descriptor, 0, OsConstants.SEEK_SET);
+            return true;
+        } catch (ErrnoException e) {
+            return false;
+        }
+    }
+
+    private static void write(FileDescriptor descriptor, byte[] bytes, int count) throws IOException {
+        try {
+            for (int offset = 0; offset < count; ) {
+                offset += Os.write(descriptor, bytes, offset, count - offset);
+            }
+        } catch (ErrnoException e) {
+            throw new IOException("Cannot write to a memory file", e);
+        }
+    }
+
+    private static void closeQuietly(FileDescriptor descriptor) {
+        try {
+            Os.close(descriptor);
+        } catch (ErrnoException e) {
+            // ignored
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.ahmed.pdfx.pdfreadx.session;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+
+import androidx.annotation.NonNull;
+
+import com.ahmed.pdfx.pdfreadx.cache.DiskPageCache;
+import com.ahmed.pdfx.pdfreadx.cache.PageMetadataStore;
+import com.ahmed.pdfx.pdfreadx.cache.DocumentFingerprint;
+import com.ahmed.pdfx.pdfreadx.cache.MemoryGovernor;
+import com.ahmed.pdfx.pdfreadx.metrics.RenderMetrics;
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+import com.ahmed.pdfx.pdfreadx.search.DocumentSearch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the documents of the process open once for everyone: the plugin's channels and any
+ * number of viewer activities share one engine per file, and one {@link MemoryGovernor} sizes
+ * the caches and render workers of all of them together.
+ *
+ * Sessions are reference counted. {@link #openAsync} and {@link #acquire} each take a reference
+ * that must be given back with {@link #release}. A session nobody references stays open for
+ * {@link #IDLE_TIMEOUT_MS} so a quick reopen finds it warm, and is closed right away once the
+ * app goes to the background. All methods must be called on the main thread, except
+ * {@link #openAsync}: a background thread may call it too, and then opens the document itself.
+ */
+public class DocumentRegistry {
+    static final long IDLE_TIMEOUT_MS = 30_000;
+    private static final String TEXT_INDEX_DIRECTORY = "pdfreadx-text";
+
+    private static DocumentRegistry instance;
+
+    /** Receives the outcome of {@link #openAsync} on the main thread. */
+    public interface OpenCallback {
+        /**
+         * Called while the document is still opening with a rendering of its first page stored
+         * by an earlier open, if there is one. The callee owns one reference to {@code cover}
+         * and gives it back to the governor's bitmap pool.
+         */
+        void onCover(Bitmap cover);
+
+        void onOpened(DocumentSession session);
+
+        void onOpenFailed(Exception e);
+    }
+
+    private final Context applicationContext;
+    private final MemoryGovernor memoryGovernor;
+    private final DiskPageCache diskCache;
+    private final PageMetadataStore metadataStore;
+    private final File textIndexDirectory;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // One thread per document being opened, so a large document does not hold up the others.
+    private final ExecutorService openExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "pdfreadx-open");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Integer, DocumentSession> sessions = new HashMap<>();
+    // Also read off the main thread by openAsync, to tell whether a document needs opening.
+    private final Map<String, DocumentSession> sessionsByPath = new ConcurrentHashMap<>();
+    private final List<MemoryGovernor.ResolutionListener> resolutionListeners = new CopyOnWriteArrayList<>();
+    private int nextHandle = 1;
+    private final AtomicInteger nextMemoryDocument = new AtomicInteger(1);
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            memoryGovernor.onTrimMemory(level);
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+                closeIdleSessions();
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            memoryGovernor.onLowMemory();
+            closeIdleSessions();
+        }
+
+        @Override
+        public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        }
+    };
+
+    /** Returns the registry of the process, creating it on first use. */
+    public static synchronized DocumentRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new DocumentRegistry(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DocumentRegistry(Context applicationContext) {
+        this.applicationContext = applicationContext;
+        memoryGovernor = MemoryGovernor.create(applicationContext);
+        diskCache = DiskPageCache.getInstance(applicationContext);
+        metadataStore = PageMetadataStore.getInstance(applicationContext);
+        textIndexDirectory = new File(applicationContext.getCacheDir(), TEXT_INDEX_DIRECTORY);
+        memoryGovernor.setResolutionListener(multiplier -> {
+            int workers = memoryGovernor.getRenderWorkerCount();
+            for (DocumentSession session : sessions.values()) {
+                session.getEngine().setRenderWorkerCount(workers);
+            }
+            for (MemoryGovernor.ResolutionListener listener : resolutionListeners) {
+                listener.onResolutionChanged(multiplier);
+            }
+        });
+        applicationContext.registerComponentCallbacks(memoryCallbacks);
+    }
+
+    /** The governor whose budget covers every open document. */
+    public MemoryGovernor getMemoryGovernor() {
+        return memoryGovernor;
+    }
+
+    public void addResolutionListener(MemoryGovernor.ResolutionListener listener) {
+        resolutionListeners.add(listener);
+    }
+
+    public void removeResolutionListener(MemoryGovernor.ResolutionListener listener) {
+        resolutionListeners.remove(listener);
+    }
+
+    private interface DescriptorOpener {
+        ParcelFileDescriptor open() throws IOException;
+    }
+
+    /**
+     * Returns the session of {@code file} to {@code callback} with one reference taken for the
+     * caller. An open session is delivered right away; otherwise the file is opened and the
+     * document parsed in the background so the caller can draw meanwhile, or, when called from a
+     * background thread, on that thread before this returns.
+     */
+    public void openAsync(File file, OpenCallback callback) {
+        openAsync(file.getAbsolutePath(), true,
+                () -> ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY), callback);
+    }
+
+    /**
+     * Like {@link #openAsync(File, OpenCallback)} for a {@code content://} or {@code file://}
+     * URI, which is read through its descriptor without copying the document anywhere.
+     */
+    public void openAsync(Uri uri, OpenCallback callback) {
+        openAsync(uri.toString(), true, () -> DocumentDescriptors.open(applicationContext, uri), callback);
+    }
+
+    /**
+     * Opens a document held in memory as a session of its own; there is no cover. Nothing of it
+     * is stored on disk, neither renderings nor its text index.
+     */
+    public void openAsync(byte[] bytes, String name, OpenCallback callback) {
+        openAsync(memoryPath(name), false, () -> DocumentDescriptors.fromBytes(applicationContext, name, bytes), callback);
+    }
+
+    /** Names a document held in memory uniquely, so it never shares a session. */
+    private String memoryPath(String name) {
+        return "memory:" + nextMemoryDocument.getAndIncrement() + ":" + name;
+    }
+
+    /**
+     * Opens the document known as {@code path}, or with {@code persistent} delivers the session
+     * already open under that path. Only persistent documents use the disk caches.
+     */
+    private void openAsync(String path, boolean persistent, DescriptorOpener opener, OpenCallback callback) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            if (sessionsByPath.containsKey(path)) {
+                // Taking the reference is up to the main thread, which opens it anew if it closed meanwhile.
+                mainHandler.post(() -> openAsync(path, persistent, opener, callback));
+            } else {
+                openOnWorker(path, persistent, opener, callback);
+            }
+            return;
+        }
+        DocumentSession session = sessionsByPath.get(path);
+        if (session != null) {
+            retain(session);
+            callback.onOpened(session);
+            return;
+        }
+        openExecutor.execute(() -> openOnWorker(path, persistent, opener, callback));
+    }
+
+    /** Opens and parses the document on the calling thread, and registers it on the main thread. */
+    private void openOnWorker(String path, boolean persistent, DescriptorOpener opener, OpenCallback callback) {
+        long start = System.nanoTime();
+        PdfRenderEngine engine;
+        try {
+            ParcelFileDescriptor parcelFileDescriptor = opener.open();
+            if (persistent) {
+                // Reading the stored page is quick next to parsing a large document.
+                loadCoverOnWorker(parcelFileDescriptor, callback);
+            }
+            engine = createEngine(path, persistent, parcelFileDescriptor);
+        } catch (IOException | RuntimeException e) {
+            mainHandler.post(() -> callback.onOpenFailed(e));
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        mainHandler.post(() -> {
+            DocumentSession opened = sessionsByPath.get(path);
+            if (opened != null) {
+                // Opened by someone else meanwhile.
+                engine.close();
+                retain(opened);
+            } else {
+                RenderMetrics.getInstance().recordDocumentOpen(nanos);
+                opened = register(path, persistent, engine);
+            }
+            callback.onOpened(opened);
+        });
+    }
+
+    private void loadCoverOnWorker(ParcelFileDescriptor parcelFileDescriptor, OpenCallback callback) {
+        String entry;
+        try {
+            entry = diskCache.latestPageEntry(DocumentFingerprint.of(parcelFileDescriptor), 0);
+        } catch (IOException e) {
+            return;
+        }
+        Bitmap cover = entry != null ? diskCache.get(entry, memoryGovernor.getCaches().bitmapPool) : null;
+        if (cover != null) {
+            mainHandler.post(() -> callback.onCover(cover));
+        }
+    }
+
+    /** Creates the engine of a document, closing the descriptor if that fails. */
+    private PdfRenderEngine createEngine(String path, boolean persistent,
+                                         ParcelFileDescriptor parcelFileDescriptor) throws IOException {
+        try {
+            return new PdfRenderEngine(parcelFileDescriptor, path, memoryGovernor.getCaches(),
+                    persistent ? diskCache : null);
+        } catch (IOException | RuntimeException e) {
+            try {
+                parcelFileDescriptor.close();
+            } catch (IOException ignored) {
+                // ignored
+            }
+            throw e;
+        }
+    }
+
+    private DocumentSession register(String path, boolean persistent, PdfRenderEngine engine) {
+        engine.setRenderWorkerCount(memoryGovernor.getRenderWorkerCount());
+        if (persistent) {
+            engine.setMetadataStore(metadataStore);
+        }
+        DocumentSearch search = new DocumentSearch(engine, persistent ? textIndexDirectory : null);
+        DocumentSession session = new DocumentSession(nextHandle++, path, engine, search);
+        sessions.put(session.getHandle(), session);
+        sessionsByPath.put(path, session);
+        retain(session);
+        return session;
+    }
+
+    /** Takes a reference to the open session {@code handle}, or returns null if there is none. */
+    public DocumentSession acquire(int handle) {
+        DocumentSession session = sessions.get(handle);
+        if (session != null) {
+            retain(session);
+        }
+        return session;
+    }
+
+    /** Gives back a reference from {@link #openAsync} or {@link #acquire}. */
+    public void release(DocumentSession session) {
+        if (session.referenceCount <= 0) {
+            throw new IllegalStateException("Released too often: " + session);
+        }
+        if (--session.referenceCount == 0 && sessions.get(session.getHandle()) == session) {
+            session.pendingClose = () -> close(session);
+            mainHandler.postDelayed(session.pendingClose, IDLE_TIMEOUT_MS);
+        }
+    }
+
+    private void retain(DocumentSession session) {
+        if (session.pendingClose != null) {
+            mainHandler.removeCallbacks(session.pendingClose);
+            session.pendingClose = null;
+        }
+        session.referenceCount++;
+    }
+
+    private void closeIdleSessions() {
+        for (DocumentSession session : new ArrayList<>(sessions.values())) {
+            if (session.referenceCount == 0) {
+                close(session);
+            }
+        }
+    }
+
+    private void close(DocumentSession session) {
+        if (session.pendingClose != null) {
+            mainHandler.removeCallbacks(session.pendingClose);
+            session.pendingClose = null;
+        }
+        sessions.remove(session.getHandle());
+        sessionsByPath.remove(session.getPath());
+        session.getSearch().close();
+        session.getEngine().close();
+    }
+}
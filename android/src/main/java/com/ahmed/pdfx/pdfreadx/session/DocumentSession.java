@@ -0,0 +1,51 @@
+package com.ahmed.pdfx.pdfreadx.session;
+
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+import com.ahmed.pdfx.pdfreadx.search.DocumentSearch;
+
+/**
+ * One open document, shared by every view and channel that works with it. Obtained and given
+ * back through {@link DocumentRegistry}, which closes it once nobody has held it for a while.
+ */
+public final class DocumentSession {
+    private final int handle;
+    private final String path;
+    private final PdfRenderEngine engine;
+    private final DocumentSearch search;
+    int referenceCount;
+    Runnable pendingClose;
+
+    DocumentSession(int handle, String path, PdfRenderEngine engine, DocumentSearch search) {
+        this.handle = handle;
+        this.path = path;
+        this.engine = engine;
+        this.search = search;
+    }
+
+    /** The id Flutter refers to this document by. */
+    public int getHandle() {
+        return handle;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public PdfRenderEngine getEngine() {
+        return engine;
+    }
+
+    /** The text search of the document, which indexes nothing until first started. */
+    public DocumentSearch getSearch() {
+        return search;
+    }
+
+    public int getPageCount() {
+        return engine.getPageCount();
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentSession[" + handle + ", " + path + ", references=" + referenceCount + "]";
+    }
+}
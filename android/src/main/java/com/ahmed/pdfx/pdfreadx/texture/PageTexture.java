@@ -0,0 +1,148 @@
+package com.ahmed.pdfx.pdfreadx.texture;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RectF;
+import android.view.Surface;
+
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+import io.flutter.view.TextureRegistry;
+
+/**
+ * A Flutter texture that shows renderings of one document. Each rendered bitmap is drawn straight
+ * onto the texture's surface, so pixels never travel through the platform channel.
+ *
+ * Renders are latest-wins per texture: while one is in flight only the newest request waits, and
+ * the requests it replaces are answered with null. Every request is answered exactly once. All
+ * methods must be called on the main thread.
+ */
+public class PageTexture {
+    private final TextureRegistry.SurfaceTextureEntry entry;
+    private final Surface surface;
+    private final int documentId;
+    private RenderRequest pending;
+    private boolean rendering = false;
+    private boolean released = false;
+
+    private static final class RenderRequest {
+        final PdfRenderEngine engine;
+        final int pageIndex;
+        final RectF region;
+        final int width;
+        final int height;
+        final Result result;
+
+        RenderRequest(PdfRenderEngine engine, int pageIndex, RectF region, int width, int height, Result result) {
+            this.engine = engine;
+            this.pageIndex = pageIndex;
+            this.region = region;
+            this.width = width;
+            this.height = height;
+            this.result = result;
+        }
+    }
+
+    public PageTexture(TextureRegistry textureRegistry, int documentId) {
+        this.entry = textureRegistry.createSurfaceTexture();
+        this.surface = new Surface(entry.surfaceTexture());
+        this.documentId = documentId;
+    }
+
+    public long id() {
+        return entry.id();
+    }
+
+    public int getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * Renders {@code region} of a page, or the whole page if it is null, to fit
+     * {@code width} x {@code height} and shows it. Answers {@code result} with the texture id and
+     * the size of the rendering, or with null if a newer request replaced this one.
+     */
+    public void render(PdfRenderEngine engine, int pageIndex, RectF region, int width, int height, Result result) {
+        RenderRequest request = new RenderRequest(engine, pageIndex, region, width, height, result);
+        if (released) {
+            result.error("TEXTURE_DISPOSED", "Texture " + id() + " was disposed.", null);
+            return;
+        }
+        if (rendering) {
+            if (pending != null) {
+                pending.result.success(null);
+            }
+            pending = request;
+            return;
+        }
+        start(request);
+    }
+
+    private void start(RenderRequest request) {
+        rendering = true;
+        request.engine.requestRegion(request.pageIndex, request.region, request.width, request.height,
+                new PdfRenderEngine.PageCallback() {
+                    @Override
+                    public void onPageRendered(int index, Bitmap bitmap) {
+                        if (released) {
+                            request.result.success(null);
+                        } else {
+                            draw(bitmap);
+                            Map<String, Object> info = new HashMap<>();
+                            info.put("textureId", id());
+                            info.put("width", bitmap.getWidth());
+                            info.put("height", bitmap.getHeight());
+                            request.result.success(info);
+                        }
+                        finish();
+                    }
+
+                    @Override
+                    public void onPageFailed(int index, Exception e) {
+                        request.result.error("RENDER_FAILED", "Failed to render page " + index + ": " + e.getMessage(), null);
+                        finish();
+                    }
+                });
+    }
+
+    private void finish() {
+        rendering = false;
+        RenderRequest next = pending;
+        pending = null;
+        if (next != null) {
+            if (released) {
+                next.result.success(null);
+            } else {
+                start(next);
+            }
+        }
+    }
+
+    private void draw(Bitmap bitmap) {
+        entry.surfaceTexture().setDefaultBufferSize(bitmap.getWidth(), bitmap.getHeight());
+        Canvas canvas = surface.lockHardwareCanvas();
+        try {
+            canvas.drawBitmap(bitmap, 0f, 0f, null);
+        } finally {
+            surface.unlockCanvasAndPost(canvas);
+        }
+    }
+
+    /** Releases the texture; a render still in flight is answered with null when it lands. */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        if (pending != null) {
+            pending.result.success(null);
+            pending = null;
+        }
+        surface.release();
+        entry.release();
+    }
+}
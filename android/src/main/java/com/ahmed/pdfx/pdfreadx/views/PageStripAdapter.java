@@ -0,0 +1,137 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.ahmed.pdfx.pdfreadx.cache.BitmapPool;
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+
+/**
+ * Binds the pages of a document to a recycled vertical list. Each item is a placeholder sized
+ * from the page dimensions, so the list lays out before anything is rendered, and only items that
+ * are bound hold a bitmap: binding requests the page, recycling cancels the request and gives the
+ * bitmap back to the pool.
+ */
+public class PageStripAdapter extends RecyclerView.Adapter<PageStripAdapter.PageHolder> {
+    public interface OnPageShownListener {
+        void onPageShown(int index);
+    }
+
+    /** Zoomed strips are rendered at most this much sharper; several pages can be bound at once. */
+    private static final float MAX_RENDER_ZOOM = 2f;
+
+    private final PdfRenderEngine.Client renderClient;
+    private final PdfRenderEngine renderEngine;
+    private final BitmapPool bitmapPool;
+    private int reqWidth;
+    private int reqHeight;
+    private float zoom = 1f;
+    private OnPageShownListener pageShownListener;
+
+    public PageStripAdapter(PdfRenderEngine.Client renderClient, BitmapPool bitmapPool, int reqWidth, int reqHeight) {
+        this.renderClient = renderClient;
+        this.renderEngine = renderClient.getEngine();
+        this.bitmapPool = bitmapPool;
+        this.reqWidth = reqWidth;
+        this.reqHeight = reqHeight;
+    }
+
+    /** Calls {@code listener} with every page rendered onto the strip until it is removed. */
+    public void setPageShownListener(OnPageShownListener listener) {
+        this.pageShownListener = listener;
+    }
+
+    /** Changes the size pages are rendered to fit and re-renders the bound pages. */
+    public void setRequestSize(int reqWidth, int reqHeight) {
+        this.reqWidth = reqWidth;
+        this.reqHeight = reqHeight;
+        notifyDataSetChanged();
+    }
+
+    /** Renders the bound pages for a zoomed strip; 1 renders them at the fitted size. */
+    public void setZoom(float zoom) {
+        zoom = Math.max(1f, Math.min(zoom, MAX_RENDER_ZOOM));
+        if (zoom == this.zoom) {
+            return;
+        }
+        this.zoom = zoom;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getItemCount() {
+        return renderEngine.getPageCount();
+    }
+
+    @NonNull
+    @Override
+    public PageHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        PageView view = new PageView(parent.getContext());
+        view.setScaleType(ImageView.ScaleType.FIT_XY);
+        view.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        return new PageHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull PageHolder holder, int position) {
+        int width = renderEngine.getPageWidth(position);
+        int height = renderEngine.getPageHeight(position);
+        holder.pageView.setPageSize(width, height);
+        if (holder.pageIndex != position) {
+            holder.setBitmap(null);
+        }
+        holder.pageIndex = position;
+        renderClient.requestStripPage(position, Math.round(reqWidth * zoom), Math.round(reqHeight * zoom), holder);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull PageHolder holder) {
+        renderClient.cancelStripPage(holder.pageIndex);
+        holder.pageIndex = RecyclerView.NO_POSITION;
+        holder.setBitmap(null);
+    }
+
+    class PageHolder extends RecyclerView.ViewHolder implements PdfRenderEngine.PageCallback {
+        final PageView pageView;
+        int pageIndex = RecyclerView.NO_POSITION;
+        private Bitmap bitmap;
+
+        PageHolder(PageView pageView) {
+            super(pageView);
+            this.pageView = pageView;
+        }
+
+        @Override
+        public void onPageRendered(int index, Bitmap rendered) {
+            if (index == pageIndex) {
+                setBitmap(rendered);
+                if (pageShownListener != null) {
+                    pageShownListener.onPageShown(index);
+                }
+            }
+        }
+
+        @Override
+        public void onPageFailed(int index, Exception e) {
+            Log.d("PageStripAdapter", "Could not render page " + index + ": " + e.getMessage());
+        }
+
+        void setBitmap(Bitmap newBitmap) {
+            if (newBitmap == bitmap) {
+                return;
+            }
+            if (newBitmap != null) {
+                bitmapPool.retain(newBitmap);
+            }
+            pageView.setImageBitmap(newBitmap);
+            bitmapPool.release(bitmap);
+            bitmap = newBitmap;
+        }
+    }
+}
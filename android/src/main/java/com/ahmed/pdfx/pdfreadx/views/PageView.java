@@ -0,0 +1,43 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.util.AttributeSet;
+
+import androidx.appcompat.widget.AppCompatImageView;
+
+/**
+ * White page placeholder that takes the width it is given and a height that follows the page's
+ * aspect ratio, so lists of pages lay out at their final size before anything is rendered.
+ */
+public class PageView extends AppCompatImageView {
+    /** ISO paper, used until the page size is known. */
+    private static final float DEFAULT_ASPECT_RATIO = 1.4142f;
+
+    private float aspectRatio = DEFAULT_ASPECT_RATIO;
+
+    public PageView(Context context) {
+        super(context);
+        setBackgroundColor(Color.WHITE);
+    }
+
+    public PageView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        setBackgroundColor(Color.WHITE);
+    }
+
+    /** Sets the page size in any unit; a zero size falls back to the default aspect ratio. */
+    public void setPageSize(int width, int height) {
+        float ratio = width > 0 && height > 0 ? (float) height / width : DEFAULT_ASPECT_RATIO;
+        if (ratio != aspectRatio) {
+            aspectRatio = ratio;
+            requestLayout();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        setMeasuredDimension(width, Math.round(width * aspectRatio));
+    }
+}
@@ -0,0 +1,122 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.ahmed.pdfx.pdfreadx.R;
+import com.ahmed.pdfx.pdfreadx.cache.BitmapPool;
+import com.ahmed.pdfx.pdfreadx.render.PdfRenderEngine;
+
+/**
+ * Binds page thumbnails to a grid. Binding requests the thumbnail, which the engine renders
+ * straight at thumbnail size, and recycling cancels it, so while the grid scrolls only the cells
+ * on screen are rendered and each one fills in as soon as its thumbnail is ready.
+ */
+public class ThumbnailGridAdapter extends RecyclerView.Adapter<ThumbnailGridAdapter.ThumbnailHolder> {
+    private static final int CURRENT_PAGE_COLOR = 0x402196F3;
+
+    public interface OnPageSelectedListener {
+        void onPageSelected(int index);
+    }
+
+    private final PdfRenderEngine.Client renderClient;
+    private final PdfRenderEngine renderEngine;
+    private final BitmapPool bitmapPool;
+    private final int thumbnailWidth;
+    private final OnPageSelectedListener listener;
+    private int currentPage = RecyclerView.NO_POSITION;
+
+    public ThumbnailGridAdapter(PdfRenderEngine.Client renderClient, BitmapPool bitmapPool, int thumbnailWidth,
+                                OnPageSelectedListener listener) {
+        this.renderClient = renderClient;
+        this.renderEngine = renderClient.getEngine();
+        this.bitmapPool = bitmapPool;
+        this.thumbnailWidth = thumbnailWidth;
+        this.listener = listener;
+    }
+
+    /** Highlights the page being read. */
+    public void setCurrentPage(int index) {
+        int previous = currentPage;
+        currentPage = index;
+        if (previous != RecyclerView.NO_POSITION) {
+            notifyItemChanged(previous);
+        }
+        notifyItemChanged(index);
+    }
+
+    @Override
+    public int getItemCount() {
+        return renderEngine.getPageCount();
+    }
+
+    @NonNull
+    @Override
+    public ThumbnailHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_thumbnail, parent, false);
+        return new ThumbnailHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ThumbnailHolder holder, int position) {
+        holder.pageView.setPageSize(renderEngine.getPageWidth(position), renderEngine.getPageHeight(position));
+        holder.label.setText(String.valueOf(position + 1));
+        holder.itemView.setBackgroundColor(position == currentPage ? CURRENT_PAGE_COLOR : Color.TRANSPARENT);
+        if (holder.pageIndex != position) {
+            holder.setBitmap(null);
+        }
+        holder.pageIndex = position;
+        renderClient.requestThumbnail(position, thumbnailWidth, holder);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ThumbnailHolder holder) {
+        renderClient.cancelThumbnail(holder.pageIndex);
+        holder.pageIndex = RecyclerView.NO_POSITION;
+        holder.setBitmap(null);
+    }
+
+    class ThumbnailHolder extends RecyclerView.ViewHolder implements PdfRenderEngine.ThumbnailCallback {
+        final PageView pageView;
+        final TextView label;
+        int pageIndex = RecyclerView.NO_POSITION;
+        private Bitmap bitmap;
+
+        ThumbnailHolder(View itemView) {
+            super(itemView);
+            pageView = itemView.findViewById(R.id.thumbnailImage);
+            label = itemView.findViewById(R.id.thumbnailLabel);
+            itemView.setOnClickListener(v -> {
+                if (pageIndex != RecyclerView.NO_POSITION) {
+                    listener.onPageSelected(pageIndex);
+                }
+            });
+        }
+
+        @Override
+        public void onThumbnailRendered(int index, Bitmap rendered) {
+            if (index == pageIndex) {
+                setBitmap(rendered);
+            }
+        }
+
+        void setBitmap(Bitmap newBitmap) {
+            if (newBitmap == bitmap) {
+                return;
+            }
+            if (newBitmap != null) {
+                bitmapPool.retain(newBitmap);
+            }
+            pageView.setImageBitmap(newBitmap);
+            bitmapPool.release(bitmap);
+            bitmap = newBitmap;
+        }
+    }
+}
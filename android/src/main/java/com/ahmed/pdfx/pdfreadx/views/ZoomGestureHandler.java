@@ -0,0 +1,169 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+/**
+ * The per-event and per-frame work of {@link ZoomableImageView}'s gestures, kept apart from the
+ * view so it runs without one: touch moves pan the image or drag an edge swipe, pinches scale it
+ * about their focus, and frames step a fling and apply the transform at most once per vsync.
+ * None of it allocates.
+ */
+final class ZoomGestureHandler {
+    /** An edge swipe starts this close to the left or right edge, as a fraction of the width. */
+    static final float SWIPE_EDGE_WIDTH_RATIO = 0.1f;
+
+    /** What the handler needs from the view. */
+    interface Host {
+        /** The unscaled width of the image, or 0 without one. */
+        int getImageWidth();
+
+        int getImageHeight();
+
+        int getViewWidth();
+
+        int getViewHeight();
+
+        /** Asks for {@link #doFrame} on the next vsync. */
+        void postFrame();
+
+        /** Draws the image at {@code transform}. */
+        void applyTransform(ZoomTransform transform);
+
+        void onSwipeProgress(float offset, boolean isRightSwipe);
+    }
+
+    /** The momentum of a fling, like {@code OverScroller}. */
+    interface Fling {
+        /** Advances to the current time; false once the fling has stopped. */
+        boolean computeScrollOffset();
+
+        int getCurrX();
+
+        int getCurrY();
+    }
+
+    /** Where the image is drawn; its scale is the current zoom. */
+    final ZoomTransform transform = new ZoomTransform();
+    private final Host host;
+    private final Fling fling;
+    private float lastTouchX;
+    private float lastTouchY;
+    private boolean swiping;
+    private float swipeOffset;
+    private boolean transformDirty;
+    private boolean frameScheduled;
+
+    ZoomGestureHandler(Host host, Fling fling) {
+        this.host = host;
+        this.fling = fling;
+    }
+
+    /** Starts a touch, which is an edge swipe if it is near the left or right edge. */
+    void onDown(float x, float y) {
+        lastTouchX = x;
+        lastTouchY = y;
+        swipeOffset = 0;
+        float edgeWidth = host.getViewWidth() * SWIPE_EDGE_WIDTH_RATIO;
+        swiping = x < edgeWidth || x > host.getViewWidth() - edgeWidth;
+    }
+
+    /**
+     * Follows the touch to ({@code x}, {@code y}): a sideways edge swipe on a page that is not
+     * zoomed past {@code minScale} drags it at half speed, anything else pans. Nothing moves
+     * while a pinch is {@code scaling}.
+     */
+    void onMove(float x, float y, boolean scaling, float minScale) {
+        if (!scaling) {
+            float dx = x - lastTouchX;
+            float dy = y - lastTouchY;
+            if (swiping && Math.abs(dx) > Math.abs(dy) && transform.scale <= minScale * 1.1f) {
+                swipeOffset += dx * 0.5f;
+                transform.x += dx * 0.5f;
+                invalidateTransform();
+                host.onSwipeProgress(swipeOffset, swipeOffset > 0);
+            } else if (host.getImageWidth() > 0) {
+                transform.panBy(dx, dy, host.getImageWidth(), host.getImageHeight(),
+                        host.getViewWidth(), host.getViewHeight());
+                invalidateTransform();
+            }
+        }
+        lastTouchX = x;
+        lastTouchY = y;
+    }
+
+    boolean isSwiping() {
+        return swiping;
+    }
+
+    float getSwipeOffset() {
+        return swipeOffset;
+    }
+
+    void endSwipe() {
+        swiping = false;
+    }
+
+    /**
+     * Scales by {@code factor} about the focus, from the untranslated image like
+     * {@code Matrix.setScale(s, s, px, py)}, and a little past the limits so letting go can
+     * spring back.
+     */
+    void onScale(float factor, float focusX, float focusY, float minScale, float maxScale) {
+        float scale = Math.max(minScale * 0.8f, Math.min(transform.scale * factor, maxScale * 1.2f));
+        transform.set(scale, focusX - focusX * scale, focusY - focusY * scale);
+        if (host.getImageWidth() > 0) {
+            transform.clamp(host.getImageWidth(), host.getImageHeight(), host.getViewWidth(), host.getViewHeight());
+        }
+        invalidateTransform();
+    }
+
+    /** Moves an animation to {@code fraction} of the way from {@code from} to {@code to}. */
+    void onAnimationFrame(ZoomTransform from, ZoomTransform to, float fraction) {
+        transform.interpolate(from, to, fraction);
+        applyTransformNow();
+    }
+
+    /** Applies the transform on the next vsync, once however often called. */
+    void invalidateTransform() {
+        transformDirty = true;
+        scheduleFrame();
+    }
+
+    /** Applies the transform right away, for callers already running once per frame. */
+    void applyTransformNow() {
+        transformDirty = false;
+        host.applyTransform(transform);
+    }
+
+    void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            host.postFrame();
+        }
+    }
+
+    /** Steps a fling in progress and applies the transform if it changed. */
+    void doFrame() {
+        frameScheduled = false;
+        if (fling.computeScrollOffset()) {
+            transform.x = fling.getCurrX();
+            transform.y = fling.getCurrY();
+            transformDirty = true;
+            scheduleFrame();
+        }
+        if (transformDirty) {
+            applyTransformNow();
+        }
+    }
+
+    /**
+     * Drops the frame asked for, applying a pending transform at once, and returns whether a
+     * frame was still asked for.
+     */
+    boolean cancelFrame() {
+        boolean scheduled = frameScheduled;
+        frameScheduled = false;
+        if (transformDirty) {
+            applyTransformNow();
+        }
+        return scheduled;
+    }
+}
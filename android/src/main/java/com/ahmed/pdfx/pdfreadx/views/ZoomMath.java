@@ -0,0 +1,79 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+/**
+ * The geometry behind {@link ZoomableImageView}, one axis at a time: an image drawn at a scale
+ * and translation inside a view, where an image larger than the view may be panned but never
+ * past its edges, and a smaller one is centered.
+ */
+public final class ZoomMath {
+    /** A double tap on an image within this factor of the fitted scale zooms in. */
+    static final float DOUBLE_TAP_ZOOMED_OUT = 1.1f;
+    static final float DOUBLE_TAP_ZOOM = 2.5f;
+
+    private ZoomMath() {
+    }
+
+    /** The scale at which an image fits the view whole. */
+    public static float fitScale(float imageWidth, float imageHeight, float viewWidth, float viewHeight) {
+        return Math.min(viewWidth / imageWidth, viewHeight / imageHeight);
+    }
+
+    /** The translation that centers {@code contentSize} pixels in the view. */
+    public static float centeredTranslation(float contentSize, float viewSize) {
+        return (viewSize - contentSize) / 2;
+    }
+
+    /**
+     * Moves {@code translation} within its bounds: content larger than the view keeps its edges
+     * outside the view, smaller content is centered.
+     */
+    public static float clampTranslation(float translation, float contentSize, float viewSize) {
+        if (contentSize <= viewSize) {
+            return centeredTranslation(contentSize, viewSize);
+        }
+        return Math.min(0, Math.max(viewSize - contentSize, translation));
+    }
+
+    /** The smallest translation {@link #clampTranslation} allows. */
+    public static float minTranslation(float contentSize, float viewSize) {
+        return contentSize <= viewSize ? centeredTranslation(contentSize, viewSize) : viewSize - contentSize;
+    }
+
+    /** The largest translation {@link #clampTranslation} allows. */
+    public static float maxTranslation(float contentSize, float viewSize) {
+        return contentSize <= viewSize ? centeredTranslation(contentSize, viewSize) : 0;
+    }
+
+    /**
+     * Returns how much of a pan by {@code delta} may be applied without exposing the view behind
+     * the content; content no larger than the view does not pan.
+     */
+    public static float clampPan(float translation, float delta, float contentSize, float viewSize) {
+        if (contentSize <= viewSize) {
+            return 0;
+        }
+        if (translation + delta > 0) {
+            return -translation;
+        }
+        if (translation + delta < viewSize - contentSize) {
+            return viewSize - contentSize - translation;
+        }
+        return delta;
+    }
+
+    /**
+     * The translation after scaling from {@code scale} to {@code targetScale} around
+     * {@code focus}, so the content under the focus stays put.
+     */
+    public static float focusTranslation(float translation, float focus, float scale, float targetScale) {
+        return focus - (focus * targetScale / scale) + (translation * targetScale / scale);
+    }
+
+    /** Zooms in to {@link #DOUBLE_TAP_ZOOM} times the fitted scale, or back out to it. */
+    public static float doubleTapScale(float scale, float minScale, float maxScale) {
+        if (scale <= minScale * DOUBLE_TAP_ZOOMED_OUT) {
+            return Math.min(minScale * DOUBLE_TAP_ZOOM, maxScale);
+        }
+        return minScale;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+/**
+ * The scale and translation at which {@link ZoomableImageView} draws its image, kept apart from
+ * the view's matrix so gestures and animations can update it in place. Image sizes are the
+ * unscaled size of the image; view sizes are in pixels.
+ */
+public final class ZoomTransform {
+    public float scale = 1f;
+    public float x;
+    public float y;
+
+    public void set(float scale, float x, float y) {
+        this.scale = scale;
+        this.x = x;
+        this.y = y;
+    }
+
+    public void set(ZoomTransform other) {
+        set(other.scale, other.x, other.y);
+    }
+
+    /** Moves linearly from {@code from} at {@code fraction} 0 to {@code to} at 1. */
+    public void interpolate(ZoomTransform from, ZoomTransform to, float fraction) {
+        set(from.scale + (to.scale - from.scale) * fraction,
+                from.x + (to.x - from.x) * fraction,
+                from.y + (to.y - from.y) * fraction);
+    }
+
+    /** Pans by as much of ({@code dx}, {@code dy}) as keeps the image over the view. */
+    public void panBy(float dx, float dy, float imageWidth, float imageHeight, float viewWidth, float viewHeight) {
+        x += ZoomMath.clampPan(x, dx, imageWidth * scale, viewWidth);
+        y += ZoomMath.clampPan(y, dy, imageHeight * scale, viewHeight);
+    }
+
+    /** Moves the image back over the view, or centers it where it is smaller than the view. */
+    public void clamp(float imageWidth, float imageHeight, float viewWidth, float viewHeight) {
+        x = ZoomMath.clampTranslation(x, imageWidth * scale, viewWidth);
+        y = ZoomMath.clampTranslation(y, imageHeight * scale, viewHeight);
+    }
+
+    /** Scales to {@code targetScale} keeping the point under the focus in place, then clamps. */
+    public void zoomAround(float targetScale, float focusX, float focusY,
+                           float imageWidth, float imageHeight, float viewWidth, float viewHeight) {
+        x = ZoomMath.focusTranslation(x, focusX, scale, targetScale);
+        y = ZoomMath.focusTranslation(y, focusY, scale, targetScale);
+        scale = targetScale;
+        clamp(imageWidth, imageHeight, viewWidth, viewHeight);
+    }
+
+    /** Returns where the view's horizontal centre falls on the image, as a fraction of its width. */
+    public float centerFractionX(float imageWidth, float viewWidth) {
+        return (viewWidth / 2 - x) / (imageWidth * scale);
+    }
+
+    /** Returns where the view's vertical centre falls on the image, as a fraction of its height. */
+    public float centerFractionY(float imageHeight, float viewHeight) {
+        return (viewHeight / 2 - y) / (imageHeight * scale);
+    }
+
+    /**
+     * Scales to {@code targetScale} with the image point at the given fractions of its size in
+     * the view's centre, then clamps; the inverse of the centre fractions.
+     */
+    public void centerOn(float targetScale, float fractionX, float fractionY,
+                         float imageWidth, float imageHeight, float viewWidth, float viewHeight) {
+        scale = targetScale;
+        x = viewWidth / 2 - fractionX * imageWidth * targetScale;
+        y = viewHeight / 2 - fractionY * imageHeight * targetScale;
+        clamp(imageWidth, imageHeight, viewWidth, viewHeight);
+    }
+
+    @Override
+    public String toString() {
+        return "ZoomTransform[scale=" + scale + ", x=" + x + ", y=" + y + "]";
+    }
+}
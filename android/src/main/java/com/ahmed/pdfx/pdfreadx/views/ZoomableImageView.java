@@ -4,49 +4,111 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
-import android.graphics.PointF;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 import android.view.animation.DecelerateInterpolator;
+import android.widget.OverScroller;
 
 import androidx.appcompat.widget.AppCompatImageView;
 
+import com.ahmed.pdfx.pdfreadx.render.Tile;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows a page bitmap that can be pinched, panned, flung, double-tapped and swiped. The touch,
+ * scale, frame and animation paths run through a {@link ZoomGestureHandler} and one reused
+ * animator, so a gesture in progress does not allocate.
+ *
+ * Touch input only updates {@link #transform}; the image matrix is set from it at most once per
+ * vsync by a Choreographer frame callback, which also steps the momentum of a fling.
+ *
+ * An edge swipe drags the page sideways and reports its progress, so the neighbouring page can be
+ * rendered before the swipe completes; set with {@link #setIncomingPage}, it slides in beside the
+ * current page.
+ */
 public class ZoomableImageView extends AppCompatImageView {
-    private Matrix matrix = new Matrix();
-    private float scaleFactor = 1f;
+    private final Matrix matrix = new Matrix();
+    private final GestureHost gestureHost = new GestureHost();
+    private final ZoomGestureHandler gestures = new ZoomGestureHandler(gestureHost, gestureHost);
+    /** What {@link #matrix} is built from; its scale is the current zoom. */
+    private final ZoomTransform transform = gestures.transform;
     private ScaleGestureDetector scaleGestureDetector;
     private GestureDetector gestureDetector;
-    private PointF lastTouch = new PointF();
     private float minScale = 1f;
     private float maxScale = 5f;
+    private float maxZoom = 5f;
     private boolean isAnimating = false;
     private ZoomListener zoomListener;
-    private float[] matrixValues = new float[9];
     private OnSwipeListener onSwipeListener;
-    private float swipeOffset = 0;
-    private boolean isSwiping = false;
+    // Set once a fling has turned the page, so letting go does not turn it again
+    private boolean swipeTurned = false;
+    private Bitmap incomingPage;
+    private boolean incomingFromRight;
+    // Zoom to take up once the view is laid out, from restoreZoomState; 0 if none
+    private float pendingZoom;
+    private float pendingCenterX;
+    private float pendingCenterY;
+
+    // Viewport reporting and zoom tiles
+    private static final long VIEWPORT_SETTLE_DELAY_MS = 80;
+    private ViewportListener viewportListener;
+    private final Matrix inverseMatrix = new Matrix();
+    private final RectF viewportRect = new RectF();
+    private final RectF tileDestination = new RectF();
+    private final Paint tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private List<Tile> tiles = Collections.emptyList();
+    private final Paint highlightPaint = new Paint();
+    private float[] highlights = new float[0];
+    private final Runnable dispatchViewport = this::dispatchViewportChanged;
 
     // Swipe detection constants
     private static final int SWIPE_THRESHOLD = 100;
     private static final int SWIPE_VELOCITY_THRESHOLD = 100;
-    private static final float SWIPE_EDGE_WIDTH_RATIO = 0.1f; // 10% of screen width
 
-    // Animation variables
-    private ValueAnimator zoomAnimator;
-    private float animStartScale, animEndScale;
-    private PointF animFocusPoint = new PointF();
+    // Animation: one animator, reused for every zoom between these two transforms
+    private static final long ZOOM_ANIMATION_MS = 250;
+    private final ValueAnimator zoomAnimator = ValueAnimator.ofFloat(0f, 1f);
+    private final ZoomTransform animationStart = new ZoomTransform();
+    private final ZoomTransform animationEnd = new ZoomTransform();
+    private final Runnable checkBounds = this::checkBounds;
+
+    // Frame pacing: matrix changes and fling steps wait for the next vsync
+    private Choreographer choreographer;
+    private OverScroller scroller;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> gestures.doFrame();
 
     public interface ZoomListener {
         void onZoomChanged(float scale);
     }
 
+    public interface ViewportListener {
+        /**
+         * Called once the image matrix settles with the visible part of the image in normalized
+         * image coordinates and the on-screen width of the whole image in pixels.
+         */
+        void onViewportChanged(RectF visible, float displayedWidth);
+    }
+
     public interface OnSwipeListener {
         void onSwipeLeft();
         void onSwipeRight();
+        /** Called as an edge swipe drags the page {@code offset} pixels sideways, positive to the right. */
         void onSwipeProgress(float offset, boolean isRightSwipe);
+        /** Called when an edge swipe is let go without turning the page. */
+        void onSwipeCancelled();
+        /** Called just before a fling turns the page, with its horizontal velocity in pixels per second. */
+        void onSwipeFling(float velocityX);
     }
 
     public ZoomableImageView(Context context) {
@@ -68,9 +130,32 @@ public class ZoomableImageView extends AppCompatImageView {
         setScaleType(ScaleType.MATRIX);
         scaleGestureDetector = new ScaleGestureDetector(context, new ScaleListener());
         gestureDetector = new GestureDetector(context, new GestureListener());
+        choreographer = Choreographer.getInstance();
+        scroller = new OverScroller(context);
 
         float density = getResources().getDisplayMetrics().density;
-        maxScale = Math.max(5f, 3f * density);
+        maxZoom = Math.max(5f, 3f * density);
+        maxScale = maxZoom;
+
+        highlightPaint.setColor(0x66FFD600);
+
+        zoomAnimator.setDuration(ZOOM_ANIMATION_MS);
+        zoomAnimator.setInterpolator(new DecelerateInterpolator());
+        zoomAnimator.addUpdateListener(animation -> {
+            gestures.onAnimationFrame(animationStart, animationEnd, animation.getAnimatedFraction());
+            notifyZoomChanged();
+        });
+        zoomAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                isAnimating = false;
+                setImageMatrix(matrix);
+                if (animationEnd.scale != minScale) {
+                    removeCallbacks(checkBounds);
+                    postDelayed(checkBounds, 300);
+                }
+            }
+        });
     }
 
     public void setZoomListener(ZoomListener listener) {
@@ -81,14 +166,230 @@ public class ZoomableImageView extends AppCompatImageView {
         this.onSwipeListener = listener;
     }
 
+    public void setViewportListener(ViewportListener listener) {
+        this.viewportListener = listener;
+    }
+
+    /**
+     * Sets the sharp tiles drawn over the image. Tile bounds are normalized to the image, so the
+     * tiles line up whatever the resolution of the bitmap underneath.
+     */
+    public void setTiles(List<Tile> tiles) {
+        this.tiles = tiles != null ? tiles : Collections.<Tile>emptyList();
+        invalidate();
+    }
+
+    /**
+     * Marks search matches on the image, given as left, top, right, bottom quadruples normalized
+     * to the image; null clears them.
+     */
+    public void setHighlights(float[] bounds) {
+        this.highlights = bounds != null ? bounds : new float[0];
+        invalidate();
+    }
+
+    /**
+     * Sets the neighbouring page drawn beside the current one while a swipe drags the current
+     * page toward the other side: the next page enters {@code fromRight}, the previous one from
+     * the left. Null clears it. The bitmap must stay intact while it is set.
+     */
+    public void setIncomingPage(Bitmap bitmap, boolean fromRight) {
+        incomingPage = bitmap;
+        incomingFromRight = fromRight;
+        invalidate();
+    }
+
+    /**
+     * Writes the zoom relative to the fitted page and the point of the page in the view's centre,
+     * as fractions of the page size, to {@code state[0..2]}. They do not depend on the bitmap's
+     * resolution or the view's size, so they carry over a rotation.
+     */
+    public void saveZoomState(float[] state) {
+        Drawable drawable = getDrawable();
+        if (drawable == null || getWidth() == 0 || minScale <= 0) {
+            state[0] = 1f;
+            state[1] = 0.5f;
+            state[2] = 0.5f;
+            return;
+        }
+        state[0] = transform.scale / minScale;
+        state[1] = transform.centerFractionX(drawable.getIntrinsicWidth(), getWidth());
+        state[2] = transform.centerFractionY(drawable.getIntrinsicHeight(), getHeight());
+    }
+
+    /**
+     * Zooms the page as {@link #saveZoomState} recorded, right away if the view is laid out and
+     * has a page, otherwise as soon as it does.
+     */
+    public void restoreZoomState(float zoom, float centerX, float centerY) {
+        pendingZoom = zoom;
+        pendingCenterX = centerX;
+        pendingCenterY = centerY;
+        updateInitialScale();
+    }
+
     public float getMinScale() {
         return minScale;
     }
 
+    /** Shows the bitmap of a new page, fitted to the view. */
+    public void setPageBitmap(Bitmap bitmap) {
+        stopFling();
+        if (zoomAnimator.isRunning()) {
+            zoomAnimator.cancel();
+        }
+        setImageBitmap(bitmap);
+        updateInitialScale();
+    }
+
+    /**
+     * Swaps in another rendering of the same page at a different resolution while keeping the
+     * visible part of the page and the zoom level exactly where they are.
+     */
+    public void replaceBitmap(Bitmap bitmap) {
+        Drawable current = getDrawable();
+        if (current == null || current.getIntrinsicWidth() <= 0 || bitmap.getWidth() <= 0) {
+            setPageBitmap(bitmap);
+            return;
+        }
+        if (zoomAnimator.isRunning()) {
+            zoomAnimator.end();
+        }
+        float ratio = (float) current.getIntrinsicWidth() / bitmap.getWidth();
+        setImageBitmap(bitmap);
+        transform.scale *= ratio;
+        minScale *= ratio;
+        maxScale *= ratio;
+        gestures.applyTransformNow();
+    }
+
+    /**
+     * Keeps panning at {@code velocityX, velocityY} pixels per second, slowing down and stopping
+     * at the edges of the image.
+     */
+    private void startFling(float velocityX, float velocityY) {
+        Drawable drawable = getDrawable();
+        if (drawable == null) return;
+
+        float contentWidth = drawable.getIntrinsicWidth() * transform.scale;
+        float contentHeight = drawable.getIntrinsicHeight() * transform.scale;
+        scroller.fling(Math.round(transform.x), Math.round(transform.y),
+                Math.round(velocityX), Math.round(velocityY),
+                Math.round(ZoomMath.minTranslation(contentWidth, getWidth())),
+                Math.round(ZoomMath.maxTranslation(contentWidth, getWidth())),
+                Math.round(ZoomMath.minTranslation(contentHeight, getHeight())),
+                Math.round(ZoomMath.maxTranslation(contentHeight, getHeight())));
+        gestures.scheduleFrame();
+    }
+
+    private void stopFling() {
+        if (!scroller.isFinished()) {
+            scroller.forceFinished(true);
+        }
+    }
+
+    private void notifyZoomChanged() {
+        if (zoomListener != null) {
+            zoomListener.onZoomChanged(transform.scale);
+        }
+    }
+
+    @Override
+    public void setImageMatrix(Matrix matrix) {
+        super.setImageMatrix(matrix);
+        scheduleViewportUpdate();
+    }
+
+    private void scheduleViewportUpdate() {
+        if (viewportListener != null) {
+            removeCallbacks(dispatchViewport);
+            postDelayed(dispatchViewport, VIEWPORT_SETTLE_DELAY_MS);
+        }
+    }
+
+    private void dispatchViewportChanged() {
+        Drawable drawable = getDrawable();
+        if (viewportListener == null || drawable == null || isAnimating) {
+            return;
+        }
+        int drawableWidth = drawable.getIntrinsicWidth();
+        int drawableHeight = drawable.getIntrinsicHeight();
+        if (drawableWidth <= 0 || drawableHeight <= 0 || !matrix.invert(inverseMatrix)) {
+            return;
+        }
+        viewportRect.set(0, 0, getWidth(), getHeight());
+        inverseMatrix.mapRect(viewportRect);
+        viewportRect.set(
+                Math.max(0f, viewportRect.left / drawableWidth),
+                Math.max(0f, viewportRect.top / drawableHeight),
+                Math.min(1f, viewportRect.right / drawableWidth),
+                Math.min(1f, viewportRect.bottom / drawableHeight));
+        viewportListener.onViewportChanged(viewportRect, drawableWidth * transform.scale);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        Drawable drawable = getDrawable();
+        if (drawable == null) {
+            return;
+        }
+        if (incomingPage != null) {
+            drawIncomingPage(canvas, drawable);
+        }
+        if (tiles.isEmpty() && highlights.length == 0) {
+            return;
+        }
+        int drawableWidth = drawable.getIntrinsicWidth();
+        int drawableHeight = drawable.getIntrinsicHeight();
+        int saveCount = canvas.save();
+        canvas.concat(matrix);
+        for (int i = 0; i < tiles.size(); i++) {
+            Tile tile = tiles.get(i);
+            tileDestination.set(
+                    tile.bounds.left * drawableWidth, tile.bounds.top * drawableHeight,
+                    tile.bounds.right * drawableWidth, tile.bounds.bottom * drawableHeight);
+            canvas.drawBitmap(tile.bitmap, null, tileDestination, tilePaint);
+        }
+        for (int i = 0; i + 3 < highlights.length; i += 4) {
+            canvas.drawRect(highlights[i] * drawableWidth, highlights[i + 1] * drawableHeight,
+                    highlights[i + 2] * drawableWidth, highlights[i + 3] * drawableHeight, highlightPaint);
+        }
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Draws the incoming page fitted to the view one view width beside the current page, moved
+     * as far as the current page is dragged off its fitted position, and only toward that side.
+     */
+    private void drawIncomingPage(Canvas canvas, Drawable drawable) {
+        if (transform.scale > minScale * 1.1f) {
+            return;
+        }
+        int viewWidth = getWidth();
+        int viewHeight = getHeight();
+        float displacement = transform.x
+                - ZoomMath.centeredTranslation(drawable.getIntrinsicWidth() * transform.scale, viewWidth);
+        if (displacement == 0 || (displacement < 0) != incomingFromRight) {
+            return;
+        }
+        int width = incomingPage.getWidth();
+        int height = incomingPage.getHeight();
+        float scale = ZoomMath.fitScale(width, height, viewWidth, viewHeight);
+        float left = ZoomMath.centeredTranslation(width * scale, viewWidth) + displacement
+                + (incomingFromRight ? viewWidth : -viewWidth);
+        int saveCount = canvas.save();
+        canvas.translate(left, ZoomMath.centeredTranslation(height * scale, viewHeight));
+        canvas.scale(scale, scale);
+        canvas.drawBitmap(incomingPage, 0, 0, tilePaint);
+        canvas.restoreToCount(saveCount);
+    }
+
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
         if (changed && getDrawable() != null) {
+            stopFling();
             updateInitialScale();
         }
     }
@@ -101,26 +402,20 @@ public class ZoomableImageView extends AppCompatImageView {
         int viewWidth = getWidth();
         int viewHeight = getHeight();
 
-        if (drawableWidth <= 0 || drawableHeight <= 0) return;
-
-        float scaleX = (float) viewWidth / drawableWidth;
-        float scaleY = (float) viewHeight / drawableHeight;
-        minScale = Math.min(scaleX, scaleY);
-
-        matrix.setScale(minScale, minScale);
-
-        float scaledWidth = drawableWidth * minScale;
-        float scaledHeight = drawableHeight * minScale;
-        float translateX = (viewWidth - scaledWidth) / 2;
-        float translateY = (viewHeight - scaledHeight) / 2;
+        if (drawableWidth <= 0 || drawableHeight <= 0 || viewWidth <= 0 || viewHeight <= 0) return;
 
-        matrix.postTranslate(translateX, translateY);
-        setImageMatrix(matrix);
-        scaleFactor = minScale;
+        minScale = ZoomMath.fitScale(drawableWidth, drawableHeight, viewWidth, viewHeight);
+        maxScale = minScale * maxZoom;
 
-        if (zoomListener != null) {
-            zoomListener.onZoomChanged(scaleFactor);
+        transform.set(minScale, ZoomMath.centeredTranslation(drawableWidth * minScale, viewWidth),
+                ZoomMath.centeredTranslation(drawableHeight * minScale, viewHeight));
+        if (pendingZoom > 0) {
+            float scale = Math.max(minScale, Math.min(minScale * pendingZoom, maxScale));
+            transform.centerOn(scale, pendingCenterX, pendingCenterY, drawableWidth, drawableHeight, viewWidth, viewHeight);
+            pendingZoom = 0;
         }
+        gestures.applyTransformNow();
+        notifyZoomChanged();
     }
 
     @Override
@@ -129,101 +424,51 @@ public class ZoomableImageView extends AppCompatImageView {
         gestureDetector.onTouchEvent(event);
 
         if (!isAnimating) {
-            PointF curr = new PointF(event.getX(), event.getY());
+            float x = event.getX();
+            float y = event.getY();
 
             switch (event.getAction()) {
                 case MotionEvent.ACTION_DOWN:
-                    lastTouch.set(curr);
-                    isSwiping = false;
-                    swipeOffset = 0;
-
-                    // Check if touch started in edge area
-                    float edgeWidth = getWidth() * SWIPE_EDGE_WIDTH_RATIO;
-                    if (curr.x < edgeWidth || curr.x > getWidth() - edgeWidth) {
-                        isSwiping = true;
-                    }
+                    stopFling();
+                    swipeTurned = false;
+                    gestures.onDown(x, y);
                     break;
 
                 case MotionEvent.ACTION_MOVE:
-                    if (!scaleGestureDetector.isInProgress()) {
-                        float dx = curr.x - lastTouch.x;
-                        float dy = curr.y - lastTouch.y;
-
-                        if (isSwiping && Math.abs(dx) > Math.abs(dy) && scaleFactor <= minScale * 1.1f) {
-                            swipeOffset = dx * 0.5f;
-
-                            matrix.postTranslate(dx * 0.5f, 0);
-                            setImageMatrix(matrix);
-
-                            if (onSwipeListener != null) {
-                                onSwipeListener.onSwipeProgress(swipeOffset, dx > 0);
-                            }
-                        } else {
-                            handlePanning(curr);
-                        }
-                    }
-                    lastTouch.set(curr.x, curr.y);
+                    gestures.onMove(x, y, scaleGestureDetector.isInProgress(), minScale);
                     break;
 
                 case MotionEvent.ACTION_UP:
-                    if (isSwiping) {
-                        if (Math.abs(swipeOffset) > getWidth() / 4) {
+                    // A fling started by the gesture detector stays within the bounds itself
+                    if (gestures.isSwiping() && scroller.isFinished()) {
+                        float swipeOffset = gestures.getSwipeOffset();
+                        if (swipeTurned) {
+                            // The fling turned the page already.
+                        } else if (Math.abs(swipeOffset) > getWidth() / 4) {
                             if (swipeOffset > 0 && onSwipeListener != null) {
                                 onSwipeListener.onSwipeRight();
                             } else if (onSwipeListener != null) {
                                 onSwipeListener.onSwipeLeft();
                             }
+                        } else if (swipeOffset != 0 && onSwipeListener != null) {
+                            onSwipeListener.onSwipeCancelled();
                         }
-                        animateToScale(scaleFactor, getWidth()/2f, getHeight()/2f);
+                        animateToScale(transform.scale, getWidth()/2f, getHeight()/2f);
                     } else {
-                        postDelayed(this::checkBounds, 100);
+                        removeCallbacks(checkBounds);
+                        postDelayed(checkBounds, 100);
                     }
-                    isSwiping = false;
+                    gestures.endSwipe();
                     break;
             }
         }
         return true;
     }
 
-    private void handlePanning(PointF curr) {
-        float dx = curr.x - lastTouch.x;
-        float dy = curr.y - lastTouch.y;
-
-        matrix.getValues(matrixValues);
-        float transX = matrixValues[Matrix.MTRANS_X];
-        float transY = matrixValues[Matrix.MTRANS_Y];
-        float scaleX = matrixValues[Matrix.MSCALE_X];
-        float scaleY = matrixValues[Matrix.MSCALE_Y];
-
-        float imageWidth = getDrawable().getIntrinsicWidth() * scaleX;
-        float imageHeight = getDrawable().getIntrinsicHeight() * scaleY;
-
-        if (imageWidth > getWidth()) {
-            if (transX + dx > 0) dx = -transX;
-            else if (transX + dx < getWidth() - imageWidth) dx = getWidth() - imageWidth - transX;
-        } else {
-            dx = 0;
-        }
-
-        if (imageHeight > getHeight()) {
-            if (transY + dy > 0) dy = -transY;
-            else if (transY + dy < getHeight() - imageHeight) dy = getHeight() - imageHeight - transY;
-        } else {
-            dy = 0;
-        }
-
-        matrix.postTranslate(dx, dy);
-        setImageMatrix(matrix);
-    }
-
     private void checkBounds() {
         if (isAnimating) return;
 
-        float[] values = new float[9];
-        matrix.getValues(values);
-        float scaleX = values[Matrix.MSCALE_X];
-
-        if (scaleX < minScale * 0.9f) {
+        if (transform.scale < minScale * 0.9f) {
             animateToScale(minScale, getWidth()/2f, getHeight()/2f);
         }
     }
@@ -233,156 +478,54 @@ public class ZoomableImageView extends AppCompatImageView {
     }
 
     private void handleDoubleTap(float x, float y) {
-        matrix.getValues(matrixValues);
-        float currentScale = matrixValues[Matrix.MSCALE_X];
-
-        float targetScale;
-        if (currentScale <= minScale * 1.1f) {
-            targetScale = Math.min(minScale * 2.5f, maxScale);
-        } else {
-            targetScale = minScale;
-        }
-
-        animateToScale(targetScale, x, y);
+        animateToScale(ZoomMath.doubleTapScale(transform.scale, minScale, maxScale), x, y);
     }
 
+    /** Animates to {@code targetScale} around the focus, ending within the bounds. */
     private void animateToScale(float targetScale, float focusX, float focusY) {
-        if (zoomAnimator != null && zoomAnimator.isRunning()) {
+        Drawable drawable = getDrawable();
+        if (drawable == null) return;
+        if (zoomAnimator.isRunning()) {
             zoomAnimator.cancel();
         }
+        stopFling();
 
-        matrix.getValues(matrixValues);
-        float currentScale = matrixValues[Matrix.MSCALE_X];
-        PointF currentTrans = getCurrentTranslation();
-        PointF targetTrans = calculateTargetTranslation(targetScale, focusX, focusY);
-
-        animFocusPoint.set(focusX, focusY);
-        animStartScale = currentScale;
-        animEndScale = targetScale;
-
-        zoomAnimator = ValueAnimator.ofFloat(0f, 1f);
-        zoomAnimator.setDuration(250);
-        zoomAnimator.setInterpolator(new DecelerateInterpolator());
-        zoomAnimator.addUpdateListener(animation -> {
-            float fraction = animation.getAnimatedFraction();
-            float interpolatedScale = animStartScale + (animEndScale - animStartScale) * fraction;
-
-            float interpolatedTransX = currentTrans.x + (targetTrans.x - currentTrans.x) * fraction;
-            float interpolatedTransY = currentTrans.y + (targetTrans.y - currentTrans.y) * fraction;
-
-            matrix.setScale(interpolatedScale, interpolatedScale);
-            matrix.postTranslate(interpolatedTransX, interpolatedTransY);
-            setImageMatrix(matrix);
-            scaleFactor = interpolatedScale;
-
-            if (zoomListener != null) {
-                zoomListener.onZoomChanged(scaleFactor);
-            }
-        });
+        animationStart.set(transform);
+        animationEnd.set(transform);
+        animationEnd.zoomAround(targetScale, focusX, focusY,
+                drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), getWidth(), getHeight());
 
         zoomAnimator.start();
         isAnimating = true;
-        zoomAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                isAnimating = false;
-                if (animEndScale != minScale) {
-                    postDelayed(() -> checkBounds(), 300);
-                }
-            }
-        });
-    }
-
-    private PointF getCurrentTranslation() {
-        float[] values = new float[9];
-        matrix.getValues(values);
-        return new PointF(values[Matrix.MTRANS_X], values[Matrix.MTRANS_Y]);
-    }
-
-    private PointF calculateTargetTranslation(float targetScale, float focusX, float focusY) {
-        float imageWidth = getDrawable().getIntrinsicWidth() * targetScale;
-        float imageHeight = getDrawable().getIntrinsicHeight() * targetScale;
-
-        float targetTransX = focusX - (focusX * targetScale / scaleFactor)
-                + (matrixValues[Matrix.MTRANS_X] * targetScale / scaleFactor);
-        float targetTransY = focusY - (focusY * targetScale / scaleFactor)
-                + (matrixValues[Matrix.MTRANS_Y] * targetScale / scaleFactor);
-
-        if (imageWidth <= getWidth()) {
-            targetTransX = (getWidth() - imageWidth) / 2;
-        } else {
-            targetTransX = Math.min(0, Math.max(getWidth() - imageWidth, targetTransX));
-        }
-
-        if (imageHeight <= getHeight()) {
-            targetTransY = (getHeight() - imageHeight) / 2;
-        } else {
-            targetTransY = Math.min(0, Math.max(getHeight() - imageHeight, targetTransY));
-        }
-
-        return new PointF(targetTransX, targetTransY);
     }
 
     private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
         @Override
         public boolean onScaleBegin(ScaleGestureDetector detector) {
+            stopFling();
             isAnimating = true;
             return true;
         }
 
         @Override
         public boolean onScale(ScaleGestureDetector detector) {
-            float newScale = scaleFactor * detector.getScaleFactor();
-            newScale = Math.max(minScale * 0.8f, Math.min(newScale, maxScale * 1.2f));
-
-            matrix.setScale(newScale, newScale, detector.getFocusX(), detector.getFocusY());
-            adjustTranslation(newScale);
-            setImageMatrix(matrix);
-            scaleFactor = newScale;
-
-            if (zoomListener != null) {
-                zoomListener.onZoomChanged(scaleFactor);
-            }
+            gestures.onScale(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY(), minScale, maxScale);
+            notifyZoomChanged();
             return true;
         }
 
         @Override
         public void onScaleEnd(ScaleGestureDetector detector) {
             isAnimating = false;
-            if (scaleFactor < minScale * 0.9f) {
+            scheduleViewportUpdate();
+            if (transform.scale < minScale * 0.9f) {
                 animateToScale(minScale, detector.getFocusX(), detector.getFocusY());
-            } else if (scaleFactor > maxScale * 1.1f) {
+            } else if (transform.scale > maxScale * 1.1f) {
                 animateToScale(maxScale, detector.getFocusX(), detector.getFocusY());
             } else {
                 checkBounds();
             }
         }
-
-        private void adjustTranslation(float newScale) {
-            if (getDrawable() == null) return;
-
-            matrix.getValues(matrixValues);
-            float transX = matrixValues[Matrix.MTRANS_X];
-            float transY = matrixValues[Matrix.MTRANS_Y];
-            float imageWidth = getDrawable().getIntrinsicWidth() * newScale;
-            float imageHeight = getDrawable().getIntrinsicHeight() * newScale;
-
-            if (imageWidth > getWidth()) {
-                if (transX > 0) transX = 0;
-                else if (transX < getWidth() - imageWidth) transX = getWidth() - imageWidth;
-            } else {
-                transX = (getWidth() - imageWidth) / 2;
-            }
-
-            if (imageHeight > getHeight()) {
-                if (transY > 0) transY = 0;
-                else if (transY < getHeight() - imageHeight) transY = getHeight() - imageHeight;
-            } else {
-                transY = (getHeight() - imageHeight) / 2;
-            }
-
-            matrix.postTranslate(transX - matrixValues[Matrix.MTRANS_X], transY - matrixValues[Matrix.MTRANS_Y]);
-        }
     }
 
     private class GestureListener extends GestureDetector.SimpleOnGestureListener {
@@ -400,6 +543,11 @@ public class ZoomableImageView extends AppCompatImageView {
 
         @Override
         public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+            // A zoomed page keeps panning instead of turning
+            if (!isAnimating && transform.scale > minScale * 1.1f) {
+                startFling(velocityX, velocityY);
+                return true;
+            }
             try {
                 float diffX = e2.getX() - e1.getX();
                 float diffY = e2.getY() - e1.getY();
@@ -408,6 +556,10 @@ public class ZoomableImageView extends AppCompatImageView {
                         Math.abs(diffX) > SWIPE_THRESHOLD &&
                         Math.abs(velocityX) > SWIPE_VELOCITY_THRESHOLD) {
 
+                    swipeTurned = true;
+                    if (onSwipeListener != null) {
+                        onSwipeListener.onSwipeFling(velocityX);
+                    }
                     if (diffX > 0) {
                         if (onSwipeListener != null) {
                             onSwipeListener.onSwipeRight();
@@ -426,6 +578,74 @@ public class ZoomableImageView extends AppCompatImageView {
         }
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        stopFling();
+        if (gestures.cancelFrame()) {
+            choreographer.removeFrameCallback(frameCallback);
+        }
+    }
+
+    /** Connects the gesture handler to the view, its matrix, Choreographer and fling scroller. */
+    private class GestureHost implements ZoomGestureHandler.Host, ZoomGestureHandler.Fling {
+        @Override
+        public int getImageWidth() {
+            Drawable drawable = getDrawable();
+            return drawable != null ? drawable.getIntrinsicWidth() : 0;
+        }
+
+        @Override
+        public int getImageHeight() {
+            Drawable drawable = getDrawable();
+            return drawable != null ? drawable.getIntrinsicHeight() : 0;
+        }
+
+        @Override
+        public int getViewWidth() {
+            return getWidth();
+        }
+
+        @Override
+        public int getViewHeight() {
+            return getHeight();
+        }
+
+        @Override
+        public void postFrame() {
+            choreographer.postFrameCallback(frameCallback);
+        }
+
+        @Override
+        public void applyTransform(ZoomTransform transform) {
+            matrix.setScale(transform.scale, transform.scale);
+            matrix.postTranslate(transform.x, transform.y);
+            setImageMatrix(matrix);
+        }
+
+        @Override
+        public void onSwipeProgress(float offset, boolean isRightSwipe) {
+            if (onSwipeListener != null) {
+                onSwipeListener.onSwipeProgress(offset, isRightSwipe);
+            }
+        }
+
+        @Override
+        public boolean computeScrollOffset() {
+            return scroller.computeScrollOffset();
+        }
+
+        @Override
+        public int getCurrX() {
+            return scroller.getCurrX();
+        }
+
+        @Override
+        public int getCurrY() {
+            return scroller.getCurrY();
+        }
+    }
+
     @Override
     public boolean performClick() {
         return super.performClick();
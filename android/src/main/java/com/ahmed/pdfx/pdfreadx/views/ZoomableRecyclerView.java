@@ -0,0 +1,148 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Vertical page list that zooms as a whole. Children are laid out at the fitted size and the zoom
+ * is applied when drawing, so zooming never triggers a layout pass. Touches are mapped back into
+ * layout coordinates before the list sees them, which keeps scrolling and flinging at finger speed.
+ * Horizontal drags pan the zoomed strip; vertical drags scroll the list and pan only at its ends.
+ */
+public class ZoomableRecyclerView extends RecyclerView {
+    private static final float MAX_SCALE = 4f;
+    private static final float DOUBLE_TAP_SCALE = 2f;
+
+    private final Matrix transform = new Matrix();
+    private final Matrix inverse = new Matrix();
+    private ScaleGestureDetector scaleGestureDetector;
+    private GestureDetector gestureDetector;
+    private float scale = 1f;
+    private float panX = 0f;
+    private float panY = 0f;
+    private ZoomableImageView.ZoomListener zoomListener;
+
+    public ZoomableRecyclerView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    public ZoomableRecyclerView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    public ZoomableRecyclerView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    private void init(Context context) {
+        scaleGestureDetector = new ScaleGestureDetector(context, new ScaleListener());
+        gestureDetector = new GestureDetector(context, new GestureListener());
+    }
+
+    /** Called when a pinch or double tap ends, with the new zoom of the strip. */
+    public void setZoomListener(ZoomableImageView.ZoomListener listener) {
+        this.zoomListener = listener;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        scaleGestureDetector.onTouchEvent(event);
+        gestureDetector.onTouchEvent(event);
+        MotionEvent mapped = MotionEvent.obtain(event);
+        mapped.transform(inverse);
+        boolean handled = super.dispatchTouchEvent(mapped);
+        mapped.recycle();
+        return handled || scale > 1f;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        int saveCount = canvas.save();
+        canvas.concat(transform);
+        super.dispatchDraw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateTransform();
+    }
+
+    private void zoomTo(float newScale, float focusX, float focusY) {
+        newScale = Math.max(1f, Math.min(newScale, MAX_SCALE));
+        float ratio = newScale / scale;
+        panX = focusX - (focusX - panX) * ratio;
+        panY = focusY - (focusY - panY) * ratio;
+        scale = newScale;
+        updateTransform();
+    }
+
+    private void panBy(float dx, float dy) {
+        panX += dx;
+        panY += dy;
+        updateTransform();
+    }
+
+    private void updateTransform() {
+        panX = Math.max(getWidth() - getWidth() * scale, Math.min(panX, 0f));
+        panY = Math.max(getHeight() - getHeight() * scale, Math.min(panY, 0f));
+        transform.setScale(scale, scale);
+        transform.postTranslate(panX, panY);
+        transform.invert(inverse);
+        invalidate();
+    }
+
+    private void notifyZoomChanged() {
+        if (zoomListener != null) {
+            zoomListener.onZoomChanged(scale);
+        }
+    }
+
+    private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
+        @Override
+        public boolean onScale(ScaleGestureDetector detector) {
+            zoomTo(scale * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+            return true;
+        }
+
+        @Override
+        public void onScaleEnd(ScaleGestureDetector detector) {
+            notifyZoomChanged();
+        }
+    }
+
+    private class GestureListener extends GestureDetector.SimpleOnGestureListener {
+        @Override
+        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+            if (scale <= 1f || scaleGestureDetector.isInProgress()) {
+                return false;
+            }
+            // The list scrolls vertically on its own; pan only once it cannot scroll any further.
+            int direction = distanceY > 0 ? 1 : -1;
+            panBy(-distanceX, canScrollVertically(direction) ? 0f : -distanceY);
+            return true;
+        }
+
+        @Override
+        public boolean onDoubleTap(MotionEvent e) {
+            zoomTo(scale > 1f ? 1f : DOUBLE_TAP_SCALE, e.getX(), e.getY());
+            notifyZoomChanged();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocumentFingerprintTest {
+  private static final int LARGE = 1024 * 1024;
+
+  private File folder;
+
+  @Before
+  public void setUp() throws IOException {
+    folder = Files.createTempDirectory("fingerprint").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = folder.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    folder.delete();
+  }
+
+  private File write(String name, int size) throws IOException {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (i * 31);
+    }
+    File file = new File(folder, name);
+    Files.write(file.toPath(), bytes);
+    file.setLastModified(1_600_000_000_000L);
+    return file;
+  }
+
+  private static void patch(File file, long offset) throws IOException {
+    long modified = file.lastModified();
+    try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+      output.seek(offset);
+      int value = output.read();
+      output.seek(offset);
+      output.write(value ^ 0xFF);
+    }
+    file.setLastModified(modified);
+  }
+
+  @Test
+  public void of_isStableForIdenticalFiles() throws IOException {
+    assertEquals(DocumentFingerprint.of(write("a.pdf", LARGE)), DocumentFingerprint.of(write("b.pdf", LARGE)));
+  }
+
+  @Test
+  public void of_changesWithSampledBytesSizeAndModificationTime() throws IOException {
+    File file = write("a.pdf", LARGE);
+    String original = DocumentFingerprint.of(file);
+
+    patch(file, LARGE - 1);
+    String appended = DocumentFingerprint.of(file);
+    assertNotEquals(original, appended);
+
+    file.setLastModified(1_700_000_000_000L);
+    assertNotEquals(appended, DocumentFingerprint.of(file));
+
+    assertNotEquals(original, DocumentFingerprint.of(write("c.pdf", LARGE + 1)));
+  }
+
+  @Test
+  public void of_hashesSmallFilesWhole() throws IOException {
+    File file = write("a.pdf", DocumentFingerprint.SAMPLE_BYTES * 3 + 100);
+    String original = DocumentFingerprint.of(file);
+
+    patch(file, DocumentFingerprint.SAMPLE_BYTES + 7);
+
+    assertNotEquals(original, DocumentFingerprint.of(file));
+  }
+
+  @Test
+  public void of_leavesChannelPositionAlone() throws IOException {
+    File file = write("a.pdf", LARGE);
+    try (FileInputStream in = new FileInputStream(file)) {
+      FileChannel channel = in.getChannel();
+      channel.position(123);
+
+      DocumentFingerprint.of(channel, file.length(), file.lastModified());
+
+      assertEquals(123, channel.position());
+    }
+  }
+}
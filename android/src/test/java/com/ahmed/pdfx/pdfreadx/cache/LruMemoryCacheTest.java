@@ -0,0 +1,78 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LruMemoryCacheTest {
+  private static PageKey key(int page) {
+    return new PageKey("doc", page, 1f);
+  }
+
+  @Test
+  public void put_evictsLeastRecentlyUsedWhenOverBudget() {
+    LruMemoryCache<PageKey, byte[]> cache = new LruMemoryCache<>(30, value -> value.length);
+    List<PageKey> evicted = new ArrayList<>();
+    cache.setEvictionListener((key, value) -> evicted.add(key));
+
+    cache.put(key(0), new byte[10]);
+    cache.put(key(1), new byte[10]);
+    cache.put(key(2), new byte[10]);
+    cache.get(key(0));
+    cache.put(key(3), new byte[10]);
+
+    assertEquals(1, evicted.size());
+    assertEquals(key(1), evicted.get(0));
+    assertTrue(cache.contains(key(0)));
+    assertFalse(cache.contains(key(1)));
+    assertEquals(30, cache.size());
+  }
+
+  @Test
+  public void keys_listsLeastRecentlyUsedFirstWithoutTouchingRecency() {
+    LruMemoryCache<PageKey, byte[]> cache = new LruMemoryCache<>(100, value -> value.length);
+    cache.put(key(0), new byte[10]);
+    cache.put(key(1), new byte[10]);
+    cache.get(key(0));
+
+    assertEquals(Arrays.asList(key(1), key(0)), cache.keys());
+    assertEquals(Arrays.asList(key(1), key(0)), cache.keys());
+    assertEquals(1, cache.hitCount());
+  }
+
+  @Test
+  public void get_countsHitsAndMisses() {
+    LruMemoryCache<PageKey, byte[]> cache = new LruMemoryCache<>(100, value -> value.length);
+    byte[] value = new byte[4];
+    cache.put(key(0), value);
+
+    assertSame(value, cache.get(key(0)));
+    assertNull(cache.get(key(1)));
+    assertNull(cache.get(new PageKey("doc", 0, 0.5f)));
+
+    assertEquals(1, cache.hitCount());
+    assertEquals(2, cache.missCount());
+  }
+
+  @Test
+  public void resize_trimsToNewBudget() {
+    LruMemoryCache<PageKey, byte[]> cache = new LruMemoryCache<>(100, value -> value.length);
+    for (int i = 0; i < 10; i++) {
+      cache.put(key(i), new byte[10]);
+    }
+
+    cache.resize(25);
+
+    assertEquals(2, cache.count());
+    assertTrue(cache.contains(key(9)));
+    assertTrue(cache.contains(key(8)));
+  }
+}
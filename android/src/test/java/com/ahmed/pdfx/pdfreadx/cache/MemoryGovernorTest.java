@@ -0,0 +1,125 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ComponentCallbacks2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MemoryGovernorTest {
+  private static final long MB = 1024 * 1024;
+
+  @Test
+  public void computeBudget_usesSmallerOfMemoryClassAndHeap() {
+    assertEquals(64 * MB, MemoryGovernor.computeBudget(256 * MB, 128 * MB, false));
+    assertEquals(32 * MB, MemoryGovernor.computeBudget(128 * MB, 512 * MB, true));
+  }
+
+  @Test
+  public void chooseResolutionStep_fitsPagesIntoBudget() {
+    long phoneScreen = 1080L * 2400;
+    // 2 GB class device: 128 MB heap -> 64 MB budget.
+    int lowEnd = MemoryGovernor.chooseResolutionStep((long) (64 * MB * 0.6f), phoneScreen);
+    // 1200x1920 tablet with a 512 MB heap.
+    int tablet = MemoryGovernor.chooseResolutionStep((long) (256 * MB * 0.6f), 1200L * 1920);
+
+    assertEquals(1f, MemoryGovernor.RESOLUTION_STEPS[lowEnd], 0f);
+    assertEquals(2f, MemoryGovernor.RESOLUTION_STEPS[tablet], 0f);
+  }
+
+  @Test
+  public void chooseResolutionStep_neverGoesBelowLowestStep() {
+    assertEquals(0, MemoryGovernor.chooseResolutionStep(MB, 1080L * 2400));
+  }
+
+  @Test
+  public void renderWorkerCount_leavesACoreAndFitsInFlightPages() {
+    long page = 1080L * 2400 * 4;
+    // 8 cores and plenty of pool: capped.
+    assertEquals(MemoryGovernor.MAX_RENDER_WORKERS, MemoryGovernor.renderWorkerCount(8, 100 * page, page));
+    // 4 cores: one left for the UI.
+    assertEquals(3, MemoryGovernor.renderWorkerCount(4, 100 * page, page));
+    // Pool fits only two pages in flight.
+    assertEquals(2, MemoryGovernor.renderWorkerCount(8, 2 * page + 1, page));
+    // Never below one worker.
+    assertEquals(1, MemoryGovernor.renderWorkerCount(1, 0, page));
+  }
+
+  @Test
+  public void exportDepth_usesEveryCoreAndFitsThePool() {
+    long page = 2550L * 3300 * 4;
+    assertEquals(8, MemoryGovernor.exportDepth(8, 100 * page, page));
+    // Pool fits only three pages: the rest would have to wait anyway.
+    assertEquals(3, MemoryGovernor.exportDepth(8, 3 * page + 1, page));
+    // A page larger than the pool is still exported, one at a time.
+    assertEquals(1, MemoryGovernor.exportDepth(8, page / 2, page));
+  }
+
+  @Test
+  public void onTrimMemory_lowersTheResolutionOnlyUnderSustainedPressure() {
+    long[] now = {1_000};
+    MemoryGovernor governor = tablet(now);
+    List<Float> changes = new ArrayList<>();
+    governor.setResolutionListener(changes::add);
+
+    governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+    assertEquals("a single trim keeps the resolution", 2f, governor.getResolutionMultiplier(), 0f);
+    now[0] += MemoryGovernor.PRESSURE_WINDOW_MS + 1;
+    governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+    assertEquals("trims far apart are not sustained", 2f, governor.getResolutionMultiplier(), 0f);
+    now[0] += MemoryGovernor.PRESSURE_WINDOW_MS / 2;
+    governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+
+    assertEquals(1.5f, governor.getResolutionMultiplier(), 0f);
+    assertEquals(1, changes.size());
+  }
+
+  @Test
+  public void onTrimMemory_escalatingPressureLowersTheResolution() {
+    long[] now = {1_000};
+    MemoryGovernor governor = tablet(now);
+
+    governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+    now[0] += 1_000;
+    governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+    assertEquals(1.5f, governor.getResolutionMultiplier(), 0f);
+
+    governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+    assertEquals(MemoryGovernor.RESOLUTION_STEPS[0], governor.getResolutionMultiplier(), 0f);
+  }
+
+  @Test
+  public void restoreResolution_raisesAStepAtATimeOncePressureClears() {
+    long[] now = {1_000};
+    MemoryGovernor governor = tablet(now);
+    List<Float> changes = new ArrayList<>();
+    governor.setResolutionListener(changes::add);
+    governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+    assertEquals(0.5f, governor.getResolutionMultiplier(), 0f);
+
+    now[0] += MemoryGovernor.RECOVERY_MS - 1;
+    governor.restoreResolution();
+    assertEquals("still too soon", 0.5f, governor.getResolutionMultiplier(), 0f);
+    now[0] += 1;
+    governor.restoreResolution();
+    assertEquals(1f, governor.getResolutionMultiplier(), 0f);
+    governor.restoreResolution();
+    assertEquals("one step per quiet period", 1f, governor.getResolutionMultiplier(), 0f);
+    for (int i = 0; i < 4; i++) {
+      now[0] += MemoryGovernor.RECOVERY_MS;
+      governor.restoreResolution();
+    }
+
+    assertEquals("back to the resolution chosen at first", 2f, governor.getResolutionMultiplier(), 0f);
+    assertEquals(Arrays.asList(0.5f, 1f, 1.5f, 2f), changes);
+  }
+
+  /** A 1200x1920 tablet with a 512 MB heap, which renders at twice the screen size. */
+  private static MemoryGovernor tablet(long[] now) {
+    return new MemoryGovernor(512 * MB, 512 * MB, false, 1200, 1920, () -> now[0]);
+  }
+}
@@ -0,0 +1,76 @@
+package com.ahmed.pdfx.pdfreadx.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PageMetadataStoreTest {
+  private File directory;
+  private PageMetadataStore store;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("pdfreadx-meta").toFile();
+    store = new PageMetadataStore(directory);
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void store_roundTripsThePageSizes() {
+    store.store("doc", new PageMetadata(new int[] {612, 842}, new int[] {792, 595}));
+
+    PageMetadata loaded = store.load("doc");
+
+    assertNotNull(loaded);
+    assertEquals(2, loaded.getPageCount());
+    assertEquals(842, loaded.getWidth(1));
+    assertEquals(595, loaded.getHeight(1));
+    assertNull(store.load("other"));
+  }
+
+  @Test
+  public void load_dropsACorruptEntry() throws IOException {
+    File file = new File(directory, "doc.meta");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(new byte[] {1, 2, 3});
+    }
+
+    assertNull(store.load("doc"));
+    assertFalse(file.exists());
+  }
+
+  @Test
+  public void store_keepsTheMostRecentlyUsedEntries() {
+    PageMetadata metadata = new PageMetadata(new int[] {612}, new int[] {792});
+    for (int i = 0; i <= PageMetadataStore.MAX_ENTRIES; i++) {
+      store.store("doc" + i, metadata);
+      new File(directory, "doc" + i + ".meta").setLastModified(1000L * (i + 1));
+    }
+    store.store("last", metadata);
+
+    assertEquals(PageMetadataStore.MAX_ENTRIES, directory.listFiles().length);
+    assertNull(store.load("doc0"));
+    assertNull(store.load("doc1"));
+    assertNotNull(store.load("last"));
+  }
+}
@@ -0,0 +1,62 @@
+package com.ahmed.pdfx.pdfreadx.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.ahmed.pdfx.pdfreadx.render.RegionRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+public class RenderProtocolTest {
+  @Test
+  public void parseRequest_readsEveryRegion() {
+    ByteBuffer message = ByteBuffer.allocate(12 + 2 * 24).order(ByteOrder.LITTLE_ENDIAN);
+    message.putInt(7).putInt(RenderProtocol.FORMAT_PNG).putInt(2);
+    message.putInt(0).putFloat(1f).putFloat(0f).putFloat(0f).putFloat(1f).putFloat(1f);
+    message.putInt(3).putFloat(2f).putFloat(0.5f).putFloat(-1f).putFloat(1f).putFloat(0.5f);
+    message.flip();
+
+    RenderProtocol.Request request = RenderProtocol.parseRequest(message);
+
+    assertEquals(7, request.documentId);
+    assertEquals(RenderProtocol.FORMAT_PNG, request.format);
+    assertEquals(2, request.regions.size());
+    RegionRequest crop = request.regions.get(1);
+    assertEquals(3, crop.pageIndex);
+    assertEquals(0f, crop.top, 0f);
+    // Right half of the top half of a 600x800 page at 2x.
+    assertEquals(600, crop.pixelWidth(600));
+    assertEquals(800, crop.pixelHeight(800));
+  }
+
+  @Test
+  public void parseRequest_rejectsTruncatedRequest() {
+    ByteBuffer message = ByteBuffer.allocate(12 + 10).order(ByteOrder.LITTLE_ENDIAN);
+    message.putInt(1).putInt(RenderProtocol.FORMAT_RGBA).putInt(1).putInt(0);
+    message.rewind();
+    try {
+      RenderProtocol.parseRequest(message);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      assertTrue(expected.getMessage().contains("Truncated"));
+    }
+  }
+
+  @Test
+  public void allocateResponse_writesTableBeforePayloads() {
+    int[] lengths = {16, 0, 8};
+    ByteBuffer response = RenderProtocol.allocateResponse(RenderProtocol.STATUS_OK,
+        new int[] {4, 5, 6}, new int[] {2, 0, 1}, new int[] {2, 0, 2}, lengths);
+
+    assertEquals(8 + 3 * 16 + 24, response.capacity());
+    assertEquals(RenderProtocol.payloadOffset(lengths, 0), response.position());
+    assertEquals(8 + 3 * 16 + 16, RenderProtocol.payloadOffset(lengths, 2));
+    assertEquals(3, response.getInt(4));
+    assertEquals(5, response.getInt(8 + 16));
+    assertEquals(8, response.getInt(8 + 2 * 16 + 12));
+  }
+}
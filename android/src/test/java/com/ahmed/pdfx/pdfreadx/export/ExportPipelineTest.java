@@ -0,0 +1,200 @@
+package com.ahmed.pdfx.pdfreadx.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExportPipelineTest {
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private File directory;
+  /** Stands in for the main thread: the pipeline and its listener run here. */
+  private ExecutorService main;
+  private ExecutorService renderer;
+  private final FakeStages stages = new FakeStages();
+  private final RecordingListener listener = new RecordingListener();
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("pdfreadx-export").toFile();
+    main = Executors.newSingleThreadExecutor();
+    renderer = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    stages.encodeGate.countDown();
+    main.shutdown();
+    renderer.shutdown();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void renderingsInFlight_stayWithinTheDepth() throws Exception {
+    stages.encodeGate.countDown();
+    ExportPipeline<String> pipeline = pipeline(0, 39);
+
+    main.execute(() -> pipeline.start(3));
+
+    assertTrue(listener.finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(DocumentExport.Outcome.COMPLETED, listener.outcome);
+    assertEquals(40, stages.rendered.get());
+    assertTrue("at most 3 in flight, saw " + stages.mostLive.get(), stages.mostLive.get() <= 3);
+    assertEquals(0, stages.live.get());
+  }
+
+  @Test
+  public void progress_countsEveryPageWritten() throws Exception {
+    stages.encodeGate.countDown();
+    ExportPipeline<String> pipeline = pipeline(2, 6);
+
+    main.execute(() -> pipeline.start(2));
+
+    assertTrue(listener.finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(DocumentExport.Outcome.COMPLETED, listener.outcome);
+    assertNull(listener.error);
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5), listener.doneCounts);
+    assertEquals(Arrays.asList(5, 5, 5, 5, 5), listener.totals);
+    assertEquals(5, listener.done);
+    assertEquals(5, listener.total);
+    String[] names = directory.list();
+    Arrays.sort(names);
+    assertEquals(Arrays.asList("page-0003.txt", "page-0004.txt", "page-0005.txt", "page-0006.txt",
+        "page-0007.txt"), Arrays.asList(names));
+    assertEquals("page 4", new String(Files.readAllBytes(new File(directory, "page-0005.txt").toPath()),
+        StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void failedPage_failsTheExport() throws Exception {
+    stages.encodeGate.countDown();
+    stages.failingPage = 2;
+    ExportPipeline<String> pipeline = pipeline(0, 5);
+
+    main.execute(() -> pipeline.start(1));
+
+    assertTrue(listener.finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(DocumentExport.Outcome.FAILED, listener.outcome);
+    assertNotNull(listener.error);
+    // One page at a time: the pages before the failed one are written, none after it is rendered.
+    assertEquals(2, listener.done);
+    assertEquals(6, listener.total);
+    assertEquals(3, stages.rendered.get());
+    assertEquals(0, stages.live.get());
+  }
+
+  @Test
+  public void cancelDuringEncode_writesNoMoreFiles() throws Exception {
+    ExportPipeline<String> pipeline = pipeline(0, 9);
+
+    main.execute(() -> pipeline.start(2));
+    assertTrue(stages.encoding.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    main.submit(pipeline::cancel).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertEquals("waits for the pages in flight", 1, listener.finished.getCount());
+    stages.encodeGate.countDown();
+
+    assertTrue(listener.finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(DocumentExport.Outcome.CANCELLED, listener.outcome);
+    assertEquals(0, listener.done);
+    assertEquals(0, listener.doneCounts.size());
+    assertEquals(2, stages.rendered.get());
+    assertEquals(0, stages.live.get());
+    assertEquals(0, directory.list().length);
+  }
+
+  private ExportPipeline<String> pipeline(int firstPage, int lastPage) {
+    return new ExportPipeline<>(firstPage, lastPage, "txt", directory, stages, main::execute, listener);
+  }
+
+  /** Renders a page into its name on {@link #renderer}, and encodes it once the gate opens. */
+  private final class FakeStages implements ExportPipeline.Stages<String> {
+    final CountDownLatch encodeGate = new CountDownLatch(1);
+    final CountDownLatch encoding = new CountDownLatch(2);
+    final AtomicInteger rendered = new AtomicInteger();
+    final AtomicInteger live = new AtomicInteger();
+    final AtomicInteger mostLive = new AtomicInteger();
+    volatile int failingPage = -1;
+
+    @Override
+    public void render(int page, Consumer<String> onRendered) {
+      rendered.incrementAndGet();
+      renderer.execute(() -> {
+        if (page == failingPage) {
+          onRendered.accept(null);
+          return;
+        }
+        mostLive.accumulateAndGet(live.incrementAndGet(), Math::max);
+        onRendered.accept("page " + page);
+      });
+    }
+
+    @Override
+    public void encode(int page, String rendering, OutputStream out) throws IOException {
+      encoding.countDown();
+      try {
+        encodeGate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+      out.write(rendering.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void release(String rendering) {
+      live.decrementAndGet();
+    }
+  }
+
+  private static final class RecordingListener implements DocumentExport.Listener {
+    final List<Integer> doneCounts = new ArrayList<>();
+    final List<Integer> totals = new ArrayList<>();
+    final CountDownLatch finished = new CountDownLatch(1);
+    volatile DocumentExport.Outcome outcome;
+    volatile Exception error;
+    volatile int done;
+    volatile int total;
+
+    @Override
+    public void onPageWritten(int page, File file, int done, int total) {
+      assertTrue(file.isFile());
+      doneCounts.add(done);
+      totals.add(total);
+    }
+
+    @Override
+    public void onFinished(DocumentExport.Outcome outcome, Exception error, int done, int total) {
+      this.outcome = outcome;
+      this.error = error;
+      this.done = done;
+      this.total = total;
+      finished.countDown();
+    }
+  }
+}
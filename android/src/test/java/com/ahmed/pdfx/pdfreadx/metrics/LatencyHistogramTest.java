@@ -0,0 +1,55 @@
+package com.ahmed.pdfx.pdfreadx.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+  private static final long MS = 1_000_000L;
+
+  @Test
+  public void bucketOf_usesInclusiveUpperBounds() {
+    assertEquals(0, LatencyHistogram.bucketOf(0));
+    assertEquals(0, LatencyHistogram.bucketOf(MS));
+    assertEquals(1, LatencyHistogram.bucketOf(MS + 1));
+    assertEquals(4, LatencyHistogram.bucketOf(16 * MS));
+    assertEquals(LatencyHistogram.BUCKET_BOUNDS_MS.length, LatencyHistogram.bucketOf(5000 * MS));
+  }
+
+  @Test
+  public void percentileMillis_reportsBucketBoundOrMaximum() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.percentileMillis(0.5), 0);
+
+    for (int i = 0; i < 98; i++) {
+      histogram.record(3 * MS);
+    }
+    histogram.record(100 * MS);
+    histogram.record(6000 * MS);
+
+    assertEquals(4, histogram.percentileMillis(0.5), 0);
+    assertEquals(128, histogram.percentileMillis(0.99), 0);
+    assertEquals(6000, histogram.percentileMillis(1), 0);
+  }
+
+  @Test
+  public void snapshot_summarizesAndResetClears() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(2 * MS);
+    histogram.record(6 * MS);
+
+    Map<String, Object> snapshot = histogram.snapshot();
+    assertEquals(2L, snapshot.get("count"));
+    assertEquals(4.0, (Double) snapshot.get("meanMs"), 1e-9);
+    assertEquals(6.0, (Double) snapshot.get("maxMs"), 1e-9);
+    assertEquals(Arrays.asList(0L, 1L, 0L, 1L), ((List<?>) snapshot.get("bucketCounts")).subList(0, 4));
+
+    histogram.reset();
+    assertEquals(0, histogram.count());
+    assertEquals(0L, histogram.snapshot().get("count"));
+  }
+}
@@ -0,0 +1,57 @@
+package com.ahmed.pdfx.pdfreadx.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RenderMetricsTest {
+  private static final long REFRESH = 16_666_667L;
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> frames(RenderMetrics metrics) {
+    return (Map<String, Object>) metrics.snapshot(null).get("frames");
+  }
+
+  @Test
+  public void recordFrame_countsJankAndDroppedFramesPerGesture() {
+    RenderMetrics metrics = new RenderMetrics();
+    metrics.recordFrame(REFRESH, REFRESH, false);
+    metrics.recordFrame(REFRESH * 3, REFRESH, true);
+    metrics.recordFrame(REFRESH + REFRESH / 4, REFRESH, true);
+
+    Map<String, Object> frames = frames(metrics);
+    assertEquals(3L, frames.get("total"));
+    assertEquals(1L, frames.get("janky"));
+    assertEquals(2L, frames.get("dropped"));
+    assertEquals(2L, frames.get("gestureTotal"));
+    assertEquals(1L, frames.get("gestureJanky"));
+    assertEquals(2L, frames.get("gestureDropped"));
+  }
+
+  @Test
+  public void snapshot_withoutGovernorOmitsMemory() {
+    RenderMetrics metrics = new RenderMetrics();
+    metrics.recordFallbackRender();
+
+    Map<String, Object> snapshot = metrics.snapshot(null);
+
+    assertEquals(1L, snapshot.get("fallbackRenders"));
+    assertFalse(snapshot.containsKey("memory"));
+    metrics.reset();
+    assertEquals(0L, metrics.snapshot(null).get("fallbackRenders"));
+  }
+
+  @Test
+  public void recordRender_addsUpTheWorkersBusyTime() {
+    RenderMetrics metrics = new RenderMetrics();
+    metrics.recordRender(3_000_000L);
+    metrics.recordRender(5_000_000L);
+
+    assertEquals(8.0, (Double) metrics.snapshot(null).get("renderBusyMs"), 1e-9);
+    metrics.reset();
+    assertEquals(0.0, (Double) metrics.snapshot(null).get("renderBusyMs"), 1e-9);
+  }
+}
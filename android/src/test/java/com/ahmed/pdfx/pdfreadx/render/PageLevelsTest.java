@@ -0,0 +1,22 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PageLevelsTest {
+  @Test
+  public void baseScale_downsamplesLargePagesAndUpscalesSmallOnes() {
+    assertEquals(1, PageLevels.calculateSampleSize(600, 800, 1080, 1920));
+    assertEquals(4, PageLevels.calculateSampleSize(6000, 8000, 1080, 1920));
+    assertEquals(0.25f, PageLevels.baseScale(6000, 8000, 1080, 1920), 0f);
+    assertEquals(1f, PageLevels.baseScale(600, 800, 1080, 1920), 0f);
+    assertEquals(2f, PageLevels.baseScale(500, 700, 1080, 1920), 0f);
+  }
+
+  @Test
+  public void fittingLevel_isCappedAtTheLevelSizeLimit() {
+    assertEquals(2f, PageLevels.fittingLevel(600, 800, 1080, 1920), 0f);
+    assertEquals(4f, PageLevels.fittingLevel(600, 800, 100_000, 100_000), 0f);
+  }
+}
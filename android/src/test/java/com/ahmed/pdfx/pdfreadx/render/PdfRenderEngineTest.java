@@ -0,0 +1,286 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+
+import com.ahmed.pdfx.pdfreadx.cache.RenderCaches;
+import com.ahmed.pdfx.pdfreadx.search.DocumentSearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PdfRenderEngineTest {
+  private static final int PAGES = 6;
+  private static final long TIMEOUT_SECONDS = 10;
+  private static final int RACE_ROUNDS = 20;
+  private static final int RACE_BATCHES = 2000;
+
+  /** Stands in for the main thread: everything the engine posts runs here, in order. */
+  private ExecutorService main;
+  private Handler handler;
+  private PdfRenderEngine engine;
+  /** Holds the first search of a page on its worker until counted down. */
+  private final CountDownLatch searchGate = new CountDownLatch(1);
+  private final CountDownLatch searching = new CountDownLatch(1);
+
+  @Before
+  public void setUp() throws Exception {
+    main = Executors.newSingleThreadExecutor();
+    handler = new Handler() {
+      @Override
+      public boolean post(Runnable r) {
+        main.execute(r);
+        return true;
+      }
+    };
+    engine = new PdfRenderEngine(new GatedSources(), new RenderCaches(1 << 20, 1 << 20, 1 << 20, 1 << 20),
+        handler);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    searchGate.countDown();
+    onMain(() -> {
+      engine.close();
+      return null;
+    });
+    main.shutdown();
+  }
+
+  @Test
+  public void search_answersWhenTheEngineClosesMidway() throws Exception {
+    DocumentSearch search = new DocumentSearch(engine, null);
+    // Index every page first, so the search has hits on several pages to find bounds on.
+    DocumentSearch.Result indexed;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    do {
+      indexed = search(search, 0);
+    } while (!indexed.isComplete() && System.nanoTime() < deadline);
+    assertTrue("indexed every page", indexed.isComplete());
+
+    List<DocumentSearch.Result> results = new ArrayList<>();
+    CountDownLatch answered = new CountDownLatch(1);
+    onMain(() -> {
+      search.search("render", 0, 100, 3, result -> {
+        results.add(result);
+        answered.countDown();
+      });
+      return null;
+    });
+    // The first page is being searched and the other two wait in the queue as the engine closes.
+    assertTrue(searching.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    onMain(() -> {
+      engine.close();
+      return null;
+    });
+    searchGate.countDown();
+
+    assertTrue("search answered", answered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    onMain(() -> null);
+    assertEquals(1, results.size());
+    assertEquals(3, results.get(0).bounds.size());
+  }
+
+  @Test
+  public void measurePages_reportsAnEngineClosedFirst() throws Exception {
+    CountDownLatch measured = new CountDownLatch(1);
+    CountDownLatch closed = new CountDownLatch(1);
+    onMain(() -> {
+      engine.close();
+      engine.measurePages(measured::countDown, closed::countDown);
+      return null;
+    });
+
+    assertTrue("told of the close", closed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    onMain(() -> null);
+    assertEquals(1, measured.getCount());
+  }
+
+  @Test
+  public void renderBatch_completesWhenRacingClose() throws Exception {
+    // No page at this index, so every request renders to null without a bitmap.
+    List<RegionRequest> requests = Collections.singletonList(new RegionRequest(PAGES, 1f, 0f, 0f, 1f, 1f));
+    PdfRenderEngine.BatchSink sink = new PdfRenderEngine.BatchSink() {
+      @Override
+      public boolean onStart() {
+        return true;
+      }
+
+      @Override
+      public void onRendered(int request, Bitmap bitmap) {
+      }
+    };
+    for (int round = 0; round < RACE_ROUNDS; round++) {
+      PdfRenderEngine racing = new PdfRenderEngine(new GatedSources(),
+          new RenderCaches(1 << 20, 1 << 20, 1 << 20, 1 << 20), handler);
+      AtomicInteger completed = new AtomicInteger();
+      CountDownLatch answered = new CountDownLatch(RACE_BATCHES);
+      for (int i = 0; i < RACE_BATCHES; i++) {
+        if (i == RACE_BATCHES / 2) {
+          main.execute(racing::close);
+        }
+        racing.renderBatch(PdfRenderEngine.PRIORITY_VISIBLE, requests, sink, () -> {
+          completed.incrementAndGet();
+          answered.countDown();
+        });
+      }
+
+      assertTrue("every batch completed", answered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      onMain(() -> null);
+      assertEquals(RACE_BATCHES, completed.get());
+    }
+  }
+
+  @Test
+  public void renderBatch_rendersNothingTheSinkDeclines() throws Exception {
+    List<RegionRequest> requests = new ArrayList<>();
+    for (int page = 0; page < PAGES; page++) {
+      requests.add(new RegionRequest(page, 1f, 0f, 0f, 1f, 1f));
+    }
+    AtomicInteger started = new AtomicInteger();
+    AtomicInteger rendered = new AtomicInteger();
+    CountDownLatch completed = new CountDownLatch(1);
+
+    engine.renderBatch(PdfRenderEngine.PRIORITY_VISIBLE, requests, new PdfRenderEngine.BatchSink() {
+      @Override
+      public boolean onStart() {
+        started.incrementAndGet();
+        return false;
+      }
+
+      @Override
+      public void onRendered(int request, Bitmap bitmap) {
+        rendered.incrementAndGet();
+      }
+    }, completed::countDown);
+
+    assertTrue("batch completed", completed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertEquals(1, started.get());
+    assertEquals(0, rendered.get());
+  }
+
+  @Test
+  public void encodeThumbnails_answersWhenRacingClose() throws Exception {
+    // No pages at these indices, so nothing is rendered and every answer is empty.
+    int[] pages = {PAGES, PAGES + 1};
+    for (int round = 0; round < RACE_ROUNDS; round++) {
+      PdfRenderEngine racing = new PdfRenderEngine(new GatedSources(),
+          new RenderCaches(1 << 20, 1 << 20, 1 << 20, 1 << 20), handler);
+      AtomicInteger answers = new AtomicInteger();
+      CountDownLatch answered = new CountDownLatch(RACE_BATCHES);
+      for (int i = 0; i < RACE_BATCHES; i++) {
+        if (i == RACE_BATCHES / 2) {
+          main.execute(racing::close);
+        }
+        racing.encodeThumbnails(pages, 64, thumbnails -> {
+          assertTrue(thumbnails.isEmpty());
+          answers.incrementAndGet();
+          answered.countDown();
+        });
+      }
+
+      assertTrue("every request answered", answered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      onMain(() -> null);
+      assertEquals(RACE_BATCHES, answers.get());
+    }
+  }
+
+  private DocumentSearch.Result search(DocumentSearch search, int boundsPages) throws Exception {
+    DocumentSearch.Result[] result = new DocumentSearch.Result[1];
+    CountDownLatch answered = new CountDownLatch(1);
+    onMain(() -> {
+      search.search("render", 0, 100, boundsPages, found -> {
+        result[0] = found;
+        answered.countDown();
+      });
+      return null;
+    });
+    assertTrue(answered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    return result[0];
+  }
+
+  private <T> T onMain(Callable<T> task) throws Exception {
+    return main.submit(task).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /** Synthetic pages that render nothing, whose first text search waits for {@link #searchGate}. */
+  private final class GatedSource implements PageSource<Bitmap> {
+    private final SyntheticPageSource pages = new SyntheticPageSource(PAGES, 612, 792);
+
+    @Override
+    public int getPageCount() {
+      return pages.getPageCount();
+    }
+
+    @Override
+    public Page<Bitmap> openPage(int index) {
+      Page<int[]> page = pages.openPage(index);
+      return new Page<Bitmap>() {
+        @Override
+        public int getWidth() {
+          return page.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+          return page.getHeight();
+        }
+
+        @Override
+        public void render(Bitmap target, int width, int height, float scaleX, float scaleY, int x, int y) {
+        }
+
+        @Override
+        public String getText() {
+          return page.getText();
+        }
+
+        @Override
+        public float[] findText(String query) {
+          searching.countDown();
+          try {
+            searchGate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return page.findText(query);
+        }
+
+        @Override
+        public void close() {
+          page.close();
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+      pages.close();
+    }
+  }
+
+  private final class GatedSources implements PageSource.Factory<Bitmap> {
+    @Override
+    public PageSource<Bitmap> open() {
+      return new GatedSource();
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SyntheticPageSourceTest {
+  @Test
+  public void openPage_allowsOnePageAtATime() {
+    SyntheticPageSource source = new SyntheticPageSource(3, 600, 800);
+    PageSource.Page<int[]> page = source.openPage(0);
+    try {
+      source.openPage(1);
+      fail("Opened a second page");
+    } catch (IllegalStateException expected) {
+      // only one page may be open
+    }
+    page.close();
+    try (PageSource.Page<int[]> next = source.openPage(1)) {
+      assertEquals(600, next.getWidth());
+      assertEquals(800, next.getHeight());
+    }
+  }
+
+  @Test
+  public void render_drawsAWindowAndLeavesUncoveredPixelsAlone() {
+    SyntheticPageSource source = new SyntheticPageSource(1, 100, 100);
+    int[] pixels = new int[64 * 64];
+    Arrays.fill(pixels, 0);
+    try (PageSource.Page<int[]> page = source.openPage(0)) {
+      // At 1x the window from (50, 50) covers 50x50 pixels of the page.
+      page.render(pixels, 64, 64, 1f, 1f, 50, 50);
+    }
+    assertNotEquals(0, pixels[0]);
+    assertNotEquals(0, pixels[49 * 64 + 49]);
+    assertEquals(0, pixels[50]);
+    assertEquals(0, pixels[50 * 64]);
+  }
+
+  @Test
+  public void findText_locatesLinesOfTheExtractedText() {
+    SyntheticPageSource source = new SyntheticPageSource(2, 600, 800);
+    try (PageSource.Page<int[]> page = source.openPage(1)) {
+      String[] lines = page.getText().split("\n");
+      assertEquals(SyntheticPageSource.lineText(1, 5), lines[0]);
+
+      float[] bounds = page.findText(lines[0].toUpperCase());
+      assertEquals(0, bounds.length % 4);
+      assertNotEquals(0, bounds.length);
+      assertEquals(60f, bounds[0], 0f);
+      assertEquals(70f, bounds[1], 0f);
+      assertEquals(0, page.findText("no such words").length);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.ahmed.pdfx.pdfreadx.render;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TilePlannerTest {
+  @Test
+  public void quantizeScale_roundsUpToPowerOfTwo() {
+    assertEquals(1f, TilePlanner.quantizeScale(1f), 0f);
+    assertEquals(4f, TilePlanner.quantizeScale(2.5f), 0f);
+    assertEquals(0.5f, TilePlanner.quantizeScale(0.3f), 0f);
+  }
+
+  @Test
+  public void plan_coversOnlyVisibleTiles() {
+    // 600x800pt page at 4x is 2400x3200px, i.e. 5x7 tiles of 512px.
+    List<TilePlanner.TileSpec> tiles = TilePlanner.plan(600, 800, 4f, 0.5f, 0.5f, 0.6f, 0.6f, 512);
+
+    assertEquals(1, tiles.size());
+    TilePlanner.TileSpec tile = tiles.get(0);
+    assertEquals(2, tile.column);
+    assertEquals(3, tile.row);
+    assertEquals(1024, tile.x);
+    assertEquals(1536, tile.y);
+  }
+
+  @Test
+  public void plan_clipsEdgeTilesToPage() {
+    List<TilePlanner.TileSpec> tiles = TilePlanner.plan(600, 800, 4f, 0f, 0f, 1f, 1f, 512);
+
+    assertEquals(35, tiles.size());
+    TilePlanner.TileSpec last = tiles.get(tiles.size() - 1);
+    assertEquals(2400 - 4 * 512, last.width);
+    assertEquals(3200 - 6 * 512, last.height);
+  }
+}
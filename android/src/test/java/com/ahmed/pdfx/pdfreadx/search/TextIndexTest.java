@@ -0,0 +1,103 @@
+package com.ahmed.pdfx.pdfreadx.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TextIndexTest {
+  @Test
+  public void find_matchesPhrasesAcrossWhiteSpaceIgnoringCase() {
+    TextIndex index = new TextIndex(3);
+    index.addPage(2, "Quarterly\n  Revenue grew");
+    index.addPage(0, "No revenue here, only costs.");
+
+    List<TextIndex.Hit> hits = index.find("quarterly revenue", 10);
+    assertEquals(1, hits.size());
+    assertEquals(2, hits.get(0).page);
+    assertEquals(0, hits.get(0).start);
+    assertEquals("quarterly revenue".length(), hits.get(0).length);
+
+    hits = index.find("REVENUE", 10);
+    assertEquals(2, hits.size());
+    assertEquals(0, hits.get(0).page);
+    assertEquals(2, hits.get(1).page);
+  }
+
+  @Test
+  public void find_matchesInsideWordsAndAtPhraseEdges() {
+    TextIndex index = new TextIndex(2);
+    index.addPage(0, "the bitmap pool recycles bitmaps");
+    index.addPage(1, "a pooled buffer");
+
+    assertEquals(2, index.find("pool", 10).size());
+    assertEquals(1, index.find("map poo", 10).size());
+    assertEquals(1, index.find("ap pool recyc", 10).size());
+    assertTrue(index.find("pool bitmap", 10).isEmpty());
+  }
+
+  @Test
+  public void find_stopsAtTheHitLimitInPageOrder() {
+    TextIndex index = new TextIndex(4);
+    for (int page = 3; page >= 0; page--) {
+      index.addPage(page, "word word word");
+    }
+    List<TextIndex.Hit> hits = index.find("word", 5);
+    assertEquals(5, hits.size());
+    assertEquals(0, hits.get(0).page);
+    assertEquals(1, hits.get(4).page);
+    assertEquals(5, hits.get(1).start);
+  }
+
+  @Test
+  public void find_repeatsFromCacheUntilAPageIsAdded() {
+    TextIndex index = new TextIndex(2);
+    index.addPage(0, "search me");
+    List<TextIndex.Hit> first = index.find("search", 10);
+    assertSame(first, index.find("  Search ", 10));
+
+    index.addPage(1, "search me too");
+    assertEquals(2, index.find("search", 10).size());
+  }
+
+  @Test
+  public void nearestMissingPage_worksOutwardFromTheCenter() {
+    TextIndex index = new TextIndex(5);
+    assertEquals(2, index.nearestMissingPage(2));
+    index.addPage(2, "");
+    assertEquals(3, index.nearestMissingPage(2));
+    index.addPage(3, "");
+    assertEquals(1, index.nearestMissingPage(2));
+    index.addPage(1, "");
+    index.addPage(4, "");
+    assertEquals(0, index.nearestMissingPage(7));
+    index.addPage(0, "");
+    assertEquals(-1, index.nearestMissingPage(2));
+    assertTrue(index.isComplete());
+  }
+
+  @Test
+  public void writeTo_roundTripsTheIndexedPages() throws IOException {
+    TextIndex index = new TextIndex(3);
+    index.addPage(1, "Gr\u00fc\u00dfe aus K\u00f6ln");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    index.writeTo(new DataOutputStream(bytes));
+
+    TextIndex read = TextIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals(3, read.getPageCount());
+    assertEquals(1, read.getIndexedPageCount());
+    assertFalse(read.contains(0));
+    List<TextIndex.Hit> hits = read.find("k\u00f6ln", 10);
+    assertEquals(1, hits.size());
+    assertEquals("aus k\u00f6ln", read.snippet(hits.get(0), 4));
+  }
+}
@@ -0,0 +1,236 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+public class ZoomGestureHandlerTest {
+  private static final int IMAGE_WIDTH = 1224;
+  private static final int IMAGE_HEIGHT = 1584;
+  private static final int VIEW_WIDTH = 1080;
+  private static final int VIEW_HEIGHT = 2000;
+
+  private final FakeView view = new FakeView();
+  private final ZoomGestureHandler gestures = new ZoomGestureHandler(view, view);
+  private final ZoomTransform start = new ZoomTransform();
+  private final ZoomTransform end = new ZoomTransform();
+  private final float fit = ZoomMath.fitScale(IMAGE_WIDTH, IMAGE_HEIGHT, VIEW_WIDTH, VIEW_HEIGHT);
+
+  /**
+   * A pinch, a pan, a fling and a double-tap zoom animation, through the handler the way the
+   * view's touch listeners, Choreographer callback and animator call it.
+   */
+  private float gesture() {
+    gestures.transform.set(fit, 0, ZoomMath.centeredTranslation(IMAGE_HEIGHT * fit, VIEW_HEIGHT));
+    gestures.applyTransformNow();
+    for (int event = 0; event < 50; event++) {
+      gestures.onScale(1.03f, 500, 900, fit, fit * 5);
+      frame();
+    }
+    gestures.onDown(540, 1000);
+    for (int event = 1; event <= 50; event++) {
+      gestures.onMove(540 - 17 * event, 1000 + 23 * event, false, fit);
+      if (event % 2 == 0) {
+        frame();
+      }
+    }
+    gestures.endSwipe();
+    view.fling(-100, -200, 20);
+    gestures.scheduleFrame();
+    while (view.framePosted) {
+      frame();
+    }
+    start.set(gestures.transform);
+    end.set(gestures.transform);
+    end.zoomAround(ZoomMath.doubleTapScale(gestures.transform.scale, fit, fit * 5), 300, 700,
+        IMAGE_WIDTH, IMAGE_HEIGHT, VIEW_WIDTH, VIEW_HEIGHT);
+    for (int frame = 0; frame <= 15; frame++) {
+      gestures.onAnimationFrame(start, end, frame / 15f);
+    }
+    return view.appliedX + view.appliedY;
+  }
+
+  /** Runs the frame the handler asked for, like the Choreographer on the next vsync. */
+  private void frame() {
+    if (view.framePosted) {
+      view.framePosted = false;
+      gestures.doFrame();
+    }
+  }
+
+  @Test
+  public void touchMoves_applyTheTransformOncePerFrame() {
+    gestures.transform.set(fit * 2, 0, 0);
+    gestures.onDown(540, 1000);
+
+    gestures.onMove(530, 990, false, fit);
+    gestures.onMove(520, 980, false, fit);
+    gestures.onMove(510, 970, false, fit);
+
+    assertEquals(1, view.framesPosted);
+    assertEquals(0, view.applied);
+    frame();
+    assertEquals(1, view.applied);
+    assertEquals(-30f, view.appliedX, 0f);
+    assertEquals(-30f, view.appliedY, 0f);
+    frame();
+    assertEquals(1, view.applied);
+  }
+
+  @Test
+  public void edgeSwipe_dragsAtHalfSpeedAndReportsProgress() {
+    gestures.transform.set(fit, 0, 0);
+    gestures.onDown(10, 1000);
+    assertTrue(gestures.isSwiping());
+
+    gestures.onMove(110, 1010, false, fit);
+    frame();
+
+    assertEquals(50f, gestures.getSwipeOffset(), 0f);
+    assertEquals(50f, view.swipeOffset, 0f);
+    assertEquals(50f, view.appliedX, 0f);
+
+    gestures.endSwipe();
+    assertFalse(gestures.isSwiping());
+  }
+
+  @Test
+  public void fling_stepsEveryFrameUntilItStops() {
+    view.fling(-100, -200, 3);
+    gestures.scheduleFrame();
+
+    frame();
+    assertEquals(-100f, view.appliedX, 0f);
+    assertTrue(view.framePosted);
+    frame();
+    frame();
+    assertEquals(-300f, view.appliedX, 0f);
+    assertEquals(-600f, view.appliedY, 0f);
+    frame();
+
+    assertFalse(view.framePosted);
+    assertEquals(3, view.applied);
+  }
+
+  @Test
+  public void cancelFrame_appliesThePendingTransform() {
+    gestures.onScale(2f, 0, 0, fit, fit * 5);
+
+    assertTrue(gestures.cancelFrame());
+
+    assertEquals(1, view.applied);
+    assertFalse(gestures.cancelFrame());
+  }
+
+  @Test
+  public void gesture_allocatesNothing() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    // Warmed up so every round runs compiled code; the tests run on C1 (see build.gradle),
+    // which keeps the short-lived allocations that escape analysis would remove here.
+    float sink = 0;
+    for (int i = 0; i < 200; i++) {
+      sink += gesture();
+      sink += threads.getThreadAllocatedBytes(thread) - threads.getThreadAllocatedBytes(thread);
+    }
+    for (int round = 0; round < 5; round++) {
+      // Reading the counter may allocate itself, so that is measured and taken off.
+      long before = threads.getThreadAllocatedBytes(thread);
+      long overhead = threads.getThreadAllocatedBytes(thread) - before;
+      before = threads.getThreadAllocatedBytes(thread);
+      for (int i = 0; i < 20; i++) {
+        sink += gesture();
+      }
+      long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+
+      assertEquals("bytes allocated by 20 gestures in round " + round + " (" + sink + ")", 0, allocated);
+    }
+  }
+
+  /** The view's side: fixed sizes, a frame flag for the Choreographer and a linear fling. */
+  private static final class FakeView implements ZoomGestureHandler.Host, ZoomGestureHandler.Fling {
+    boolean framePosted;
+    int framesPosted;
+    int applied;
+    float appliedX;
+    float appliedY;
+    float swipeOffset;
+    private int flingX;
+    private int flingY;
+    private int stepX;
+    private int stepY;
+    private int stepsLeft;
+
+    void fling(int stepX, int stepY, int steps) {
+      this.stepX = stepX;
+      this.stepY = stepY;
+      stepsLeft = steps;
+      flingX = 0;
+      flingY = 0;
+    }
+
+    @Override
+    public int getImageWidth() {
+      return IMAGE_WIDTH;
+    }
+
+    @Override
+    public int getImageHeight() {
+      return IMAGE_HEIGHT;
+    }
+
+    @Override
+    public int getViewWidth() {
+      return VIEW_WIDTH;
+    }
+
+    @Override
+    public int getViewHeight() {
+      return VIEW_HEIGHT;
+    }
+
+    @Override
+    public void postFrame() {
+      framePosted = true;
+      framesPosted++;
+    }
+
+    @Override
+    public void applyTransform(ZoomTransform transform) {
+      applied++;
+      appliedX = transform.x;
+      appliedY = transform.y;
+    }
+
+    @Override
+    public void onSwipeProgress(float offset, boolean isRightSwipe) {
+      swipeOffset = offset;
+    }
+
+    @Override
+    public boolean computeScrollOffset() {
+      if (stepsLeft == 0) {
+        return false;
+      }
+      stepsLeft--;
+      flingX += stepX;
+      flingY += stepY;
+      return true;
+    }
+
+    @Override
+    public int getCurrX() {
+      return flingX;
+    }
+
+    @Override
+    public int getCurrY() {
+      return flingY;
+    }
+  }
+}
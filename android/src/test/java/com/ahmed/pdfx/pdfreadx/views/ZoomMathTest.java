@@ -0,0 +1,46 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ZoomMathTest {
+  @Test
+  public void clampTranslation_centersSmallContentAndKeepsLargeContentOverTheView() {
+    assertEquals(100f, ZoomMath.clampTranslation(-50f, 800f, 1000f), 0f);
+    assertEquals(0f, ZoomMath.clampTranslation(30f, 2000f, 1000f), 0f);
+    assertEquals(-1000f, ZoomMath.clampTranslation(-1500f, 2000f, 1000f), 0f);
+    assertEquals(-400f, ZoomMath.clampTranslation(-400f, 2000f, 1000f), 0f);
+  }
+
+  @Test
+  public void translationRange_matchesClampTranslation() {
+    assertEquals(100f, ZoomMath.minTranslation(800f, 1000f), 0f);
+    assertEquals(100f, ZoomMath.maxTranslation(800f, 1000f), 0f);
+    assertEquals(-1000f, ZoomMath.minTranslation(2000f, 1000f), 0f);
+    assertEquals(0f, ZoomMath.maxTranslation(2000f, 1000f), 0f);
+  }
+
+  @Test
+  public void clampPan_stopsAtTheEdges() {
+    assertEquals(0f, ZoomMath.clampPan(100f, 50f, 800f, 1000f), 0f);
+    assertEquals(20f, ZoomMath.clampPan(-20f, 50f, 2000f, 1000f), 0f);
+    assertEquals(-30f, ZoomMath.clampPan(-970f, -50f, 2000f, 1000f), 0f);
+    assertEquals(-50f, ZoomMath.clampPan(-500f, -50f, 2000f, 1000f), 0f);
+  }
+
+  @Test
+  public void focusTranslation_keepsTheFocusedPointInPlace() {
+    float translation = ZoomMath.focusTranslation(-100f, 300f, 1f, 2f);
+    // Image point (300 + 100) / 1 is still under the focus at 2x.
+    assertEquals(300f, translation + 400f * 2f, 1e-4f);
+  }
+
+  @Test
+  public void doubleTapScale_zoomsInFromFitAndOutOtherwise() {
+    assertEquals(2.5f, ZoomMath.doubleTapScale(1.05f, 1f, 5f), 0f);
+    assertEquals(2f, ZoomMath.doubleTapScale(1f, 1f, 2f), 0f);
+    assertEquals(1f, ZoomMath.doubleTapScale(3f, 1f, 5f), 0f);
+    assertEquals(0.5f, ZoomMath.fitScale(2000f, 1000f, 1000f, 1000f), 0f);
+  }
+}
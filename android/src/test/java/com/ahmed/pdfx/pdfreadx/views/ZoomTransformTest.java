@@ -0,0 +1,61 @@
+package com.ahmed.pdfx.pdfreadx.views;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ZoomTransformTest {
+  private static final float IMAGE_WIDTH = 1224;
+  private static final float IMAGE_HEIGHT = 1584;
+  private static final float VIEW_WIDTH = 1080;
+  private static final float VIEW_HEIGHT = 2000;
+
+  private final ZoomTransform transform = new ZoomTransform();
+  private final ZoomTransform start = new ZoomTransform();
+  private final ZoomTransform end = new ZoomTransform();
+
+  @Test
+  public void zoomAround_keepsFocusAndStaysInBounds() {
+    transform.set(2f, -600f, -800f);
+
+    transform.zoomAround(3f, 540f, 1000f, IMAGE_WIDTH, IMAGE_HEIGHT, VIEW_WIDTH, VIEW_HEIGHT);
+
+    assertEquals(3f, transform.scale, 0f);
+    // Image point ((540 + 600) / 2, (1000 + 800) / 2) stays under the focus.
+    assertEquals(540f, transform.x + 570f * 3f, 1e-3f);
+    assertEquals(1000f, transform.y + 900f * 3f, 1e-3f);
+
+    transform.zoomAround(0.5f, 540f, 1000f, IMAGE_WIDTH, IMAGE_HEIGHT, VIEW_WIDTH, VIEW_HEIGHT);
+    assertEquals((VIEW_WIDTH - IMAGE_WIDTH * 0.5f) / 2, transform.x, 1e-3f);
+  }
+
+  @Test
+  public void centerOn_restoresTheCenterForAnotherResolutionAndViewSize() {
+    transform.set(2f, -600f, -800f);
+    float fractionX = transform.centerFractionX(IMAGE_WIDTH, VIEW_WIDTH);
+    float fractionY = transform.centerFractionY(IMAGE_HEIGHT, VIEW_HEIGHT);
+
+    // Rotated: the view is landscape and the bitmap is rendered at half the resolution.
+    transform.centerOn(4f, fractionX, fractionY, IMAGE_WIDTH / 2, IMAGE_HEIGHT / 2, VIEW_HEIGHT, VIEW_WIDTH);
+
+    assertEquals(4f, transform.scale, 0f);
+    assertEquals(fractionX, transform.centerFractionX(IMAGE_WIDTH / 2, VIEW_HEIGHT), 1e-5f);
+    assertEquals(fractionY, transform.centerFractionY(IMAGE_HEIGHT / 2, VIEW_WIDTH), 1e-5f);
+
+    transform.centerOn(4f, 0f, 0f, IMAGE_WIDTH / 2, IMAGE_HEIGHT / 2, VIEW_HEIGHT, VIEW_WIDTH);
+    assertEquals(0f, transform.x, 0f);
+    assertEquals(0f, transform.y, 0f);
+  }
+
+  @Test
+  public void interpolate_movesLinearly() {
+    start.set(1f, 0f, 100f);
+    end.set(3f, -200f, 0f);
+
+    transform.interpolate(start, end, 0.25f);
+
+    assertEquals(1.5f, transform.scale, 0f);
+    assertEquals(-50f, transform.x, 0f);
+    assertEquals(75f, transform.y, 0f);
+  }
+}
@@ -0,0 +1,40 @@
+/// The image formats `Pdfreadx.exportPages` writes.
+enum PdfExportFormat {
+  png,
+
+  /// Lossless at quality 100 from Android 11 on, lossy otherwise.
+  webp,
+}
+
+/// A page `Pdfreadx.exportPages` has written.
+class PdfExportProgress {
+  const PdfExportProgress({required this.page, required this.path, required this.done, required this.total});
+
+  factory PdfExportProgress.fromMap(Map<Object?, Object?> map) {
+    return PdfExportProgress(
+      page: map['page']! as int,
+      path: map['path']! as String,
+      done: map['done']! as int,
+      total: map['total']! as int,
+    );
+  }
+
+  /// The page that was written, and the file it is in.
+  final int page;
+  final String path;
+
+  /// How many of the [total] pages are written. Pages are encoded in
+  /// parallel, so they may finish out of order.
+  final int done;
+  final int total;
+}
+
+/// Why an export stopped before writing every page.
+class PdfExportException implements Exception {
+  const PdfExportException(this.message);
+
+  final String message;
+
+  @override
+  String toString() => 'PdfExportException: $message';
+}
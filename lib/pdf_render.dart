@@ -0,0 +1,109 @@
+import 'dart:typed_data';
+import 'dart:ui' show Rect;
+
+/// Pixel format of images returned by `Pdfreadx.renderPages`.
+enum PdfImageFormat {
+  /// Raw RGBA, 8 bits per channel, rows packed without padding; ready for
+  /// `decodeImageFromPixels` with `PixelFormat.rgba8888`.
+  rgba8888,
+  png,
+}
+
+/// One page of a `Pdfreadx.renderPages` batch.
+class PdfRenderRequest {
+  const PdfRenderRequest(this.pageIndex, {this.scale = 1.0, this.crop});
+
+  final int pageIndex;
+
+  /// Pixels per PDF point.
+  final double scale;
+
+  /// Part of the page to render in normalized coordinates (0..1 on both
+  /// axes); null renders the whole page.
+  final Rect? crop;
+}
+
+/// A rendered page. [bytes] is a view into the response, not a copy.
+class PdfPageImage {
+  const PdfPageImage({
+    required this.pageIndex,
+    required this.width,
+    required this.height,
+    required this.format,
+    required this.bytes,
+  });
+
+  final int pageIndex;
+  final int width;
+  final int height;
+  final PdfImageFormat format;
+  final Uint8List bytes;
+
+  /// Whether the page could not be rendered, e.g. because it does not exist.
+  bool get isEmpty => width == 0 || height == 0;
+}
+
+/// Thrown when a whole batch is refused, with the status code of the response.
+class PdfRenderException implements Exception {
+  const PdfRenderException(this.status);
+
+  static const int badRequest = 1;
+  static const int noDocument = 2;
+  static const int tooLarge = 3;
+  static const int closed = 4;
+
+  final int status;
+
+  @override
+  String toString() => 'PdfRenderException(status: $status)';
+}
+
+const int _requestHeaderBytes = 12;
+const int _requestEntryBytes = 24;
+const int _responseHeaderBytes = 8;
+const int _responseEntryBytes = 16;
+
+/// Encodes a batch in the little-endian layout the native render channel reads.
+ByteData encodeRenderRequest(int documentId, PdfImageFormat format, List<PdfRenderRequest> requests) {
+  final data = ByteData(_requestHeaderBytes + _requestEntryBytes * requests.length);
+  data.setInt32(0, documentId, Endian.little);
+  data.setInt32(4, format.index, Endian.little);
+  data.setInt32(8, requests.length, Endian.little);
+  var offset = _requestHeaderBytes;
+  for (final request in requests) {
+    final crop = request.crop ?? const Rect.fromLTRB(0, 0, 1, 1);
+    data.setInt32(offset, request.pageIndex, Endian.little);
+    data.setFloat32(offset + 4, request.scale, Endian.little);
+    data.setFloat32(offset + 8, crop.left, Endian.little);
+    data.setFloat32(offset + 12, crop.top, Endian.little);
+    data.setFloat32(offset + 16, crop.right, Endian.little);
+    data.setFloat32(offset + 20, crop.bottom, Endian.little);
+    offset += _requestEntryBytes;
+  }
+  return data;
+}
+
+/// Decodes a response into one image per request, in request order, without
+/// copying the pixels.
+List<PdfPageImage> decodeRenderResponse(ByteData response, PdfImageFormat format) {
+  final status = response.getInt32(0, Endian.little);
+  if (status != 0) {
+    throw PdfRenderException(status);
+  }
+  final count = response.getInt32(4, Endian.little);
+  var payload = _responseHeaderBytes + _responseEntryBytes * count;
+  final images = <PdfPageImage>[];
+  for (var i = 0; i < count; i++) {
+    final entry = _responseHeaderBytes + _responseEntryBytes * i;
+    final byteLength = response.getInt32(entry + 12, Endian.little);
+    images.add(PdfPageImage(
+      pageIndex: response.getInt32(entry, Endian.little),
+      width: response.getInt32(entry + 4, Endian.little),
+      height: response.getInt32(entry + 8, Endian.little),
+      format: format,
+      bytes: Uint8List.sublistView(response, payload, payload + byteLength),
+    ));
+    payload += byteLength;
+  }
+  return images;
+}
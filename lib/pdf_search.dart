@@ -0,0 +1,75 @@
+import 'dart:typed_data';
+import 'dart:ui' show Rect;
+
+/// One occurrence of a query in the text of a page.
+class PdfSearchHit {
+  const PdfSearchHit({required this.page, required this.start, required this.length, required this.snippet});
+
+  final int page;
+
+  /// Where the hit starts in the page's text, lower-cased with white space
+  /// collapsed, and how long it is.
+  final int start;
+  final int length;
+
+  /// The text around the hit, in the same normalized form.
+  final String snippet;
+}
+
+/// The answer of `Pdfreadx.search` from the pages indexed when it ran.
+class PdfSearchResult {
+  const PdfSearchResult({
+    required this.query,
+    required this.pageCount,
+    required this.indexedPages,
+    required this.supported,
+    required this.hits,
+    required this.bounds,
+  });
+
+  factory PdfSearchResult.fromMap(Map<String, Object?> map) {
+    final bounds = <int, List<Rect>>{};
+    (map['bounds']! as Map).forEach((page, rects) {
+      final values = rects as Float64List;
+      bounds[page as int] = [
+        for (var i = 0; i + 3 < values.length; i += 4)
+          Rect.fromLTRB(values[i], values[i + 1], values[i + 2], values[i + 3]),
+      ];
+    });
+    return PdfSearchResult(
+      query: map['query']! as String,
+      pageCount: map['pageCount']! as int,
+      indexedPages: map['indexedPages']! as int,
+      supported: map['supported']! as bool,
+      hits: [
+        for (final hit in map['hits']! as List)
+          PdfSearchHit(
+            page: (hit as Map)['page']! as int,
+            start: hit['start']! as int,
+            length: hit['length']! as int,
+            snippet: hit['snippet']! as String,
+          ),
+      ],
+      bounds: bounds,
+    );
+  }
+
+  final String query;
+  final int pageCount;
+
+  /// How many pages the background indexer had read; search again later
+  /// for hits on the rest.
+  final int indexedPages;
+
+  /// False when the platform cannot extract text (before Android 15), so no
+  /// search will find anything.
+  final bool supported;
+
+  final List<PdfSearchHit> hits;
+
+  /// Where the hits are on the first pages that have any, normalized to the
+  /// page (0..1 on both axes), by page index.
+  final Map<int, List<Rect>> bounds;
+
+  bool get isComplete => indexedPages == pageCount;
+}
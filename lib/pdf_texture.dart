@@ -0,0 +1,22 @@
+/// A document opened with `Pdfreadx.openDocument` for texture rendering.
+///
+/// Pass [id] as `documentId` to `startPDFViewActivity` to show the same
+/// document in the native viewer without opening it again.
+class PdfDocumentHandle {
+  const PdfDocumentHandle({required this.id, required this.pageCount});
+
+  final int id;
+  final int pageCount;
+}
+
+/// A page rendering to show with `Texture(textureId: texture.textureId)`.
+///
+/// [width] and [height] are the size of the rendering in pixels; scale the
+/// [Texture] to the space it should fill.
+class PdfPageTexture {
+  const PdfPageTexture({required this.textureId, required this.width, required this.height});
+
+  final int textureId;
+  final int width;
+  final int height;
+}
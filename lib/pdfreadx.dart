@@ -1,6 +1,18 @@
 
+import 'dart:typed_data';
+import 'dart:ui' show Rect, Size;
+
+import 'pdf_export.dart';
+import 'pdf_render.dart';
+import 'pdf_search.dart';
+import 'pdf_texture.dart';
 import 'pdfreadx_platform_interface.dart';
 
+export 'pdf_export.dart';
+export 'pdf_render.dart' show PdfImageFormat, PdfPageImage, PdfRenderException, PdfRenderRequest;
+export 'pdf_search.dart';
+export 'pdf_texture.dart';
+
 class Pdfreadx {
   Future<String?> getPlatformVersion() {
     return PdfreadxPlatform.instance.getPlatformVersion();
@@ -8,4 +20,51 @@ class Pdfreadx {
   Future<String?> startPDFViewActivity(Map<String, dynamic> args) {
     return PdfreadxPlatform.instance.startPDFViewActivity(args);
   }
+  Future<Map<int, Uint8List>> getThumbnails(Map<String, dynamic> args) {
+    return PdfreadxPlatform.instance.getThumbnails(args);
+  }
+  Future<PdfDocumentHandle> openDocument(String filePath, String fileName) {
+    return PdfreadxPlatform.instance.openDocument(filePath, fileName);
+  }
+  Future<PdfDocumentHandle> openDocumentFromUri(String uri) {
+    return PdfreadxPlatform.instance.openDocumentFromUri(uri);
+  }
+  Future<PdfDocumentHandle> openDocumentFromBytes(Uint8List bytes, {String? name}) {
+    return PdfreadxPlatform.instance.openDocumentFromBytes(bytes, name: name);
+  }
+  Future<PdfPageTexture?> renderTexture(int documentId, int pageIndex,
+      {required int width, required int height, int? textureId, Rect? viewport}) {
+    return PdfreadxPlatform.instance.renderTexture(documentId, pageIndex,
+        width: width, height: height, textureId: textureId, viewport: viewport);
+  }
+  Future<void> disposeTexture(int textureId) {
+    return PdfreadxPlatform.instance.disposeTexture(textureId);
+  }
+  Future<void> closeDocument(int documentId) {
+    return PdfreadxPlatform.instance.closeDocument(documentId);
+  }
+  Future<List<PdfPageImage>> renderPages(int documentId, List<PdfRenderRequest> requests,
+      {PdfImageFormat format = PdfImageFormat.rgba8888}) {
+    return PdfreadxPlatform.instance.renderPages(documentId, requests, format: format);
+  }
+  Future<List<Size>> getPageSizes(int documentId) {
+    return PdfreadxPlatform.instance.getPageSizes(documentId);
+  }
+  Stream<PdfExportProgress> exportPages(int documentId, String outputDirectory,
+      {int firstPage = 0, int? lastPage, double dpi = 150, PdfExportFormat format = PdfExportFormat.png,
+      int quality = 90}) {
+    return PdfreadxPlatform.instance.exportPages(documentId, outputDirectory,
+        firstPage: firstPage, lastPage: lastPage, dpi: dpi, format: format, quality: quality);
+  }
+  Future<PdfSearchResult> search(int documentId, String query,
+      {int page = 0, int maxHits = 1000, int boundsPages = 10}) {
+    return PdfreadxPlatform.instance.search(documentId, query,
+        page: page, maxHits: maxHits, boundsPages: boundsPages);
+  }
+  Future<Map<String, Object?>> getMetrics() {
+    return PdfreadxPlatform.instance.getMetrics();
+  }
+  Stream<Map<String, Object?>> metricsStream({Duration interval = const Duration(seconds: 1)}) {
+    return PdfreadxPlatform.instance.metricsStream(interval: interval);
+  }
 }
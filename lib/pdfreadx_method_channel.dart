@@ -1,6 +1,13 @@
+import 'dart:async';
+import 'dart:ui' show Rect, Size;
+
 import 'package:flutter/foundation.dart';
 import 'package:flutter/services.dart';
 
+import 'pdf_export.dart';
+import 'pdf_render.dart';
+import 'pdf_search.dart';
+import 'pdf_texture.dart';
 import 'pdfreadx_platform_interface.dart';
 
 /// An implementation of [PdfreadxPlatform] that uses method channels.
@@ -9,6 +16,22 @@ class MethodChannelPdfreadx extends PdfreadxPlatform {
   @visibleForTesting
   final methodChannel = const MethodChannel('pdfreadx');
 
+  /// Carries batch renders as raw bytes, bypassing the standard codec.
+  @visibleForTesting
+  final renderChannel = const BasicMessageChannel<ByteData?>('pdfreadx/render', BinaryCodec());
+
+  /// Streams periodic metrics snapshots.
+  @visibleForTesting
+  final metricsChannel = const EventChannel('pdfreadx/metrics');
+
+  /// Streams the progress of every running export, tagged with its id.
+  @visibleForTesting
+  final exportChannel = const EventChannel('pdfreadx/export');
+
+  // One listener on the native side serves every export.
+  late final Stream<Map<Object?, Object?>> _exportEvents =
+      exportChannel.receiveBroadcastStream().cast<Map<Object?, Object?>>();
+
   @override
   Future<String?> getPlatformVersion() async {
     final version = await methodChannel.invokeMethod<String>('getPlatformVersion');
@@ -20,4 +43,174 @@ class MethodChannelPdfreadx extends PdfreadxPlatform {
     final result = await methodChannel.invokeMethod<String>('startPDFViewActivity', {'data': args});
     return result;
   }
+
+  @override
+  Future<Map<int, Uint8List>> getThumbnails(Map<String, dynamic> args) async {
+    final thumbnails = await methodChannel.invokeMapMethod<int, Uint8List>('getThumbnails', {'data': args});
+    return thumbnails ?? {};
+  }
+
+  @override
+  Future<PdfDocumentHandle> openDocument(String filePath, String fileName) async {
+    final info = await methodChannel.invokeMapMethod<String, Object?>(
+        'openDocument', {'filePath': filePath, 'fileName': fileName});
+    return PdfDocumentHandle(id: info!['documentId']! as int, pageCount: info['pageCount']! as int);
+  }
+
+  @override
+  Future<PdfDocumentHandle> openDocumentFromUri(String uri) async {
+    final info = await methodChannel.invokeMapMethod<String, Object?>('openDocument', {'uri': uri});
+    return PdfDocumentHandle(id: info!['documentId']! as int, pageCount: info['pageCount']! as int);
+  }
+
+  @override
+  Future<PdfDocumentHandle> openDocumentFromBytes(Uint8List bytes, {String? name}) async {
+    final info = await methodChannel.invokeMapMethod<String, Object?>(
+        'openDocument', {'bytes': bytes, if (name != null) 'name': name});
+    return PdfDocumentHandle(id: info!['documentId']! as int, pageCount: info['pageCount']! as int);
+  }
+
+  @override
+  Future<PdfPageTexture?> renderTexture(int documentId, int pageIndex,
+      {required int width, required int height, int? textureId, Rect? viewport}) async {
+    final info = await methodChannel.invokeMapMethod<String, Object?>('renderTexture', {
+      'documentId': documentId,
+      'pageIndex': pageIndex,
+      'width': width,
+      'height': height,
+      if (textureId != null) 'textureId': textureId,
+      if (viewport != null) 'viewport': [viewport.left, viewport.top, viewport.right, viewport.bottom],
+    });
+    if (info == null) {
+      return null;
+    }
+    return PdfPageTexture(
+      textureId: info['textureId']! as int,
+      width: info['width']! as int,
+      height: info['height']! as int,
+    );
+  }
+
+  @override
+  Future<void> disposeTexture(int textureId) {
+    return methodChannel.invokeMethod<void>('disposeTexture', {'textureId': textureId});
+  }
+
+  @override
+  Future<void> closeDocument(int documentId) {
+    return methodChannel.invokeMethod<void>('closeDocument', {'documentId': documentId});
+  }
+
+  @override
+  Future<List<PdfPageImage>> renderPages(int documentId, List<PdfRenderRequest> requests,
+      {PdfImageFormat format = PdfImageFormat.rgba8888}) async {
+    final response = await renderChannel.send(encodeRenderRequest(documentId, format, requests));
+    if (response == null) {
+      throw const PdfRenderException(PdfRenderException.closed);
+    }
+    return decodeRenderResponse(response, format);
+  }
+
+  @override
+  Future<List<Size>> getPageSizes(int documentId) async {
+    final sizes = await methodChannel.invokeMethod<Int32List>('getPageSizes', {'documentId': documentId});
+    return [
+      for (var i = 0; i + 1 < sizes!.length; i += 2) Size(sizes[i].toDouble(), sizes[i + 1].toDouble()),
+    ];
+  }
+
+  @override
+  Stream<PdfExportProgress> exportPages(int documentId, String outputDirectory,
+      {int firstPage = 0, int? lastPage, double dpi = 150, PdfExportFormat format = PdfExportFormat.png,
+      int quality = 90}) {
+    late final StreamController<PdfExportProgress> controller;
+    StreamSubscription<Map<Object?, Object?>>? events;
+    int? exportId;
+    var finished = false;
+    var cancelled = false;
+    // Events may arrive before the id does; they wait here until it is known.
+    final early = <Map<Object?, Object?>>[];
+
+    void finish() {
+      finished = true;
+      events?.cancel();
+      controller.close();
+    }
+
+    void handle(Map<Object?, Object?> event) {
+      if (finished || event['exportId'] != exportId) {
+        return;
+      }
+      if (event['event'] == 'page') {
+        controller.add(PdfExportProgress.fromMap(event));
+        return;
+      }
+      if (event['outcome'] == 'failed') {
+        controller.addError(PdfExportException(event['error'] as String? ?? 'Export failed'));
+      }
+      finish();
+    }
+
+    controller = StreamController<PdfExportProgress>(
+      onListen: () {
+        events = _exportEvents.listen((event) => exportId == null ? early.add(event) : handle(event));
+        methodChannel.invokeMethod<int>('exportPages', {
+          'documentId': documentId,
+          'outputDirectory': outputDirectory,
+          'firstPage': firstPage,
+          'lastPage': lastPage,
+          'dpi': dpi,
+          'format': format.name,
+          'quality': quality,
+        }).then((id) {
+          exportId = id;
+          if (cancelled) {
+            methodChannel.invokeMethod<void>('cancelExport', {'exportId': id});
+            return;
+          }
+          early.forEach(handle);
+          early.clear();
+        }, onError: (Object error, StackTrace stackTrace) {
+          if (!cancelled) {
+            controller.addError(error, stackTrace);
+            finish();
+          }
+        });
+      },
+      onCancel: () {
+        cancelled = true;
+        events?.cancel();
+        if (!finished && exportId != null) {
+          methodChannel.invokeMethod<void>('cancelExport', {'exportId': exportId});
+        }
+      },
+    );
+    return controller.stream;
+  }
+
+  @override
+  Future<PdfSearchResult> search(int documentId, String query,
+      {int page = 0, int maxHits = 1000, int boundsPages = 10}) async {
+    final result = await methodChannel.invokeMapMethod<String, Object?>('search', {
+      'documentId': documentId,
+      'query': query,
+      'page': page,
+      'maxHits': maxHits,
+      'boundsPages': boundsPages,
+    });
+    return PdfSearchResult.fromMap(result!);
+  }
+
+  @override
+  Future<Map<String, Object?>> getMetrics() async {
+    final metrics = await methodChannel.invokeMapMethod<String, Object?>('getMetrics');
+    return metrics ?? {};
+  }
+
+  @override
+  Stream<Map<String, Object?>> metricsStream({Duration interval = const Duration(seconds: 1)}) {
+    return metricsChannel
+        .receiveBroadcastStream({'intervalMs': interval.inMilliseconds})
+        .map((event) => Map<String, Object?>.from(event as Map));
+  }
 }
@@ -1,5 +1,12 @@
+import 'dart:typed_data';
+import 'dart:ui' show Rect, Size;
+
 import 'package:plugin_platform_interface/plugin_platform_interface.dart';
 
+import 'pdf_export.dart';
+import 'pdf_render.dart';
+import 'pdf_search.dart';
+import 'pdf_texture.dart';
 import 'pdfreadx_method_channel.dart';
 
 abstract class PdfreadxPlatform extends PlatformInterface {
@@ -30,4 +37,101 @@ abstract class PdfreadxPlatform extends PlatformInterface {
   Future<String?> startPDFViewActivity(Map<String, dynamic> args) {
     throw UnimplementedError('startPDFViewActivity() has not been implemented.');
   }
+
+  /// Returns PNG thumbnails keyed by page index.
+  ///
+  /// [args] takes `filePath` and `fileName`, a `uri`, or `bytes` with an
+  /// optional `name`, and optionally `width` in pixels and the list of `pages`
+  /// to render, defaulting to every page.
+  Future<Map<int, Uint8List>> getThumbnails(Map<String, dynamic> args) {
+    throw UnimplementedError('getThumbnails() has not been implemented.');
+  }
+
+  /// Opens a PDF for rendering into textures, or shares it if it is open
+  /// already. Every open needs its own [closeDocument].
+  Future<PdfDocumentHandle> openDocument(String filePath, String fileName) {
+    throw UnimplementedError('openDocument() has not been implemented.');
+  }
+
+  /// Like [openDocument] for a `content://` or `file://` [uri], which is read
+  /// through its file descriptor without being copied.
+  Future<PdfDocumentHandle> openDocumentFromUri(String uri) {
+    throw UnimplementedError('openDocumentFromUri() has not been implemented.');
+  }
+
+  /// Opens a PDF held in memory. The bytes are kept in anonymous memory rather
+  /// than written to storage, and every call opens a document of its own.
+  Future<PdfDocumentHandle> openDocumentFromBytes(Uint8List bytes, {String? name}) {
+    throw UnimplementedError('openDocumentFromBytes() has not been implemented.');
+  }
+
+  /// Renders a page, or the normalized [viewport] of it, to fit [width] x
+  /// [height] pixels into a texture.
+  ///
+  /// Pass the [textureId] of an earlier result to render into that texture
+  /// again. Completes with null if a newer render of the same texture
+  /// replaced this one.
+  Future<PdfPageTexture?> renderTexture(int documentId, int pageIndex,
+      {required int width, required int height, int? textureId, Rect? viewport}) {
+    throw UnimplementedError('renderTexture() has not been implemented.');
+  }
+
+  Future<void> disposeTexture(int textureId) {
+    throw UnimplementedError('disposeTexture() has not been implemented.');
+  }
+
+  /// Gives back one [openDocument]; the last one disposes the textures
+  /// rendered from the document.
+  Future<void> closeDocument(int documentId) {
+    throw UnimplementedError('closeDocument() has not been implemented.');
+  }
+
+  /// Renders several pages of an open document in one round trip and returns
+  /// their pixels in request order.
+  Future<List<PdfPageImage>> renderPages(int documentId, List<PdfRenderRequest> requests,
+      {PdfImageFormat format = PdfImageFormat.rgba8888}) {
+    throw UnimplementedError('renderPages() has not been implemented.');
+  }
+
+  /// Returns the size of every page of an open document in PDF points. A
+  /// document opened before answers from its stored layout at once.
+  Future<List<Size>> getPageSizes(int documentId) {
+    throw UnimplementedError('getPageSizes() has not been implemented.');
+  }
+
+  /// Writes pages [firstPage] to [lastPage] (by default the last page) of an
+  /// open document to [outputDirectory] as images at [dpi], rendering and
+  /// encoding several pages at once in the background.
+  ///
+  /// Emits each page once its file is written and closes when all are, or
+  /// fails with a [PdfExportException]. Cancelling the subscription cancels
+  /// the export; files already written stay.
+  Stream<PdfExportProgress> exportPages(int documentId, String outputDirectory,
+      {int firstPage = 0, int? lastPage, double dpi = 150, PdfExportFormat format = PdfExportFormat.png,
+      int quality = 90}) {
+    throw UnimplementedError('exportPages() has not been implemented.');
+  }
+
+  /// Searches the text of an open document, answering from the pages indexed
+  /// so far while a background indexer works outward from [page].
+  ///
+  /// Returns up to [maxHits] hits and the bounds of the hits on the first
+  /// [boundsPages] pages that have any.
+  Future<PdfSearchResult> search(int documentId, String query,
+      {int page = 0, int maxHits = 1000, int boundsPages = 10}) {
+    throw UnimplementedError('search() has not been implemented.');
+  }
+
+  /// Returns the performance counters of the native viewer: open and render
+  /// latency histograms, half-resolution fallbacks, janky and dropped frames,
+  /// and cache and bitmap memory figures.
+  Future<Map<String, Object?>> getMetrics() {
+    throw UnimplementedError('getMetrics() has not been implemented.');
+  }
+
+  /// Emits a [getMetrics] snapshot right away and then every [interval]
+  /// while listened to.
+  Stream<Map<String, Object?>> metricsStream({Duration interval = const Duration(seconds: 1)}) {
+    throw UnimplementedError('metricsStream() has not been implemented.');
+  }
 }
@@ -0,0 +1,48 @@
+import 'dart:typed_data';
+import 'dart:ui' show Rect;
+
+import 'package:flutter_test/flutter_test.dart';
+import 'package:pdfreadx/pdf_render.dart';
+
+void main() {
+  test('encodeRenderRequest writes the header and one entry per page', () {
+    final data = encodeRenderRequest(3, PdfImageFormat.png, const [
+      PdfRenderRequest(0),
+      PdfRenderRequest(5, scale: 2, crop: Rect.fromLTRB(0.5, 0, 1, 0.5)),
+    ]);
+
+    expect(data.lengthInBytes, 12 + 2 * 24);
+    expect(data.getInt32(0, Endian.little), 3);
+    expect(data.getInt32(4, Endian.little), PdfImageFormat.png.index);
+    expect(data.getInt32(8, Endian.little), 2);
+    expect(data.getFloat32(12 + 16, Endian.little), 1.0);
+    expect(data.getInt32(36, Endian.little), 5);
+    expect(data.getFloat32(36 + 8, Endian.little), 0.5);
+  });
+
+  test('decodeRenderResponse slices payloads in order', () {
+    final response = ByteData(8 + 2 * 16 + 4 + 2);
+    response.setInt32(4, 2, Endian.little);
+    response.setInt32(8, 0, Endian.little);
+    response.setInt32(12, 1, Endian.little);
+    response.setInt32(16, 1, Endian.little);
+    response.setInt32(20, 4, Endian.little);
+    response.setInt32(24, 9, Endian.little);
+    response.setInt32(36, 2, Endian.little);
+    response.setUint8(44, 0xAB);
+
+    final images = decodeRenderResponse(response, PdfImageFormat.rgba8888);
+
+    expect(images, hasLength(2));
+    expect(images[0].bytes, hasLength(4));
+    expect(images[1].pageIndex, 9);
+    expect(images[1].isEmpty, isTrue);
+    expect(images[1].bytes.first, 0xAB);
+  });
+
+  test('decodeRenderResponse throws on a refused batch', () {
+    final response = ByteData(8)..setInt32(0, PdfRenderException.noDocument, Endian.little);
+
+    expect(() => decodeRenderResponse(response, PdfImageFormat.png), throwsA(isA<PdfRenderException>()));
+  });
+}
@@ -1,3 +1,6 @@
+import 'dart:typed_data';
+import 'dart:ui' show Rect, Size;
+
 import 'package:flutter_test/flutter_test.dart';
 import 'package:pdfreadx/pdfreadx.dart';
 import 'package:pdfreadx/pdfreadx_platform_interface.dart';
@@ -15,6 +18,69 @@ class MockPdfreadxPlatform
   Future<String?> startPDFViewActivity(Map<String, dynamic> args) {
     return Future.value('PDF View Activity started with args: $args'); 
   }
+
+  @override
+  Future<Map<int, Uint8List>> getThumbnails(Map<String, dynamic> args) {
+    return Future.value({0: Uint8List(0)});
+  }
+
+  @override
+  Future<PdfDocumentHandle> openDocument(String filePath, String fileName) {
+    return Future.value(const PdfDocumentHandle(id: 1, pageCount: 3));
+  }
+
+  @override
+  Future<PdfDocumentHandle> openDocumentFromUri(String uri) {
+    return Future.value(const PdfDocumentHandle(id: 2, pageCount: 3));
+  }
+
+  @override
+  Future<PdfDocumentHandle> openDocumentFromBytes(Uint8List bytes, {String? name}) {
+    return Future.value(const PdfDocumentHandle(id: 3, pageCount: 3));
+  }
+
+  @override
+  Future<PdfPageTexture?> renderTexture(int documentId, int pageIndex,
+      {required int width, required int height, int? textureId, Rect? viewport}) {
+    return Future.value(PdfPageTexture(textureId: textureId ?? 7, width: width, height: height));
+  }
+
+  @override
+  Future<void> disposeTexture(int textureId) => Future.value();
+
+  @override
+  Future<void> closeDocument(int documentId) => Future.value();
+
+  @override
+  Future<List<PdfPageImage>> renderPages(int documentId, List<PdfRenderRequest> requests,
+      {PdfImageFormat format = PdfImageFormat.rgba8888}) {
+    return Future.value(const []);
+  }
+
+  @override
+  Future<List<Size>> getPageSizes(int documentId) => Future.value(const [Size(612, 792)]);
+
+  @override
+  Stream<PdfExportProgress> exportPages(int documentId, String outputDirectory,
+      {int firstPage = 0, int? lastPage, double dpi = 150, PdfExportFormat format = PdfExportFormat.png,
+      int quality = 90}) {
+    return Stream.value(PdfExportProgress(page: firstPage, path: '$outputDirectory/page-0001.png', done: 1, total: 1));
+  }
+
+  @override
+  Future<PdfSearchResult> search(int documentId, String query,
+      {int page = 0, int maxHits = 1000, int boundsPages = 10}) {
+    return Future.value(PdfSearchResult(
+        query: query, pageCount: 3, indexedPages: 3, supported: true, hits: const [], bounds: const {}));
+  }
+
+  @override
+  Future<Map<String, Object?>> getMetrics() => Future.value(const {'fallbackRenders': 0});
+
+  @override
+  Stream<Map<String, Object?>> metricsStream({Duration interval = const Duration(seconds: 1)}) {
+    return Stream.value(const {'fallbackRenders': 0});
+  }
 }
 
 void main() {